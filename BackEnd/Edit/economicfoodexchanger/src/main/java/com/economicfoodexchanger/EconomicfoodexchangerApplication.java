@@ -2,8 +2,10 @@ package com.economicfoodexchanger;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class EconomicfoodexchangerApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,20 @@
+package com.economicfoodexchanger;
+
+import com.fasterxml.jackson.datatype.hibernate6.Hibernate6Module;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+
+    // Entity associations are lazy and every endpoint loads what it returns through an entity
+    // graph. This module writes loaded proxies as plain objects and anything not loaded as null,
+    // instead of failing on the proxy or querying the database during serialization.
+    @Bean
+    public Hibernate6Module hibernate6Module() {
+        Hibernate6Module module = new Hibernate6Module();
+        // @Transient getters stay in the JSON unless they are @JsonIgnore
+        module.disable(Hibernate6Module.Feature.USE_TRANSIENT_ANNOTATION);
+        return module;
+    }
+}
@@ -8,6 +8,10 @@
 
     import java.util.List;
 
+    @NamedEntityGraph(name = "User.withRoles", attributeNodes = {
+            @NamedAttributeNode("roleList"),
+            @NamedAttributeNode("communityMember")
+    })
     @Entity
     @Table(
             name = "user"
@@ -45,7 +49,7 @@
         @Column(name = "password", nullable = false, length = 45)
         private String password;
 
-        @ManyToMany(fetch =FetchType.EAGER, cascade = CascadeType.MERGE)
+        @ManyToMany(fetch = FetchType.LAZY, cascade = CascadeType.MERGE)
         @JoinTable(
                 name = "user_has_role",
                 joinColumns = @JoinColumn(name = "user_id"),
@@ -53,7 +57,7 @@
         )
         private List<Role> roleList;
 
-        @OneToOne
+        @OneToOne(fetch = FetchType.LAZY)
         @JoinColumn(name = "cummiunitymember_id", referencedColumnName = "id",columnDefinition = "INT DEFAULT 1")
         private CommunityMember communityMember;
     }
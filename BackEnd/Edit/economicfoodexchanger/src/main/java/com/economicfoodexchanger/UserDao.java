@@ -1,5 +1,6 @@
 package com.economicfoodexchanger;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -7,12 +8,25 @@ import org.springframework.stereotype.Repository;
 
 import java.util.Map;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface UserDao extends JpaRepository<User,Integer> {
 
+    @Override
+    @EntityGraph("User.withRoles")
+    List<User> findAll();
+
+    @Override
+    @EntityGraph("User.withRoles")
+    Optional<User> findById(Integer id);
+
+    @EntityGraph("User.withRoles")
     User findUserByUsername(String username);
 
+    @Query(value = "SELECT u.name FROM user u WHERE u.id = :id", nativeQuery = true)
+    Optional<String> findNameById(@Param("id") Integer id);
+
     @Query(value = "SELECT u.id, u.name, SUM(bd.bitrate * bd.needamount) AS total_profit " +
             "FROM user u " +
             "JOIN sharedpost sp ON u.id = sp.user_id " +
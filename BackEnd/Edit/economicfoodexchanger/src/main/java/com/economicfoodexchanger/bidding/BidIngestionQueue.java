@@ -0,0 +1,272 @@
+package com.economicfoodexchanger.bidding;
+
+import com.economicfoodexchanger.sharedpost.BidChangedEvent;
+import com.economicfoodexchanger.sharedpost.SharedPostDao;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind ingestion of bids. A request puts a validated bid on a bounded queue; one writer
+ * thread takes up to bids.ingest.batch-size bids at a time, waiting at most
+ * bids.ingest.max-delay-ms for a batch to fill, and inserts them as one JDBC batch in one
+ * transaction. A batch therefore costs one commit (one redo log flush) instead of one per bid.
+ * <p>
+ * Durability: a bid is stored once the future returned by submit has completed, and not before.
+ * A caller that answers after that never acknowledges a bid that could still be lost; a caller
+ * that answers on enqueue trades that for latency, and bids still queued are lost if the process
+ * dies. On a normal shutdown the queue is drained before the writer stops.
+ * <p>
+ * Backpressure: with a full queue, submit waits up to bids.ingest.enqueue-timeout-ms for room and
+ * then refuses the bid with 503, so a surge slows bidders down instead of growing the heap.
+ * <p>
+ * A bid is only inserted if its post is still taking bids when its batch runs: the post may have
+ * been closed or passed its deadline while the bid was queued. Such a bid fails with 409.
+ * <p>
+ * Metrics: bids.ingest.queue.size, bids.ingest.saved, bids.ingest.rejected and the
+ * bids.ingest.flush timer.
+ */
+@Component
+public class BidIngestionQueue {
+
+    // Inserts nothing (update count 0) when the post is no longer taking bids
+    private static final String INSERT = "INSERT INTO bitdetails " +
+            "(bitrate, needamount, bitdetailscol, deliverylocation, conformedstate, sharedpost_id, user_id) " +
+            "SELECT ?, ?, ?, ?, 0, p.id, ? FROM sharedpost p WHERE p.id = ? AND " + SharedPostDao.TAKING_BIDS;
+    private static final long POLL_MS = 100;
+
+    public record PendingBid(Integer postId, Integer userId, BigDecimal bitrate, BigDecimal needamount,
+                             String bitdetailscol, String deliveryLocation) {
+    }
+
+    private record Submission(PendingBid bid, CompletableFuture<Integer> saved) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final BlockingQueue<Submission> queue;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final long enqueueTimeoutMs;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private final AtomicLong saved = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final Timer flushTimer;
+
+    public BidIngestionQueue(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${bids.ingest.queue-capacity:10000}") int queueCapacity,
+                             @Value("${bids.ingest.batch-size:200}") int batchSize,
+                             @Value("${bids.ingest.max-delay-ms:5}") long maxDelayMs,
+                             @Value("${bids.ingest.enqueue-timeout-ms:50}") long enqueueTimeoutMs,
+                             MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+        this.enqueueTimeoutMs = enqueueTimeoutMs;
+
+        Gauge.builder("bids.ingest.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+        FunctionCounter.builder("bids.ingest.saved", saved, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("bids.ingest.rejected", rejected, AtomicLong::get).register(meterRegistry);
+        this.flushTimer = Timer.builder("bids.ingest.flush").register(meterRegistry);
+
+        this.writer = new Thread(this::runWriter, "bid-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // Completes with the new bid id once its batch has committed
+    public CompletableFuture<Integer> submit(PendingBid bid) {
+        Submission submission = new Submission(bid, new CompletableFuture<>());
+        boolean accepted = false;
+        if (running) {
+            try {
+                accepted = queue.offer(submission, enqueueTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!accepted) {
+            rejected.incrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many bids right now, try again shortly");
+        }
+        return submission.saved;
+    }
+
+    // Stops taking bids, then waits for the writer to store what is already queued
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+        if (!queue.isEmpty()) {
+            System.err.println("Bid writer stopped with " + queue.size() + " bids not stored");
+        }
+    }
+
+    private void runWriter() {
+        List<Submission> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Submission first = queue.poll(POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    Submission next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                // Not interrupted on shutdown (running is cleared instead); store what was taken
+                flush(batch);
+            } catch (RuntimeException e) {
+                System.err.println("Bid writer failed: " + e.getMessage());
+                for (Submission submission : batch) {
+                    submission.saved.completeExceptionally(e);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Submission> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        List<Integer> ids = null;
+        try {
+            ids = transactionTemplate.execute(status -> insert(batch));
+        } catch (RuntimeException e) {
+            System.err.println("Bid batch of " + batch.size() + " failed, storing one by one: " + e.getMessage());
+        }
+        if (ids != null) {
+            complete(batch, ids);
+        } else {
+            // One bad bid (its post deleted meanwhile, say) must not fail the rest of its batch
+            for (Submission submission : batch) {
+                List<Integer> id;
+                try {
+                    id = transactionTemplate.execute(status -> insert(List.of(submission)));
+                } catch (RuntimeException e) {
+                    submission.saved.completeExceptionally(e);
+                    continue;
+                }
+                complete(List.of(submission), id);
+            }
+        }
+        flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    // Runs on the transaction's connection; returns the generated ids in batch order, null for a
+    // bid that was not inserted because its post stopped taking bids
+    private List<Integer> insert(List<Submission> batch) {
+        return jdbcTemplate.execute((ConnectionCallback<List<Integer>>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS)) {
+                for (Submission submission : batch) {
+                    PendingBid bid = submission.bid;
+                    statement.setBigDecimal(1, bid.bitrate());
+                    statement.setBigDecimal(2, bid.needamount());
+                    statement.setString(3, bid.bitdetailscol());
+                    statement.setString(4, bid.deliveryLocation());
+                    statement.setObject(5, bid.userId());
+                    statement.setInt(6, bid.postId());
+                    statement.addBatch();
+                }
+                int[] counts = statement.executeBatch();
+
+                // Keys come only for the rows inserted, in batch order
+                int inserted = 0;
+                for (int count : counts) {
+                    if (count == Statement.SUCCESS_NO_INFO) {
+                        throw new IllegalStateException("Bid batch did not report which bids were inserted");
+                    }
+                    inserted += count > 0 ? 1 : 0;
+                }
+                List<Integer> keys = new ArrayList<>(inserted);
+                try (ResultSet generated = statement.getGeneratedKeys()) {
+                    while (generated.next()) {
+                        keys.add(generated.getInt(1));
+                    }
+                }
+                if (counts.length != batch.size() || keys.size() != inserted) {
+                    throw new IllegalStateException("Expected " + inserted + " bid ids for " + batch.size()
+                            + " bids, got " + keys.size());
+                }
+                List<Integer> ids = new ArrayList<>(batch.size());
+                int next = 0;
+                for (int count : counts) {
+                    ids.add(count > 0 ? keys.get(next++) : null);
+                }
+                return ids;
+            }
+        });
+    }
+
+    // After commit: acknowledge first, then let the order books, feed cache and live events know
+    private void complete(List<Submission> batch, List<Integer> ids) {
+        for (int i = 0; i < batch.size(); i++) {
+            Submission submission = batch.get(i);
+            if (ids.get(i) != null) {
+                saved.incrementAndGet();
+                submission.saved.complete(ids.get(i));
+            } else {
+                submission.saved.completeExceptionally(new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Post " + submission.bid.postId() + " is not open for bids"));
+            }
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            if (ids.get(i) == null) {
+                continue;
+            }
+            PendingBid bid = batch.get(i).bid;
+            try {
+                // Carries the whole bid, so no listener has to read it back on this thread
+                eventPublisher.publishEvent(new BidChangedEvent(ids.get(i), bid.postId(), BidChangedEvent.Change.ADDED,
+                        bid.bitrate(), bid.needamount(), bid.deliveryLocation(), bid.userId()));
+            } catch (RuntimeException e) {
+                System.err.println("Bid " + ids.get(i) + " stored, but a listener failed: " + e.getMessage());
+            }
+        }
+    }
+}
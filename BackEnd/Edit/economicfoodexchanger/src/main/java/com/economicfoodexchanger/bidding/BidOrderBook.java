@@ -0,0 +1,236 @@
+package com.economicfoodexchanger.bidding;
+
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bids of every open post, kept ranked so a post's best bid, top bids, bid count and spread are
+ * read without a database query. On a selling post the highest bitrate leads; on a buying post
+ * the lowest does, since bids there are offers to sell. Ties go to the larger needamount, then
+ * to the earlier bid.
+ * <p>
+ * A post's book is an immutable Book replaced through ConcurrentHashMap.compute, so concurrent
+ * bids on one post are applied one after the other and readers never wait or see a half-applied
+ * change. Posts that are not open have no book.
+ * <p>
+ * Bid events that arrive while the books are first loaded find no book yet; they are kept and
+ * applied once replaceAll has put the loaded books in place, so a bid stored after the load query
+ * ran is not lost.
+ */
+@Component
+public class BidOrderBook {
+
+    public enum Direction { HIGHEST_FIRST, LOWEST_FIRST }
+
+    private final Map<Integer, Book> books = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    // Until loaded: changes to apply after the load, in arrival order; guarded by itself
+    private final List<Runnable> pendingChanges = new ArrayList<>();
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int size() {
+        return books.size();
+    }
+
+    // Null when the post is not open (or not loaded yet)
+    public Book book(Integer postId) {
+        return books.get(postId);
+    }
+
+    // Every open post with its direction, and the bids of those posts
+    public void replaceAll(Map<Integer, Direction> openPosts, Collection<Bid> bids) {
+        Map<Integer, List<Bid>> bidsByPost = new HashMap<>();
+        for (Bid bid : bids) {
+            bidsByPost.computeIfAbsent(bid.postId(), id -> new ArrayList<>()).add(bid);
+        }
+        books.keySet().retainAll(openPosts.keySet());
+        openPosts.forEach((postId, direction) ->
+                replacePost(postId, direction, bidsByPost.getOrDefault(postId, List.of())));
+        synchronized (pendingChanges) {
+            // Replayed in order; a bid already read is simply replaced by the same bid
+            for (Runnable change : pendingChanges) {
+                change.run();
+            }
+            pendingChanges.clear();
+            loaded = true;
+        }
+    }
+
+    // Bids newer than the ones read (placed while they were being read) are kept
+    public void replacePost(Integer postId, Direction direction, Collection<Bid> bids) {
+        books.compute(postId, (id, current) -> {
+            Book book = Book.of(postId, direction, bids);
+            if (current != null) {
+                int newestRead = bids.stream().mapToInt(Bid::id).max().orElse(0);
+                for (Bid bid : current.ranked) {
+                    if (bid.id() > newestRead) {
+                        book = book.with(bid);
+                    }
+                }
+            }
+            return book;
+        });
+    }
+
+    public void remove(Integer postId) {
+        books.remove(postId);
+    }
+
+    // Adds or replaces one bid; ignored when the post has no book
+    public void add(Bid bid) {
+        Runnable change = () -> books.computeIfPresent(bid.postId(), (postId, book) -> book.with(bid));
+        if (!deferUntilLoaded(change)) {
+            change.run();
+        }
+    }
+
+    public void confirm(Integer postId, Integer bidId) {
+        Runnable change = () -> books.computeIfPresent(postId, (id, book) -> book.withConfirmed(bidId));
+        if (!deferUntilLoaded(change)) {
+            change.run();
+        }
+    }
+
+    // True when the change was kept for replaceAll; once loaded this is one volatile read
+    private boolean deferUntilLoaded(Runnable change) {
+        if (loaded) {
+            return false;
+        }
+        synchronized (pendingChanges) {
+            if (loaded) {
+                return false;
+            }
+            pendingChanges.add(change);
+            return true;
+        }
+    }
+
+    public record Bid(Integer id, Integer postId, BigDecimal bitrate, BigDecimal needamount, String deliveryLocation,
+                      Integer bidderId, String bidderName, boolean confirmed) {
+    }
+
+    /**
+     * One post's bids in rank order, with its summary figures worked out when the book was built.
+     * Spread is the highest minus the lowest bitrate; bids without a bitrate rank last.
+     */
+    public static final class Book {
+        private final Integer postId;
+        private final Direction direction;
+        private final Bid[] ranked;
+        private final BigDecimal highestRate;
+        private final BigDecimal lowestRate;
+        private final Integer confirmedBidId;
+
+        private Book(Integer postId, Direction direction, Bid[] ranked) {
+            this.postId = postId;
+            this.direction = direction;
+            this.ranked = ranked;
+            BigDecimal highest = null;
+            BigDecimal lowest = null;
+            Integer confirmed = null;
+            for (Bid bid : ranked) {
+                if (bid.bitrate() != null) {
+                    highest = highest == null || bid.bitrate().compareTo(highest) > 0 ? bid.bitrate() : highest;
+                    lowest = lowest == null || bid.bitrate().compareTo(lowest) < 0 ? bid.bitrate() : lowest;
+                }
+                if (bid.confirmed() && confirmed == null) {
+                    confirmed = bid.id();
+                }
+            }
+            this.highestRate = highest;
+            this.lowestRate = lowest;
+            this.confirmedBidId = confirmed;
+        }
+
+        public static Book of(Integer postId, Direction direction, Collection<Bid> bids) {
+            Bid[] ranked = bids.toArray(new Bid[0]);
+            Arrays.sort(ranked, ranking(direction));
+            return new Book(postId, direction, ranked);
+        }
+
+        public Integer postId() {
+            return postId;
+        }
+
+        public Direction direction() {
+            return direction;
+        }
+
+        public Bid best() {
+            return ranked.length == 0 ? null : ranked[0];
+        }
+
+        public List<Bid> top(int n) {
+            return List.of(Arrays.copyOf(ranked, Math.min(Math.max(n, 0), ranked.length)));
+        }
+
+        public int count() {
+            return ranked.length;
+        }
+
+        public BigDecimal highestRate() {
+            return highestRate;
+        }
+
+        public BigDecimal lowestRate() {
+            return lowestRate;
+        }
+
+        public BigDecimal spread() {
+            return highestRate == null ? null : highestRate.subtract(lowestRate);
+        }
+
+        public Integer confirmedBidId() {
+            return confirmedBidId;
+        }
+
+        private Book with(Bid bid) {
+            Comparator<Bid> ranking = ranking(direction);
+            List<Bid> bids = new ArrayList<>(ranked.length + 1);
+            for (Bid existing : ranked) {
+                if (!existing.id().equals(bid.id())) {
+                    bids.add(existing);
+                }
+            }
+            int index = 0;
+            while (index < bids.size() && ranking.compare(bids.get(index), bid) <= 0) {
+                index++;
+            }
+            bids.add(index, bid);
+            return new Book(postId, direction, bids.toArray(new Bid[0]));
+        }
+
+        private Book withConfirmed(Integer bidId) {
+            Bid[] updated = ranked.clone();
+            for (int i = 0; i < updated.length; i++) {
+                Bid bid = updated[i];
+                if (bid.id().equals(bidId)) {
+                    updated[i] = new Bid(bid.id(), bid.postId(), bid.bitrate(), bid.needamount(),
+                            bid.deliveryLocation(), bid.bidderId(), bid.bidderName(), true);
+                }
+            }
+            return new Book(postId, direction, updated);
+        }
+
+        private static Comparator<Bid> ranking(Direction direction) {
+            Comparator<BigDecimal> rate = direction == Direction.HIGHEST_FIRST
+                    ? Comparator.reverseOrder() : Comparator.naturalOrder();
+            return Comparator.comparing(Bid::bitrate, Comparator.nullsLast(rate))
+                    .thenComparing(Bid::needamount, Comparator.nullsLast(Comparator.<BigDecimal>reverseOrder()))
+                    .thenComparing(Bid::id);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.economicfoodexchanger.bidding;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Timer for many long, mostly equal-priority delays (bidding deadlines), after the hashed timing
+ * wheel of Varghese and Lauck. Time is cut into ticks of tickMs; a timeout goes into the bucket
+ * of the tick it falls due in, modulo the wheel size, with the number of full turns still to
+ * wait. One worker thread advances one bucket per tick, so a tick costs the size of one bucket
+ * (about pending / wheelSize) rather than the number of pending timeouts, and scheduling or
+ * cancelling is O(1) from any thread.
+ * <p>
+ * Timeouts fire up to one tick late, never early. Due tasks run on the given executor, not on
+ * the worker, so a slow task does not delay the wheel.
+ */
+public class HashedWheelTimer {
+
+    public interface Timeout {
+        // False when the task already ran (or is running) or was cancelled before
+        boolean cancel();
+
+        boolean isCancelled();
+    }
+
+    private static final int ST_WAITING = 0;
+    private static final int ST_CANCELLED = 1;
+    private static final int ST_EXPIRED = 2;
+
+    // Scheduled timeouts moved into the wheel per tick, so a burst cannot stall expiry
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Executor executor;
+
+    // Filled by any thread, drained by the worker only; buckets are touched by the worker only
+    private final Queue<Node> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Node> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final long startNanos;
+    private final Thread worker;
+    private volatile boolean running = true;
+    private long tick;
+
+    public HashedWheelTimer(String threadName, long tickMs, int wheelSize, Executor executor) {
+        if (tickMs <= 0) {
+            throw new IllegalArgumentException("tickMs must be positive: " + tickMs);
+        }
+        if (wheelSize <= 0 || wheelSize > (1 << 30)) {
+            throw new IllegalArgumentException("wheelSize out of range: " + wheelSize);
+        }
+        // Power of two, so the bucket of a tick is a mask instead of a division
+        int size = Integer.highestOneBit(wheelSize);
+        if (size < wheelSize) {
+            size <<= 1;
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.executor = executor;
+
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, threadName);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public Timeout schedule(Runnable task, long delayMs) {
+        if (!running) {
+            throw new IllegalStateException("Timer stopped");
+        }
+        long deadline = System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMs));
+        Node node = new Node(task, deadline);
+        pending.incrementAndGet();
+        added.add(node);
+        return node;
+    }
+
+    // Timeouts scheduled and neither run nor cancelled yet
+    public int pending() {
+        return pending.get();
+    }
+
+    public void stop() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            long now = waitForNextTick();
+            if (now < 0) {
+                continue;
+            }
+            removeCancelled();
+            transferAdded();
+            expire(wheel[(int) (tick & mask)], now);
+            tick++;
+        }
+    }
+
+    // Elapsed nanos at the end of the current tick, or -1 if interrupted
+    private long waitForNextTick() {
+        long tickEnd = tickNanos * (tick + 1);
+        while (true) {
+            long now = System.nanoTime() - startNanos;
+            long sleepMs = TimeUnit.NANOSECONDS.toMillis(tickEnd - now + 999_999);
+            if (sleepMs <= 0) {
+                return now;
+            }
+            try {
+                Thread.sleep(sleepMs);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return -1;
+                }
+            }
+        }
+    }
+
+    private void removeCancelled() {
+        Node node;
+        while ((node = cancelled.poll()) != null) {
+            if (node.bucket != null) {
+                node.bucket.remove(node);
+            }
+        }
+    }
+
+    private void transferAdded() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Node node = added.poll();
+            if (node == null) {
+                return;
+            }
+            if (node.state.get() != ST_WAITING) {
+                continue;
+            }
+            long dueTick = node.deadline / tickNanos;
+            node.remainingRounds = (dueTick - tick) / wheel.length;
+            // Already due: the current bucket, expired in this very tick
+            long bucketTick = Math.max(dueTick, tick);
+            wheel[(int) (bucketTick & mask)].add(node);
+        }
+    }
+
+    private void expire(Bucket bucket, long now) {
+        Node node = bucket.head;
+        while (node != null) {
+            Node next = node.next;
+            if (node.state.get() == ST_CANCELLED) {
+                bucket.remove(node);
+            } else if (node.remainingRounds <= 0 && node.deadline <= now) {
+                bucket.remove(node);
+                node.expire();
+            } else if (node.remainingRounds > 0) {
+                node.remainingRounds--;
+            }
+            node = next;
+        }
+    }
+
+    private final class Node implements Timeout {
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(ST_WAITING);
+        private long remainingRounds;
+        private Bucket bucket;
+        private Node prev;
+        private Node next;
+
+        private Node(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!state.compareAndSet(ST_WAITING, ST_CANCELLED)) {
+                return false;
+            }
+            pending.decrementAndGet();
+            // Unlinked by the worker at its next tick
+            cancelled.add(this);
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state.get() == ST_CANCELLED;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(ST_WAITING, ST_EXPIRED)) {
+                return;
+            }
+            pending.decrementAndGet();
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                System.err.println("Timer task rejected: " + e.getMessage());
+            }
+        }
+    }
+
+    // Doubly linked, so a cancelled node is unlinked in O(1)
+    private static final class Bucket {
+        private Node head;
+        private Node tail;
+
+        private void add(Node node) {
+            node.bucket = this;
+            if (head == null) {
+                head = tail = node;
+            } else {
+                tail.next = node;
+                node.prev = tail;
+                tail = node;
+            }
+        }
+
+        private void remove(Node node) {
+            if (node.bucket != this) {
+                return;
+            }
+            if (node.prev != null) {
+                node.prev.next = node.next;
+            } else {
+                head = node.next;
+            }
+            if (node.next != null) {
+                node.next.prev = node.prev;
+            } else {
+                tail = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            node.bucket = null;
+        }
+    }
+}
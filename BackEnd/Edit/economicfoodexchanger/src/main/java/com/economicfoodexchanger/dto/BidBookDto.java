@@ -0,0 +1,34 @@
+package com.economicfoodexchanger.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// A post's bids in rank order: best bid first, top N of them, with count and spread over all bids
+public class BidBookDto {
+    private Integer postId;
+    private int bidCount;
+    private BidSummaryDto bestBid;
+    private List<BidSummaryDto> topBids;
+    private BigDecimal highestRate;
+    private BigDecimal lowestRate;
+    private BigDecimal spread;
+    private Integer confirmedBidId;
+
+    // Getters and setters
+    public Integer getPostId() { return postId; }
+    public void setPostId(Integer postId) { this.postId = postId; }
+    public int getBidCount() { return bidCount; }
+    public void setBidCount(int bidCount) { this.bidCount = bidCount; }
+    public BidSummaryDto getBestBid() { return bestBid; }
+    public void setBestBid(BidSummaryDto bestBid) { this.bestBid = bestBid; }
+    public List<BidSummaryDto> getTopBids() { return topBids; }
+    public void setTopBids(List<BidSummaryDto> topBids) { this.topBids = topBids; }
+    public BigDecimal getHighestRate() { return highestRate; }
+    public void setHighestRate(BigDecimal highestRate) { this.highestRate = highestRate; }
+    public BigDecimal getLowestRate() { return lowestRate; }
+    public void setLowestRate(BigDecimal lowestRate) { this.lowestRate = lowestRate; }
+    public BigDecimal getSpread() { return spread; }
+    public void setSpread(BigDecimal spread) { this.spread = spread; }
+    public Integer getConfirmedBidId() { return confirmedBidId; }
+    public void setConfirmedBidId(Integer confirmedBidId) { this.confirmedBidId = confirmedBidId; }
+}
@@ -0,0 +1,22 @@
+package com.economicfoodexchanger.dto;
+
+// Answer to /bitdetails/submit: SAVED with the bid id once stored, or QUEUED (no id yet) when not waiting
+public class BidSubmissionDto {
+    private Integer postId;
+    private Integer bidId;
+    private String status;
+
+    public BidSubmissionDto(Integer postId, Integer bidId, String status) {
+        this.postId = postId;
+        this.bidId = bidId;
+        this.status = status;
+    }
+
+    // Getters and setters
+    public Integer getPostId() { return postId; }
+    public void setPostId(Integer postId) { this.postId = postId; }
+    public Integer getBidId() { return bidId; }
+    public void setBidId(Integer bidId) { this.bidId = bidId; }
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+}
@@ -0,0 +1,30 @@
+package com.economicfoodexchanger.dto;
+
+import java.math.BigDecimal;
+
+// One bid as listed in a post's order book
+public class BidSummaryDto {
+    private Integer id;
+    private BigDecimal bitrate;
+    private BigDecimal needamount;
+    private String deliveryLocation;
+    private Integer bidderId;
+    private String bidderName;
+    private boolean confirmed;
+
+    // Getters and setters
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+    public BigDecimal getBitrate() { return bitrate; }
+    public void setBitrate(BigDecimal bitrate) { this.bitrate = bitrate; }
+    public BigDecimal getNeedamount() { return needamount; }
+    public void setNeedamount(BigDecimal needamount) { this.needamount = needamount; }
+    public String getDeliveryLocation() { return deliveryLocation; }
+    public void setDeliveryLocation(String deliveryLocation) { this.deliveryLocation = deliveryLocation; }
+    public Integer getBidderId() { return bidderId; }
+    public void setBidderId(Integer bidderId) { this.bidderId = bidderId; }
+    public String getBidderName() { return bidderName; }
+    public void setBidderName(String bidderName) { this.bidderName = bidderName; }
+    public boolean isConfirmed() { return confirmed; }
+    public void setConfirmed(boolean confirmed) { this.confirmed = confirmed; }
+}
@@ -0,0 +1,23 @@
+package com.economicfoodexchanger.dto;
+
+import java.time.LocalDateTime;
+
+public class DeliveryPositionDto {
+    private Integer deliveryId;
+    private Double latitude;
+    private Double longitude;
+    private Float accuracy;
+    private LocalDateTime recordedAt;
+
+    // Getters and setters
+    public Integer getDeliveryId() { return deliveryId; }
+    public void setDeliveryId(Integer deliveryId) { this.deliveryId = deliveryId; }
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+    public Float getAccuracy() { return accuracy; }
+    public void setAccuracy(Float accuracy) { this.accuracy = accuracy; }
+    public LocalDateTime getRecordedAt() { return recordedAt; }
+    public void setRecordedAt(LocalDateTime recordedAt) { this.recordedAt = recordedAt; }
+}
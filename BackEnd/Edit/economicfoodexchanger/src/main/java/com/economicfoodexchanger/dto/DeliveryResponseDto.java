@@ -1,12 +1,12 @@
 package com.economicfoodexchanger.dto;
 
-import com.economicfoodexchanger.sharedpost.SharedPost;
 import com.economicfoodexchanger.sharedpost.delivery.DeliveryStaus;
 import com.economicfoodexchanger.sharedpost.delivery.DeliveryStatusHistory;
-import com.economicfoodexchanger.sharedpost.payment.Payment;
 
 import java.util.List;
 
+// A delivery with summaries of its payment and post (DeliveryDao.CardProjection); files and
+// media are linked by URL, never embedded
 public class DeliveryResponseDto {
     private Integer id;
     private String trackingNumber;
@@ -14,8 +14,8 @@ public class DeliveryResponseDto {
     private String currentPackageLocation;
     private String deliveryCompany;
     private String description;
-    private Payment payment;
-    private SharedPost sharedPost;
+    private PaymentSummaryDto payment;
+    private PostSummaryDto sharedPost;
     private DeliveryStaus currentStatus;
     private List<DeliveryStatusHistory> statusHistory;
     
@@ -32,10 +32,10 @@ public class DeliveryResponseDto {
     public void setDeliveryCompany(String deliveryCompany) { this.deliveryCompany = deliveryCompany; }
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
-    public Payment getPayment() { return payment; }
-    public void setPayment(Payment payment) { this.payment = payment; }
-    public SharedPost getSharedPost() { return sharedPost; }
-    public void setSharedPost(SharedPost sharedPost) { this.sharedPost = sharedPost; }
+    public PaymentSummaryDto getPayment() { return payment; }
+    public void setPayment(PaymentSummaryDto payment) { this.payment = payment; }
+    public PostSummaryDto getSharedPost() { return sharedPost; }
+    public void setSharedPost(PostSummaryDto sharedPost) { this.sharedPost = sharedPost; }
     public DeliveryStaus getCurrentStatus() { return currentStatus; }
     public void setCurrentStatus(DeliveryStaus currentStatus) { this.currentStatus = currentStatus; }
     public List<DeliveryStatusHistory> getStatusHistory() { return statusHistory; }
@@ -0,0 +1,24 @@
+package com.economicfoodexchanger.dto;
+
+import java.util.List;
+
+// A page of the post feed; pass nextCursor back as ?cursor= to get the following page
+public class FeedPageDto {
+    private List<PostFeedItemDto> items;
+    private String nextCursor;
+    private boolean hasMore;
+
+    public FeedPageDto(List<PostFeedItemDto> items, String nextCursor, boolean hasMore) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    // Getters and setters
+    public List<PostFeedItemDto> getItems() { return items; }
+    public void setItems(List<PostFeedItemDto> items) { this.items = items; }
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+}
@@ -0,0 +1,21 @@
+package com.economicfoodexchanger.dto;
+
+import java.time.LocalDateTime;
+
+// One GPS fix from a driver's phone; recordedAt null means when it arrived
+public class GpsPingDto {
+    private Double latitude;
+    private Double longitude;
+    private Float accuracy;
+    private LocalDateTime recordedAt;
+
+    // Getters and setters
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+    public Float getAccuracy() { return accuracy; }
+    public void setAccuracy(Float accuracy) { this.accuracy = accuracy; }
+    public LocalDateTime getRecordedAt() { return recordedAt; }
+    public void setRecordedAt(LocalDateTime recordedAt) { this.recordedAt = recordedAt; }
+}
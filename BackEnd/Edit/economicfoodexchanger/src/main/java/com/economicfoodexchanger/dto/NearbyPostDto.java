@@ -0,0 +1,31 @@
+package com.economicfoodexchanger.dto;
+
+// One open post in a nearby search, with its distance from the search point
+public class NearbyPostDto {
+    private Integer id;
+    private String title;
+    private String quantity;
+    private double latitude;
+    private double longitude;
+    private String category;
+    private String ownerName;
+    private double distanceKm;
+
+    // Getters and setters
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+    public String getQuantity() { return quantity; }
+    public void setQuantity(String quantity) { this.quantity = quantity; }
+    public double getLatitude() { return latitude; }
+    public void setLatitude(double latitude) { this.latitude = latitude; }
+    public double getLongitude() { return longitude; }
+    public void setLongitude(double longitude) { this.longitude = longitude; }
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+    public String getOwnerName() { return ownerName; }
+    public void setOwnerName(String ownerName) { this.ownerName = ownerName; }
+    public double getDistanceKm() { return distanceKm; }
+    public void setDistanceKm(double distanceKm) { this.distanceKm = distanceKm; }
+}
@@ -0,0 +1,39 @@
+package com.economicfoodexchanger.dto;
+
+import com.economicfoodexchanger.sharedpost.payment.PaymentType;
+
+import java.math.BigDecimal;
+
+// A payment without its proof file: hasFile and fileSize (bytes) describe it, fileUrl serves it.
+// Compared with the Payment entity it replaces, file and fileHash are gone; the other keys are the same.
+public class PaymentSummaryDto {
+    private Integer id;
+    private BigDecimal amount;
+    private String note;
+    private boolean status;
+    private String filetype;
+    private PaymentType paymentType;
+    private boolean hasFile;
+    private long fileSize;
+    private String fileUrl;
+
+    // Getters and setters
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+    public BigDecimal getAmount() { return amount; }
+    public void setAmount(BigDecimal amount) { this.amount = amount; }
+    public String getNote() { return note; }
+    public void setNote(String note) { this.note = note; }
+    public boolean isStatus() { return status; }
+    public void setStatus(boolean status) { this.status = status; }
+    public String getFiletype() { return filetype; }
+    public void setFiletype(String filetype) { this.filetype = filetype; }
+    public PaymentType getPaymentType() { return paymentType; }
+    public void setPaymentType(PaymentType paymentType) { this.paymentType = paymentType; }
+    public boolean isHasFile() { return hasFile; }
+    public void setHasFile(boolean hasFile) { this.hasFile = hasFile; }
+    public long getFileSize() { return fileSize; }
+    public void setFileSize(long fileSize) { this.fileSize = fileSize; }
+    public String getFileUrl() { return fileUrl; }
+    public void setFileUrl(String fileUrl) { this.fileUrl = fileUrl; }
+}
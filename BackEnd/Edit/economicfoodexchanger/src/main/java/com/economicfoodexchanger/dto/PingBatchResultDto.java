@@ -0,0 +1,26 @@
+package com.economicfoodexchanger.dto;
+
+// Answer to /delivery/{id}/pings: accepted pings moved the position, dropped ones miss the history
+public class PingBatchResultDto {
+    private Integer deliveryId;
+    private int accepted;
+    private int rejected;
+    private int dropped;
+
+    public PingBatchResultDto(Integer deliveryId, int accepted, int rejected, int dropped) {
+        this.deliveryId = deliveryId;
+        this.accepted = accepted;
+        this.rejected = rejected;
+        this.dropped = dropped;
+    }
+
+    // Getters and setters
+    public Integer getDeliveryId() { return deliveryId; }
+    public void setDeliveryId(Integer deliveryId) { this.deliveryId = deliveryId; }
+    public int getAccepted() { return accepted; }
+    public void setAccepted(int accepted) { this.accepted = accepted; }
+    public int getRejected() { return rejected; }
+    public void setRejected(int rejected) { this.rejected = rejected; }
+    public int getDropped() { return dropped; }
+    public void setDropped(int dropped) { this.dropped = dropped; }
+}
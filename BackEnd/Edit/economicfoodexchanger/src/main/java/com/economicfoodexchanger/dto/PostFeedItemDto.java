@@ -0,0 +1,47 @@
+package com.economicfoodexchanger.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// One post in the feed: list fields only, no media bytes and no nested entities
+public class PostFeedItemDto {
+    private Integer id;
+    private String title;
+    private String quantity;
+    private String latitude;
+    private String longitude;
+    private String category;
+    private Integer ownerId;
+    private String ownerName;
+    private LocalDateTime createdAt;
+    private long mediaCount;
+    private long bidCount;
+    private List<String> thumbnailUrls = new ArrayList<>();
+
+    // Getters and setters
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+    public String getQuantity() { return quantity; }
+    public void setQuantity(String quantity) { this.quantity = quantity; }
+    public String getLatitude() { return latitude; }
+    public void setLatitude(String latitude) { this.latitude = latitude; }
+    public String getLongitude() { return longitude; }
+    public void setLongitude(String longitude) { this.longitude = longitude; }
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+    public Integer getOwnerId() { return ownerId; }
+    public void setOwnerId(Integer ownerId) { this.ownerId = ownerId; }
+    public String getOwnerName() { return ownerName; }
+    public void setOwnerName(String ownerName) { this.ownerName = ownerName; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public long getMediaCount() { return mediaCount; }
+    public void setMediaCount(long mediaCount) { this.mediaCount = mediaCount; }
+    public long getBidCount() { return bidCount; }
+    public void setBidCount(long bidCount) { this.bidCount = bidCount; }
+    public List<String> getThumbnailUrls() { return thumbnailUrls; }
+    public void setThumbnailUrls(List<String> thumbnailUrls) { this.thumbnailUrls = thumbnailUrls; }
+}
@@ -0,0 +1,34 @@
+package com.economicfoodexchanger.dto;
+
+// A counterpart post (buying for a selling post and the other way round) with its match scores
+public class PostMatchDto {
+    private Integer id;
+    private String title;
+    private String quantity;
+    private String category;
+    private String ownerName;
+    private Double distanceKm;
+    private double score;
+    private double itemSimilarity;
+    private double quantityFit;
+
+    // Getters and setters
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+    public String getQuantity() { return quantity; }
+    public void setQuantity(String quantity) { this.quantity = quantity; }
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+    public String getOwnerName() { return ownerName; }
+    public void setOwnerName(String ownerName) { this.ownerName = ownerName; }
+    public Double getDistanceKm() { return distanceKm; }
+    public void setDistanceKm(Double distanceKm) { this.distanceKm = distanceKm; }
+    public double getScore() { return score; }
+    public void setScore(double score) { this.score = score; }
+    public double getItemSimilarity() { return itemSimilarity; }
+    public void setItemSimilarity(double itemSimilarity) { this.itemSimilarity = itemSimilarity; }
+    public double getQuantityFit() { return quantityFit; }
+    public void setQuantityFit(double quantityFit) { this.quantityFit = quantityFit; }
+}
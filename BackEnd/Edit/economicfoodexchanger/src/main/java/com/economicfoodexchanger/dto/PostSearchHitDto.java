@@ -0,0 +1,33 @@
+package com.economicfoodexchanger.dto;
+
+import java.time.LocalDateTime;
+
+// One ranked post in a search result
+public class PostSearchHitDto {
+    private Integer id;
+    private String title;
+    private String quantity;
+    private String category;
+    private String ownerName;
+    private LocalDateTime createdAt;
+    private boolean open;
+    private double score;
+
+    // Getters and setters
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+    public String getQuantity() { return quantity; }
+    public void setQuantity(String quantity) { this.quantity = quantity; }
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+    public String getOwnerName() { return ownerName; }
+    public void setOwnerName(String ownerName) { this.ownerName = ownerName; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public boolean isOpen() { return open; }
+    public void setOpen(boolean open) { this.open = open; }
+    public double getScore() { return score; }
+    public void setScore(double score) { this.score = score; }
+}
@@ -0,0 +1,28 @@
+package com.economicfoodexchanger.dto;
+
+import java.util.List;
+
+// A page of search results; total counts all matches
+public class PostSearchResultDto {
+    private List<PostSearchHitDto> items;
+    private int total;
+    private int page;
+    private int size;
+
+    public PostSearchResultDto(List<PostSearchHitDto> items, int total, int page, int size) {
+        this.items = items;
+        this.total = total;
+        this.page = page;
+        this.size = size;
+    }
+
+    // Getters and setters
+    public List<PostSearchHitDto> getItems() { return items; }
+    public void setItems(List<PostSearchHitDto> items) { this.items = items; }
+    public int getTotal() { return total; }
+    public void setTotal(int total) { this.total = total; }
+    public int getPage() { return page; }
+    public void setPage(int page) { this.page = page; }
+    public int getSize() { return size; }
+    public void setSize(int size) { this.size = size; }
+}
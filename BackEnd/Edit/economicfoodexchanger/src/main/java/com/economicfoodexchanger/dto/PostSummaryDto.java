@@ -0,0 +1,77 @@
+package com.economicfoodexchanger.dto;
+
+import com.economicfoodexchanger.sharedpost.CategoreyStatus;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// The post a delivery belongs to, as shown on a tracking card: no media bytes, no bids or reviews.
+// Images are linked through thumbnailUrls and mediaInfoUrl.
+// Keys are those of the SharedPost entity it replaces in delivery responses (quentity,
+// createdateandtime, username {...}, categoreyStatus {...}); username only carries id, name and
+// username. discription, latitude, longitude, image, bitDetails, reviews and the bidding deadline
+// fields are not included.
+public class PostSummaryDto {
+    private Integer id;
+    private String title;
+    @JsonProperty("quentity")
+    private String quantity;
+    @JsonProperty("categoreyStatus")
+    private CategoreyStatus category;
+    @JsonProperty("username")
+    private Owner owner;
+    @JsonProperty("createdateandtime")
+    private LocalDateTime createdAt;
+    private boolean conformed;
+    private boolean complete;
+    private List<String> thumbnailUrls = new ArrayList<>();
+    private String mediaInfoUrl;
+
+    // Getters and setters
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+    public String getQuantity() { return quantity; }
+    public void setQuantity(String quantity) { this.quantity = quantity; }
+    public CategoreyStatus getCategory() { return category; }
+    public void setCategory(CategoreyStatus category) { this.category = category; }
+    public Owner getOwner() { return owner; }
+    public void setOwner(Owner owner) { this.owner = owner; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public boolean isConformed() { return conformed; }
+    public void setConformed(boolean conformed) { this.conformed = conformed; }
+    public boolean isComplete() { return complete; }
+    public void setComplete(boolean complete) { this.complete = complete; }
+    public List<String> getThumbnailUrls() { return thumbnailUrls; }
+    public void setThumbnailUrls(List<String> thumbnailUrls) { this.thumbnailUrls = thumbnailUrls; }
+    public String getMediaInfoUrl() { return mediaInfoUrl; }
+    public void setMediaInfoUrl(String mediaInfoUrl) { this.mediaInfoUrl = mediaInfoUrl; }
+
+    // The post owner without the account fields (nic, mobile number, password, roles) the entity had
+    public static class Owner {
+        private Integer id;
+        private String name;
+        private String username;
+
+        public Owner() {
+        }
+
+        public Owner(Integer id, String name, String username) {
+            this.id = id;
+            this.name = name;
+            this.username = username;
+        }
+
+        // Getters and setters
+        public Integer getId() { return id; }
+        public void setId(Integer id) { this.id = id; }
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public String getUsername() { return username; }
+        public void setUsername(String username) { this.username = username; }
+    }
+}
@@ -0,0 +1,26 @@
+package com.economicfoodexchanger.dto;
+
+// One item of a bulk status update, in request order: error is null when it was stored
+public class StatusUpdateResultDto {
+    private Integer deliveryId;
+    private Integer statusId;
+    private boolean success;
+    private String error;
+
+    public StatusUpdateResultDto(Integer deliveryId, Integer statusId, boolean success, String error) {
+        this.deliveryId = deliveryId;
+        this.statusId = statusId;
+        this.success = success;
+        this.error = error;
+    }
+
+    // Getters and setters
+    public Integer getDeliveryId() { return deliveryId; }
+    public void setDeliveryId(Integer deliveryId) { this.deliveryId = deliveryId; }
+    public Integer getStatusId() { return statusId; }
+    public void setStatusId(Integer statusId) { this.statusId = statusId; }
+    public boolean isSuccess() { return success; }
+    public void setSuccess(boolean success) { this.success = success; }
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -1,8 +1,12 @@
 package com.economicfoodexchanger.dto;
 
+import java.time.LocalDateTime;
+
 public class UpdateStatusRequest {
     private Integer deliveryId;
     private Integer statusId;
+    // When the change happened (bulk updates reported after the fact); null means now
+    private LocalDateTime changedAt;
     
     public UpdateStatusRequest() {}
     
@@ -16,12 +20,15 @@ public class UpdateStatusRequest {
     public void setDeliveryId(Integer deliveryId) { this.deliveryId = deliveryId; }
     public Integer getStatusId() { return statusId; }
     public void setStatusId(Integer statusId) { this.statusId = statusId; }
+    public LocalDateTime getChangedAt() { return changedAt; }
+    public void setChangedAt(LocalDateTime changedAt) { this.changedAt = changedAt; }
     
     @Override
     public String toString() {
         return "UpdateStatusRequest{" +
                 "deliveryId=" + deliveryId +
                 ", statusId=" + statusId +
+                ", changedAt=" + changedAt +
                 '}';
     }
 }
@@ -0,0 +1,49 @@
+package com.economicfoodexchanger.geo;
+
+// Parsing and distance helpers for WGS84 coordinates in decimal degrees
+public final class Coordinates {
+
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+    public static final double KM_PER_DEGREE_LAT = 111.32;
+
+    private Coordinates() {}
+
+    // Latitude from user input; null when missing, not a number or out of range
+    public static Double parseLatitude(String value) {
+        Double degrees = parse(value);
+        return degrees != null && degrees >= -90 && degrees <= 90 ? degrees : null;
+    }
+
+    public static Double parseLongitude(String value) {
+        Double degrees = parse(value);
+        return degrees != null && degrees >= -180 && degrees <= 180 ? degrees : null;
+    }
+
+    private static Double parse(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            double degrees = Double.parseDouble(value.trim());
+            return Double.isFinite(degrees) ? degrees : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Great-circle distance (haversine)
+    public static double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
+                        Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    // Degrees of longitude spanned by radiusKm at the given latitude
+    public static double lngDegrees(double radiusKm, double lat) {
+        double cos = Math.max(0.01, Math.cos(Math.toRadians(lat)));
+        return Math.min(180, radiusKm / (KM_PER_DEGREE_LAT * cos));
+    }
+}
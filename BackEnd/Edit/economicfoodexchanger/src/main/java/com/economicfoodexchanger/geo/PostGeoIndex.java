@@ -0,0 +1,135 @@
+package com.economicfoodexchanger.geo;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory grid of open posts that have coordinates, for nearby searches without a database
+ * round trip. Posts are bucketed in cells of a fixed number of degrees; a search visits the
+ * cells overlapping the search circle's bounding box and filters by exact distance.
+ * Cells are copy-on-write arrays, so searches never lock and never see a half-updated cell.
+ */
+@Component
+public class PostGeoIndex {
+
+    private final double cellDegrees;
+    private final Map<Long, Entry[]> cells = new ConcurrentHashMap<>();
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public PostGeoIndex(@Value("${geo.index.cell-degrees:0.1}") double cellDegrees) {
+        this.cellDegrees = cellDegrees;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Replaces the whole index, e.g. after a full reload from the database
+    public synchronized void replaceAll(Collection<Entry> all) {
+        Map<Long, List<Entry>> grouped = new HashMap<>();
+        for (Entry entry : all) {
+            grouped.computeIfAbsent(cellOf(entry.latitude(), entry.longitude()), key -> new ArrayList<>()).add(entry);
+        }
+
+        cells.keySet().retainAll(grouped.keySet());
+        grouped.forEach((cell, list) -> cells.put(cell, list.toArray(new Entry[0])));
+        entries.clear();
+        for (Entry entry : all) {
+            entries.put(entry.id(), entry);
+        }
+        loaded = true;
+    }
+
+    public synchronized void put(Entry entry) {
+        remove(entry.id());
+        cells.compute(cellOf(entry.latitude(), entry.longitude()), (cell, current) -> {
+            if (current == null) {
+                return new Entry[]{entry};
+            }
+            Entry[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = entry;
+            return updated;
+        });
+        entries.put(entry.id(), entry);
+    }
+
+    public synchronized void remove(Integer postId) {
+        Entry existing = entries.remove(postId);
+        if (existing == null) {
+            return;
+        }
+        cells.computeIfPresent(cellOf(existing.latitude(), existing.longitude()), (cell, current) -> {
+            Entry[] updated = Arrays.stream(current).filter(entry -> !entry.id().equals(postId)).toArray(Entry[]::new);
+            return updated.length == 0 ? null : updated;
+        });
+    }
+
+    /**
+     * Posts within radiusKm of the point, nearest first, optionally only of one category
+     * (case-insensitive). At most limit results.
+     */
+    public List<Hit> search(double lat, double lng, double radiusKm, String category, int limit) {
+        double latSpan = radiusKm / Coordinates.KM_PER_DEGREE_LAT;
+        double lngSpan = Coordinates.lngDegrees(radiusKm, lat);
+
+        long minLatCell = cellIndex(Math.max(-90, lat - latSpan));
+        long maxLatCell = cellIndex(Math.min(90, lat + latSpan));
+        long minLngCell = cellIndex(Math.max(-180, lng - lngSpan));
+        long maxLngCell = cellIndex(Math.min(180, lng + lngSpan));
+
+        List<Hit> hits = new ArrayList<>();
+        for (long latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+            for (long lngCell = minLngCell; lngCell <= maxLngCell; lngCell++) {
+                Entry[] cell = cells.get(key(latCell, lngCell));
+                if (cell == null) {
+                    continue;
+                }
+                for (Entry entry : cell) {
+                    if (category != null && !category.equalsIgnoreCase(entry.category())) {
+                        continue;
+                    }
+                    double distance = Coordinates.distanceKm(lat, lng, entry.latitude(), entry.longitude());
+                    if (distance <= radiusKm) {
+                        hits.add(new Hit(entry, distance));
+                    }
+                }
+            }
+        }
+
+        hits.sort(Comparator.comparingDouble(Hit::distanceKm));
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+
+    private long cellOf(double lat, double lng) {
+        return key(cellIndex(lat), cellIndex(lng));
+    }
+
+    private long cellIndex(double degrees) {
+        return (long) Math.floor(degrees / cellDegrees);
+    }
+
+    private static long key(long latCell, long lngCell) {
+        return (latCell << 32) | (lngCell & 0xFFFFFFFFL);
+    }
+
+    public record Entry(Integer id, double latitude, double longitude, String title, String quantity,
+                        String category, String ownerName) {
+    }
+
+    public record Hit(Entry entry, double distanceKm) {
+    }
+}
@@ -0,0 +1,137 @@
+package com.economicfoodexchanger.imaging;
+
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+// EXIF orientation (tag 0x0112) of JPEG photos. Phones store pictures sideways and only set the
+// tag, so it has to be applied before the metadata is dropped on re-encoding.
+final class ExifOrientation {
+
+    static final int NORMAL = 1;
+
+    private static final int SOI = 0xFFD8;
+    private static final int SOS = 0xFFDA;
+    private static final int EOI = 0xFFD9;
+    private static final int APP1 = 0xFFE1;
+    private static final byte[] EXIF_HEADER = "Exif\0\0".getBytes(StandardCharsets.ISO_8859_1);
+    private static final int ORIENTATION_TAG = 0x0112;
+
+    private ExifOrientation() {}
+
+    /**
+     * Orientation from the APP1 segment of a JPEG stream, NORMAL when absent or not a JPEG.
+     * Walks the marker segments up to the image data and leaves the stream where it was.
+     */
+    static int read(ImageInputStream stream) {
+        try {
+            stream.mark();
+            try {
+                if (stream.readUnsignedShort() != SOI) {
+                    return NORMAL;
+                }
+                while (true) {
+                    int marker = stream.readUnsignedShort();
+                    if ((marker & 0xFF00) != 0xFF00 || marker == SOS || marker == EOI) {
+                        return NORMAL;
+                    }
+                    int length = stream.readUnsignedShort() - 2;
+                    if (length < 0) {
+                        return NORMAL;
+                    }
+                    if (marker == APP1) {
+                        byte[] segment = new byte[length];
+                        stream.readFully(segment);
+                        int orientation = fromApp1(segment);
+                        if (orientation != 0) {
+                            return orientation;
+                        }
+                    } else {
+                        stream.skipBytes(length);
+                    }
+                }
+            } finally {
+                stream.reset();
+            }
+        } catch (IOException e) {
+            return NORMAL;
+        }
+    }
+
+    // Parses the orientation out of an APP1 segment; 0 when it is not EXIF or has no orientation
+    static int fromApp1(byte[] app1) {
+        if (app1.length < EXIF_HEADER.length + 8) {
+            return 0;
+        }
+        for (int i = 0; i < EXIF_HEADER.length; i++) {
+            if (app1[i] != EXIF_HEADER[i]) {
+                return 0;
+            }
+        }
+
+        try {
+            // TIFF structure; all offsets are relative to its start
+            ByteBuffer tiff = ByteBuffer.wrap(app1, EXIF_HEADER.length, app1.length - EXIF_HEADER.length).slice();
+            if (tiff.get(0) == 'I' && tiff.get(1) == 'I') {
+                tiff.order(ByteOrder.LITTLE_ENDIAN);
+            } else if (tiff.get(0) != 'M' || tiff.get(1) != 'M') {
+                return 0;
+            }
+            if (tiff.getShort(2) != 42) {
+                return 0;
+            }
+
+            int ifd = tiff.getInt(4);
+            int entries = tiff.getShort(ifd) & 0xFFFF;
+            for (int i = 0; i < entries; i++) {
+                int entry = ifd + 2 + i * 12;
+                if ((tiff.getShort(entry) & 0xFFFF) == ORIENTATION_TAG) {
+                    int orientation = tiff.getShort(entry + 8) & 0xFFFF;
+                    return orientation >= 1 && orientation <= 8 ? orientation : 0;
+                }
+            }
+        } catch (IndexOutOfBoundsException | BufferUnderflowException e) {
+            // Truncated or corrupt EXIF block
+        }
+        return 0;
+    }
+
+    // Orientations 5-8 are quarter turns: the stored width is the displayed height
+    static boolean swapsAxes(int orientation) {
+        return orientation >= 5 && orientation <= 8;
+    }
+
+    // Returns the image turned upright
+    static BufferedImage apply(BufferedImage image, int orientation) {
+        if (orientation <= NORMAL || orientation > 8) {
+            return image;
+        }
+
+        int w = image.getWidth();
+        int h = image.getHeight();
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, w, 0);   // mirror horizontal
+            case 3 -> new AffineTransform(-1, 0, 0, -1, w, h);  // rotate 180
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, h);   // mirror vertical
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);    // transpose
+            case 6 -> new AffineTransform(0, 1, -1, 0, h, 0);   // rotate 90 clockwise
+            case 7 -> new AffineTransform(0, -1, -1, 0, h, w);  // transverse
+            default -> new AffineTransform(0, -1, 1, 0, 0, w);  // 8: rotate 90 counter-clockwise
+        };
+
+        int type = image.getType() != BufferedImage.TYPE_CUSTOM ? image.getType() : BufferedImage.TYPE_INT_RGB;
+        BufferedImage upright = swapsAxes(orientation)
+                ? new BufferedImage(h, w, type)
+                : new BufferedImage(w, h, type);
+        Graphics2D g2d = upright.createGraphics();
+        g2d.drawImage(image, transform, null);
+        g2d.dispose();
+        return upright;
+    }
+}
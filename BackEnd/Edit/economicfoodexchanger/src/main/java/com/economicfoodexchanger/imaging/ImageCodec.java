@@ -0,0 +1,158 @@
+package com.economicfoodexchanger.imaging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Decoding, scaling and JPEG encoding of uploaded images, shared by posts and stories.
+ * <ul>
+ *   <li>Decoding asks the reader for a subsampled raster close to the target size, so a
+ *       48 MP photo never exists on the heap at full resolution.</li>
+ *   <li>EXIF orientation is applied on decode; encoding writes no metadata at all
+ *       (no EXIF, no GPS position of the farm).</li>
+ *   <li>JPEG quality and progressive mode are configurable; writers are pooled.</li>
+ * </ul>
+ */
+@Component
+public class ImageCodec {
+
+    private final float jpegQuality;
+    private final boolean progressive;
+    private final int writerPoolSize = Runtime.getRuntime().availableProcessors();
+    private final Queue<ImageWriter> writers = new ConcurrentLinkedQueue<>();
+
+    public ImageCodec(@Value("${media.image.jpeg-quality:0.82}") float jpegQuality,
+                      @Value("${media.image.progressive-jpeg:true}") boolean progressive) {
+        this.jpegQuality = jpegQuality;
+        this.progressive = progressive;
+    }
+
+    /**
+     * Decodes an image roughly scaled to fit within maxWidth x maxHeight (at most twice that,
+     * so the final resize still has pixels to average) and turned upright.
+     * Returns null when the content is not a readable image.
+     */
+    public BufferedImage decode(InputStream input, int maxWidth, int maxHeight) throws IOException {
+        try (ImageInputStream stream = new MemoryCacheImageInputStream(input)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            int orientation = ExifOrientation.read(stream);
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+
+                // maxWidth/maxHeight apply to the upright image
+                boolean swapsAxes = ExifOrientation.swapsAxes(orientation);
+                int boxWidth = swapsAxes ? maxHeight : maxWidth;
+                int boxHeight = swapsAxes ? maxWidth : maxHeight;
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = subsamplingFor(reader.getWidth(0), reader.getHeight(0), boxWidth, boxHeight);
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                return ExifOrientation.apply(reader.read(0, param), orientation);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Largest step that keeps the decoded image at least twice the size it will be scaled to
+    static int subsamplingFor(int width, int height, int maxWidth, int maxHeight) {
+        double ratio = Math.min((double) maxWidth / width, (double) maxHeight / height);
+        if (ratio >= 0.5) {
+            return 1;
+        }
+        return Math.max(1, (int) Math.floor(1 / (ratio * 2)));
+    }
+
+    /**
+     * Scales down to fit within maxWidth x maxHeight, keeping the aspect ratio; never scales up.
+     * Large reductions are done in halving steps, which looks much better than a single bilinear
+     * pass. The result is always TYPE_INT_RGB, ready for the JPEG writer.
+     */
+    public BufferedImage resize(BufferedImage image, int maxWidth, int maxHeight) {
+        int originalWidth = image.getWidth();
+        int originalHeight = image.getHeight();
+
+        int targetWidth = originalWidth;
+        int targetHeight = originalHeight;
+        if (originalWidth > maxWidth || originalHeight > maxHeight) {
+            double ratio = Math.min((double) maxWidth / originalWidth, (double) maxHeight / originalHeight);
+            targetWidth = Math.max(1, (int) (originalWidth * ratio));
+            targetHeight = Math.max(1, (int) (originalHeight * ratio));
+        }
+
+        BufferedImage current = image;
+        int width = originalWidth;
+        int height = originalHeight;
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            current = scale(current, width, height);
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private static BufferedImage scale(BufferedImage image, int width, int height) {
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = scaled.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2d.drawImage(image, 0, 0, width, height, null);
+        g2d.dispose();
+        return scaled;
+    }
+
+    // Encodes without any metadata, using the configured quality and progressive mode
+    public byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = writers.poll();
+        if (writer == null) {
+            writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        }
+
+        try {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            try (MemoryCacheImageOutputStream output = new MemoryCacheImageOutputStream(baos)) {
+                writer.setOutput(output);
+
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(jpegQuality);
+                if (progressive) {
+                    param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+                }
+                writer.write(null, new IIOImage(image, null, null), param);
+            }
+            return baos.toByteArray();
+        } finally {
+            writer.reset();
+            if (writers.size() < writerPoolSize) {
+                writers.offer(writer);
+            } else {
+                writer.dispose();
+            }
+        }
+    }
+}
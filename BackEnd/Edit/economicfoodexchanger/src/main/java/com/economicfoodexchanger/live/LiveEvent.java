@@ -0,0 +1,21 @@
+package com.economicfoodexchanger.live;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// One pushed change. The SSE data is a small JSON object: the ids it concerns plus a few fields,
+// enough for a client to update its view or decide which resource to reload.
+record LiveEvent(long id, String type, Integer postId, Integer deliveryId, Map<String, Object> data) {
+
+    Map<String, Object> payload() {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        if (postId != null) {
+            payload.put("postId", postId);
+        }
+        if (deliveryId != null) {
+            payload.put("deliveryId", deliveryId);
+        }
+        payload.putAll(data);
+        return payload;
+    }
+}
@@ -0,0 +1,39 @@
+package com.economicfoodexchanger.live;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+// Server-sent events instead of polling /sharedpost/all, /bitdetails/getbypostid and
+// /delivery/current-status. Event names: post.created, post.updated, post.confirmed, post.closed, bid.added,
+// bid.confirmed, delivery.status, and resync (reload, events were missed).
+//http://localhost:8080/live/events                 everything
+//http://localhost:8080/live/events?postId=1        one post, its bids and its delivery
+//http://localhost:8080/live/events?deliveryId=1    status changes of one delivery
+@RestController
+@RequestMapping("/live")
+public class LiveEventController {
+
+    @Autowired
+    LiveEventHub liveEventHub;
+
+    // EventSource sends Last-Event-ID itself when it reconnects; lastEventId is for the first connect
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@RequestParam(required = false) Integer postId,
+                             @RequestParam(required = false) Integer deliveryId,
+                             @RequestParam(required = false) Long lastEventId,
+                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader) {
+        Long resumeFrom = lastEventId;
+        if (lastEventIdHeader != null && !lastEventIdHeader.isBlank()) {
+            try {
+                resumeFrom = Long.valueOf(lastEventIdHeader.trim());
+            } catch (NumberFormatException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid Last-Event-ID: " + lastEventIdHeader);
+            }
+        }
+        return liveEventHub.subscribe(postId, deliveryId, resumeFrom);
+    }
+}
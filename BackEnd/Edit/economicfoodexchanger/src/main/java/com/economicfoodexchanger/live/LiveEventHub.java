@@ -0,0 +1,381 @@
+package com.economicfoodexchanger.live;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fan-out of live events to SSE subscribers. Connections are async servlet requests, so an idle
+ * subscriber costs a socket and an SseEmitter, no thread. Numbering, buffering and routing happen
+ * on one dispatcher thread, which keeps every subscriber's stream in id order and makes a
+ * Last-Event-ID replay line up exactly with the live events that follow it.
+ * <p>
+ * The dispatcher never writes to a socket. It puts events on each subscriber's own queue (at most
+ * live.subscriber-queue-capacity events), and a pool of live.sender-threads drains the queues,
+ * one task per subscriber at a time. A client that stops reading therefore holds up only its own
+ * stream; once its queue is full it is dropped (live.subscribers.evicted) and reconnects with
+ * Last-Event-ID like after any other disconnect.
+ * <p>
+ * A write to a client that stopped reading blocks its sender thread until the container's write
+ * timeout. A watchdog drops a subscriber whose send has taken longer than live.send-timeout-ms
+ * and adds a sender thread for as long as that send stays blocked (up to live.sender-threads-max),
+ * so stalled clients never take the threads the other streams need.
+ * <p>
+ * Ids start at the server's start time in microseconds, so they keep increasing across restarts.
+ * A client whose Last-Event-ID is older than the replay buffer gets a "resync" event and should
+ * reload its data.
+ */
+@Component
+public class LiveEventHub {
+
+    private static final String GLOBAL = "*";
+
+    private final ThreadPoolExecutor dispatcher;
+    private final ThreadPoolExecutor senders;
+    private final int subscriberQueueCapacity;
+    private final LiveEvent[] buffer;
+    private int bufferStart;     // index of the oldest buffered event
+    private int bufferSize;
+    private long nextId = System.currentTimeMillis() * 1000;
+    private final long firstId = nextId;
+
+    // topic -> subscribers; topics are "*", "post:<id>" and "delivery:<id>"
+    private final Map<String, Set<Subscriber>> topics = new ConcurrentHashMap<>();
+    private final long timeoutMs;
+    private final AtomicLong evicted = new AtomicLong();
+
+    // Subscribers with a send in progress, for the watchdog
+    private final Set<Subscriber> sending = ConcurrentHashMap.newKeySet();
+    private final int senderThreads;
+    private final int maxSenderThreads;
+    private final long sendTimeoutNanos;
+    private int stalledSends;   // guarded by senders
+
+    public LiveEventHub(@Value("${live.replay-buffer-size:2048}") int replayBufferSize,
+                        @Value("${live.dispatch-queue-capacity:10000}") int queueCapacity,
+                        @Value("${live.subscriber-queue-capacity:256}") int subscriberQueueCapacity,
+                        @Value("${live.sender-threads:4}") int senderThreads,
+                        @Value("${live.sender-threads-max:64}") int maxSenderThreads,
+                        @Value("${live.send-timeout-ms:5000}") long sendTimeoutMs,
+                        @Value("${live.sse.timeout-ms:1800000}") long timeoutMs,
+                        MeterRegistry meterRegistry) {
+        this.buffer = new LiveEvent[replayBufferSize];
+        this.subscriberQueueCapacity = subscriberQueueCapacity;
+        this.senderThreads = senderThreads;
+        this.maxSenderThreads = Math.max(senderThreads, maxSenderThreads);
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        this.timeoutMs = timeoutMs;
+        this.dispatcher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "live-events");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        // Unbounded, but it never holds more than one drain task per subscriber
+        this.senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "live-sender");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        Gauge.builder("live.subscribers", this, LiveEventHub::subscriberCount).register(meterRegistry);
+        FunctionCounter.builder("live.subscribers.evicted", evicted, AtomicLong::get).register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream of events for one post, one delivery, or everything (both null).
+     * Events after lastEventId are replayed first when still buffered.
+     */
+    public SseEmitter subscribe(Integer postId, Integer deliveryId, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, topicOf(postId, deliveryId), subscriberQueueCapacity);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(error -> unsubscribe(subscriber));
+
+        dispatch(() -> {
+            if (lastEventId != null) {
+                List<LiveEvent> missed = eventsAfter(lastEventId);
+                if (missed != null) {
+                    missed.removeIf(event -> !subscriber.accepts(event));
+                }
+                if (missed == null || missed.size() > subscriberQueueCapacity) {
+                    // A replay that does not fit the queue would only get the subscriber dropped
+                    send(subscriber, SseEmitter.event().name("resync").data("{}", MediaType.APPLICATION_JSON));
+                } else {
+                    for (LiveEvent event : missed) {
+                        send(subscriber, toSse(event));
+                    }
+                }
+            }
+            topics.computeIfAbsent(subscriber.topic, topic -> ConcurrentHashMap.newKeySet()).add(subscriber);
+            // Closed before or while it was added: unsubscribe may have looked before the add
+            if (subscriber.closed.get()) {
+                unsubscribe(subscriber);
+            }
+        }, () -> emitter.completeWithError(new IllegalStateException("Live event queue is full")));
+        return emitter;
+    }
+
+    // Numbers, buffers and sends the event to matching subscribers; returns immediately
+    public void publish(String type, Integer postId, Integer deliveryId, Map<String, Object> data) {
+        dispatch(() -> {
+            LiveEvent event = new LiveEvent(nextId++, type, postId, deliveryId, data);
+            append(event);
+            deliver(event, topics.get(GLOBAL));
+            if (postId != null) {
+                deliver(event, topics.get("post:" + postId));
+            }
+            if (deliveryId != null) {
+                deliver(event, topics.get("delivery:" + deliveryId));
+            }
+        }, () -> System.err.println("Live event queue is full, dropped " + type + " event"));
+    }
+
+    // Keeps proxies and load balancers from closing idle streams, and finds dead and stalled connections
+    @Scheduled(fixedDelayString = "${live.heartbeat-ms:20000}")
+    public void heartbeat() {
+        dispatch(() -> {
+            for (Set<Subscriber> subscribers : topics.values()) {
+                for (Subscriber subscriber : subscribers) {
+                    send(subscriber, SseEmitter.event().comment("ping"));
+                }
+            }
+        }, () -> { });
+    }
+
+    // Drops subscribers whose send is blocked past live.send-timeout-ms and replaces their threads
+    @Scheduled(fixedDelayString = "${live.send-check-ms:1000}")
+    public void checkStalledSends() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : sending) {
+            long started = subscriber.sendStartedNanos;
+            if (started == 0 || now - started <= sendTimeoutNanos || !subscriber.stalled.compareAndSet(false, true)) {
+                continue;
+            }
+            adjustSenderThreads(1);
+            if (subscriber.sendStartedNanos != started && subscriber.stalled.compareAndSet(true, false)) {
+                // The send finished meanwhile and did not see the flag
+                adjustSenderThreads(-1);
+                continue;
+            }
+            evicted.incrementAndGet();
+            // Completing the request lets the container close the connection, failing the write
+            close(subscriber, new IllegalStateException("Live event send timed out"));
+        }
+    }
+
+    public int subscriberCount() {
+        int count = 0;
+        for (Set<Subscriber> subscribers : topics.values()) {
+            count += subscribers.size();
+        }
+        return count;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        senders.shutdownNow();
+        for (Set<Subscriber> subscribers : topics.values()) {
+            for (Subscriber subscriber : subscribers) {
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    private void dispatch(Runnable task, Runnable onRejected) {
+        try {
+            dispatcher.execute(task);
+        } catch (RejectedExecutionException e) {
+            onRejected.run();
+        }
+    }
+
+    private void deliver(LiveEvent event, Set<Subscriber> subscribers) {
+        if (subscribers == null || subscribers.isEmpty()) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers) {
+            // A builder is consumed by send, so each subscriber gets its own
+            send(subscriber, toSse(event));
+        }
+    }
+
+    // Dispatcher thread only: queues the event and makes sure a sender drains the queue
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (subscriber.closed.get()) {
+            return;
+        }
+        if (!subscriber.queue.offer(event)) {
+            // Not reading: dropping it keeps it from holding events (and memory) for everyone
+            evicted.incrementAndGet();
+            close(subscriber, new IllegalStateException("Live event subscriber is too slow"));
+            return;
+        }
+        scheduleDrain(subscriber);
+    }
+
+    private void scheduleDrain(Subscriber subscriber) {
+        if (!subscriber.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            senders.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            subscriber.draining.set(false);
+        }
+    }
+
+    // Sender thread; a subscriber is drained by one task at a time, so its events stay in order
+    private void drain(Subscriber subscriber) {
+        SseEmitter.SseEventBuilder event;
+        while (!subscriber.closed.get() && (event = subscriber.queue.poll()) != null) {
+            subscriber.sendStartedNanos = System.nanoTime();
+            sending.add(subscriber);
+            try {
+                subscriber.emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                // Client went away; the container reports it through onError/onCompletion as well
+                unsubscribe(subscriber);
+                return;
+            } finally {
+                sending.remove(subscriber);
+                subscriber.sendStartedNanos = 0;
+                if (subscriber.stalled.getAndSet(false)) {
+                    // The watchdog added a thread for this one; the send is over either way
+                    adjustSenderThreads(-1);
+                }
+            }
+        }
+        subscriber.draining.set(false);
+        // An event queued after the last poll but before the flag was cleared found it still set
+        if (!subscriber.closed.get() && !subscriber.queue.isEmpty()) {
+            scheduleDrain(subscriber);
+        }
+    }
+
+    // A blocked send holds its thread, so the pool grows by one per blocked send
+    private void adjustSenderThreads(int delta) {
+        synchronized (senders) {
+            stalledSends += delta;
+            int size = Math.min(maxSenderThreads, senderThreads + stalledSends);
+            if (size > senders.getMaximumPoolSize()) {
+                senders.setMaximumPoolSize(size);
+                senders.setCorePoolSize(size);
+            } else {
+                senders.setCorePoolSize(size);
+                senders.setMaximumPoolSize(size);
+            }
+        }
+    }
+
+    private void close(Subscriber subscriber, Throwable reason) {
+        unsubscribe(subscriber);
+        try {
+            subscriber.emitter.completeWithError(reason);
+        } catch (IllegalStateException e) {
+            // Already completed
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscriber.closed.set(true);
+        subscriber.queue.clear();
+        Set<Subscriber> subscribers = topics.get(subscriber.topic);
+        if (subscribers != null) {
+            subscribers.remove(subscriber);
+        }
+    }
+
+    // Dispatcher thread only
+    private void append(LiveEvent event) {
+        int index = (bufferStart + bufferSize) % buffer.length;
+        buffer[index] = event;
+        if (bufferSize < buffer.length) {
+            bufferSize++;
+        } else {
+            bufferStart = (bufferStart + 1) % buffer.length;
+        }
+    }
+
+    // Dispatcher thread only; null when the events after lastEventId are no longer all buffered
+    private List<LiveEvent> eventsAfter(long lastEventId) {
+        long oldest = bufferSize == 0 ? nextId : buffer[bufferStart].id();
+        if (lastEventId >= nextId || lastEventId < firstId - 1 || lastEventId < oldest - 1) {
+            // Not issued by this server run, or already dropped from the buffer
+            return null;
+        }
+        List<LiveEvent> missed = new ArrayList<>();
+        for (int i = 0; i < bufferSize; i++) {
+            LiveEvent event = buffer[(bufferStart + i) % buffer.length];
+            if (event.id() > lastEventId) {
+                missed.add(event);
+            }
+        }
+        return missed;
+    }
+
+    private static SseEmitter.SseEventBuilder toSse(LiveEvent event) {
+        return SseEmitter.event()
+                .id(String.valueOf(event.id()))
+                .name(event.type())
+                .data(event.payload(), MediaType.APPLICATION_JSON);
+    }
+
+    private static String topicOf(Integer postId, Integer deliveryId) {
+        if (deliveryId != null) {
+            return "delivery:" + deliveryId;
+        }
+        if (postId != null) {
+            return "post:" + postId;
+        }
+        return GLOBAL;
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final String topic;
+        // Filled by the dispatcher, drained by a sender
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        // Set by the sender thread around a send; stalled once the watchdog has replaced its thread
+        private volatile long sendStartedNanos;
+        private final AtomicBoolean stalled = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter, String topic, int queueCapacity) {
+            this.emitter = emitter;
+            this.topic = topic;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        private boolean accepts(LiveEvent event) {
+            return topic.equals(GLOBAL) ||
+                    topic.equals("post:" + event.postId()) ||
+                    topic.equals("delivery:" + event.deliveryId());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.economicfoodexchanger.live;
+
+import com.economicfoodexchanger.sharedpost.BidChangedEvent;
+import com.economicfoodexchanger.sharedpost.SharedPostChangedEvent;
+import com.economicfoodexchanger.sharedpost.delivery.DeliveryStatusChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Turns domain events into live events, once their transaction has committed
+@Component
+public class LiveEventListener {
+
+    @Autowired
+    LiveEventHub liveEventHub;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostChanged(SharedPostChangedEvent event) {
+        String type = switch (event.change()) {
+            case CREATED -> "post.created";
+            case UPDATED -> "post.updated";
+            case CONFIRMED -> "post.confirmed";
+            case CLOSED -> "post.closed";
+        };
+        liveEventHub.publish(type, event.postId(), null, Map.of());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBidChanged(BidChangedEvent event) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("bidId", event.bidId());
+        if (event.bitrate() != null) {
+            data.put("bitrate", event.bitrate());
+        }
+        if (event.needamount() != null) {
+            data.put("needamount", event.needamount());
+        }
+        String type = event.change() == BidChangedEvent.Change.ADDED ? "bid.added" : "bid.confirmed";
+        liveEventHub.publish(type, event.postId(), null, data);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeliveryStatusChanged(DeliveryStatusChangedEvent event) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("statusId", event.statusId());
+        data.put("status", event.status());
+        data.put("changedAt", event.changedAt());
+        liveEventHub.publish("delivery.status", event.postId(), event.deliveryId(), data);
+    }
+}
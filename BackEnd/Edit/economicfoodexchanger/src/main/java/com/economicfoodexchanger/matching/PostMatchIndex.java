@@ -0,0 +1,370 @@
+package com.economicfoodexchanger.matching;
+
+import com.economicfoodexchanger.geo.Coordinates;
+import com.economicfoodexchanger.search.SearchTokenizer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Open buying and selling posts, indexed so each side can be matched against the other. A post
+ * is reduced to the terms of its item name (the title, through the search tokenizer), a parsed
+ * quantity and its coordinates. Candidates for a post are the other side's posts sharing at least
+ * one item term, from another owner and within matching.max-distance-km, ranked by
+ * <pre>
+ *   0.6 * item similarity   IDF-weighted cosine of the two term sets
+ * + 0.2 * quantity fit      smaller amount over larger, see Quantity
+ * + 0.2 * proximity         1 / (1 + km / 10), 0.25 when either post has no coordinates
+ * </pre>
+ * Ranked lists are kept per post once computed (when the post is added, or on its first lookup)
+ * and maintained incrementally: a new post is inserted into the lists of every post it is a
+ * candidate for, and a list that still refers to a post that has since changed or closed is
+ * recomputed on its next read.
+ */
+@Component
+public class PostMatchIndex {
+
+    public enum Side {
+        BUYING, SELLING;
+
+        Side opposite() {
+            return this == BUYING ? SELLING : BUYING;
+        }
+    }
+
+    private static final double ITEM_WEIGHT = 0.6;
+    private static final double QUANTITY_WEIGHT = 0.2;
+    private static final double PROXIMITY_WEIGHT = 0.2;
+    private static final double PROXIMITY_SCALE_KM = 10;
+    private static final double UNKNOWN_PROXIMITY = 0.25;
+    private static final int MAX_MATCHES = 50;
+    private static final int MIN_COMMON_FREQUENCY = 200;
+    private static final double COMMON_TERM_SHARE = 0.02;
+
+    private static final Comparator<Match> RANKING = Comparator.comparingDouble(Match::score).reversed()
+            .thenComparing(match -> match.post().id(), Comparator.reverseOrder());
+
+    private final double maxDistanceKm;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, IndexedPost> posts = new HashMap<>();
+    // side -> item term -> ids of that side's posts
+    private final Map<Side, Map<String, Set<Integer>>> postings = new EnumMap<>(Side.class);
+    // post id -> ranked counterparts, immutable lists replaced as a whole
+    private final Map<Integer, List<Match>> rankedLists = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public PostMatchIndex(@Value("${matching.max-distance-km:100}") double maxDistanceKm) {
+        this.maxDistanceKm = maxDistanceKm;
+        for (Side side : Side.values()) {
+            postings.put(side, new HashMap<>());
+        }
+    }
+
+    // "Selling post" / "buying post"; null for anything else, which is never matched
+    public static Side sideOf(String category) {
+        if (category == null) {
+            return null;
+        }
+        String name = category.toLowerCase(Locale.ROOT);
+        if (name.contains("sell")) {
+            return Side.SELLING;
+        }
+        if (name.contains("buy")) {
+            return Side.BUYING;
+        }
+        return null;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return posts.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void replaceAll(Collection<Post> newPosts) {
+        lock.writeLock().lock();
+        try {
+            posts.clear();
+            postings.values().forEach(Map::clear);
+            rankedLists.clear();
+            for (Post post : newPosts) {
+                add(post);
+            }
+            // Term weights are only known once every post is in
+            for (IndexedPost indexed : posts.values()) {
+                indexed.norm = norm(indexed.terms);
+            }
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or replaces a post and ranks its counterparts right away. Posts on no side, or whose
+     * title has no item terms, are only removed.
+     */
+    public void put(Post post) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(post.id());
+            IndexedPost added = add(post);
+            if (added == null) {
+                return;
+            }
+            added.norm = norm(added.terms);
+            List<Match> candidates = candidatesLocked(added);
+            for (Match candidate : candidates) {
+                // Scores are symmetric, so the candidate's view of this post is the same match
+                List<Match> theirs = rankedLists.get(candidate.post().id());
+                if (theirs != null) {
+                    rankedLists.put(candidate.post().id(), insert(theirs,
+                            new Match(post, candidate.score(), candidate.itemSimilarity(),
+                                    candidate.quantityFit(), candidate.distanceKm())));
+                }
+            }
+            rankedLists.put(post.id(), top(candidates));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Integer postId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(postId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Best counterparts first, at most limit of them; null when the post is not in the index
+    public List<Match> matches(Integer postId, int limit) {
+        lock.readLock().lock();
+        try {
+            IndexedPost indexed = posts.get(postId);
+            if (indexed == null) {
+                return null;
+            }
+            List<Match> ranked = rankedLists.get(postId);
+            if (ranked == null || !isCurrent(ranked)) {
+                // Only this post's own list is written, and writers are excluded by the read lock
+                ranked = top(candidatesLocked(indexed));
+                rankedLists.put(postId, ranked);
+            }
+            return ranked.size() <= limit ? ranked : ranked.subList(0, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Every candidate of the other side, scored but not sorted
+    private List<Match> candidatesLocked(IndexedPost source) {
+        Map<String, Set<Integer>> otherSide = postings.get(source.side.opposite());
+
+        // Terms on a large share of posts ("fresh", "organic") say little about the item: they add
+        // to the similarity of candidates found through rarer terms but bring in none of their own,
+        // unless the title has nothing rarer. This keeps a lookup to a few thousand candidates.
+        double commonLimit = Math.max(MIN_COMMON_FREQUENCY, posts.size() * COMMON_TERM_SHARE);
+        List<String> generating = new ArrayList<>();
+        List<String> common = new ArrayList<>();
+        String rarest = null;
+        for (String term : source.terms) {
+            Set<Integer> ids = otherSide.get(term);
+            if (ids == null) {
+                continue;
+            }
+            if (ids.size() <= commonLimit) {
+                generating.add(term);
+            } else {
+                common.add(term);
+            }
+            if (rarest == null || ids.size() < otherSide.get(rarest).size()) {
+                rarest = term;
+            }
+        }
+        if (generating.isEmpty() && rarest != null) {
+            generating.add(rarest);
+            common.remove(rarest);
+        }
+
+        Map<Integer, Double> dotProducts = new HashMap<>();
+        for (String term : generating) {
+            double idf = idf(term);
+            for (Integer id : otherSide.get(term)) {
+                dotProducts.merge(id, idf * idf, Double::sum);
+            }
+        }
+        for (String term : common) {
+            double idf = idf(term);
+            Set<Integer> ids = otherSide.get(term);
+            for (Map.Entry<Integer, Double> entry : dotProducts.entrySet()) {
+                if (ids.contains(entry.getKey())) {
+                    entry.setValue(entry.getValue() + idf * idf);
+                }
+            }
+        }
+
+        List<Match> candidates = new ArrayList<>(dotProducts.size());
+        double sourceNorm = source.norm;
+        for (Map.Entry<Integer, Double> entry : dotProducts.entrySet()) {
+            IndexedPost candidate = posts.get(entry.getKey());
+            Post post = candidate.post;
+            if (source.post.ownerId() != null && source.post.ownerId().equals(post.ownerId())) {
+                continue;
+            }
+
+            Double distanceKm = null;
+            double proximity = UNKNOWN_PROXIMITY;
+            if (source.hasLocation() && candidate.hasLocation()) {
+                distanceKm = Coordinates.distanceKm(source.post.latitude(), source.post.longitude(),
+                        post.latitude(), post.longitude());
+                if (distanceKm > maxDistanceKm) {
+                    continue;
+                }
+                proximity = 1 / (1 + distanceKm / PROXIMITY_SCALE_KM);
+            }
+            double itemSimilarity = Math.min(1, entry.getValue() / (sourceNorm * candidate.norm));
+            double quantityFit = Quantity.fit(source.quantity, candidate.quantity);
+            double score = ITEM_WEIGHT * itemSimilarity + QUANTITY_WEIGHT * quantityFit + PROXIMITY_WEIGHT * proximity;
+            candidates.add(new Match(post, score, itemSimilarity, quantityFit, distanceKm));
+        }
+        return candidates;
+    }
+
+    // A list is current while every post in it is still indexed as the same version
+    private boolean isCurrent(List<Match> ranked) {
+        for (Match match : ranked) {
+            IndexedPost indexed = posts.get(match.post().id());
+            if (indexed == null || indexed.post != match.post()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<Match> top(List<Match> candidates) {
+        candidates.sort(RANKING);
+        return List.copyOf(candidates.size() <= MAX_MATCHES ? candidates : candidates.subList(0, MAX_MATCHES));
+    }
+
+    private static List<Match> insert(List<Match> ranked, Match match) {
+        if (ranked.size() >= MAX_MATCHES && RANKING.compare(match, ranked.get(ranked.size() - 1)) >= 0) {
+            return ranked;
+        }
+        List<Match> updated = new ArrayList<>(ranked.size() + 1);
+        updated.addAll(ranked);
+        int index = 0;
+        while (index < updated.size() && RANKING.compare(updated.get(index), match) < 0) {
+            index++;
+        }
+        updated.add(index, match);
+        return List.copyOf(updated.size() <= MAX_MATCHES ? updated : updated.subList(0, MAX_MATCHES));
+    }
+
+    private double idf(String term) {
+        int documentFrequency = 0;
+        for (Map<String, Set<Integer>> sidePostings : postings.values()) {
+            Set<Integer> ids = sidePostings.get(term);
+            if (ids != null) {
+                documentFrequency += ids.size();
+            }
+        }
+        return Math.log(1 + (double) posts.size() / Math.max(1, documentFrequency));
+    }
+
+    private double norm(String[] terms) {
+        double sum = 0;
+        for (String term : terms) {
+            double idf = idf(term);
+            sum += idf * idf;
+        }
+        return Math.sqrt(sum);
+    }
+
+    private IndexedPost add(Post post) {
+        Side side = sideOf(post.category());
+        if (side == null) {
+            return null;
+        }
+        Set<String> terms = new LinkedHashSet<>(SearchTokenizer.tokenize(post.title()));
+        if (terms.isEmpty()) {
+            return null;
+        }
+        IndexedPost indexed = new IndexedPost(post, side, terms.toArray(new String[0]), Quantity.parse(post.quantity()));
+        posts.put(post.id(), indexed);
+        Map<String, Set<Integer>> sidePostings = postings.get(side);
+        for (String term : indexed.terms) {
+            sidePostings.computeIfAbsent(term, key -> new HashSet<>()).add(post.id());
+        }
+        return indexed;
+    }
+
+    private void removeLocked(Integer postId) {
+        rankedLists.remove(postId);
+        IndexedPost existing = posts.remove(postId);
+        if (existing == null) {
+            return;
+        }
+        Map<String, Set<Integer>> sidePostings = postings.get(existing.side);
+        for (String term : existing.terms) {
+            Set<Integer> ids = sidePostings.get(term);
+            if (ids != null) {
+                ids.remove(postId);
+                if (ids.isEmpty()) {
+                    sidePostings.remove(term);
+                }
+            }
+        }
+    }
+
+    // What the index keeps per post; enough to render a match without a database query
+    public record Post(Integer id, String title, String quantity, String category, Integer ownerId,
+                       String ownerName, Double latitude, Double longitude) {
+    }
+
+    public record Match(Post post, double score, double itemSimilarity, double quantityFit, Double distanceKm) {
+    }
+
+    private static final class IndexedPost {
+        private final Post post;
+        private final Side side;
+        private final String[] terms;
+        private final Quantity quantity;
+        // Length of the IDF-weighted term vector, as of when the post was added
+        private double norm;
+
+        private IndexedPost(Post post, Side side, String[] terms, Quantity quantity) {
+            this.post = post;
+            this.side = side;
+            this.terms = terms;
+            this.quantity = quantity;
+        }
+
+        private boolean hasLocation() {
+            return post.latitude() != null && post.longitude() != null;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.economicfoodexchanger.matching;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// A post's free-text quantity ("30", "5kg", "2.5 l", "500 g") as an amount in a base unit.
+// Amounts are only comparable within one family; a bare number is its own family.
+record Quantity(double amount, Family family) {
+
+    enum Family { UNSPECIFIED, MASS, VOLUME, COUNT }
+
+    private static final Pattern AMOUNT = Pattern.compile("^\\s*(\\d+(?:[.,]\\d+)?)\\s*([\\p{L}.]*)");
+
+    static Quantity parse(String text) {
+        if (text == null) {
+            return null;
+        }
+        Matcher matcher = AMOUNT.matcher(text);
+        if (!matcher.find()) {
+            return null;
+        }
+        double amount;
+        try {
+            amount = Double.parseDouble(matcher.group(1).replace(',', '.'));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (!(amount > 0)) {
+            return null;
+        }
+
+        String unit = matcher.group(2).toLowerCase(Locale.ROOT).replace(".", "");
+        return switch (unit) {
+            case "" -> new Quantity(amount, Family.UNSPECIFIED);
+            case "kg", "kgs", "kilo", "kilos", "kilogram", "kilograms" -> new Quantity(amount * 1000, Family.MASS);
+            case "g", "gram", "grams" -> new Quantity(amount, Family.MASS);
+            case "l", "liter", "liters", "litre", "litres" -> new Quantity(amount * 1000, Family.VOLUME);
+            case "ml" -> new Quantity(amount, Family.VOLUME);
+            case "pcs", "pc", "piece", "pieces", "nos", "no", "unit", "units" -> new Quantity(amount, Family.COUNT);
+            default -> null;
+        };
+    }
+
+    // 1 for equal amounts, falling towards 0 as one outgrows the other; 0.5 when not comparable
+    static double fit(Quantity a, Quantity b) {
+        if (a == null || b == null || a.family != b.family) {
+            return 0.5;
+        }
+        return Math.min(a.amount, b.amount) / Math.max(a.amount, b.amount);
+    }
+}
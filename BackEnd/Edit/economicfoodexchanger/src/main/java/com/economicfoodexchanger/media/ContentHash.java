@@ -0,0 +1,46 @@
+package com.economicfoodexchanger.media;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+// SHA-256 helpers used to build media content keys
+public final class ContentHash {
+
+    public static final int LENGTH = 32;
+
+    private ContentHash() {}
+
+    public static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public static String of(byte[] data) {
+        return toKey(newDigest().digest(data));
+    }
+
+    public static String toKey(byte[] digest) {
+        return HexFormat.of().formatHex(digest);
+    }
+
+    public static byte[] fromKey(String key) {
+        return HexFormat.of().parseHex(key);
+    }
+
+    public static boolean isKey(String key) {
+        if (key == null || key.length() != LENGTH * 2) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
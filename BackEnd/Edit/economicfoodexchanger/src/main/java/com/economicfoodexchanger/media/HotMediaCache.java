@@ -0,0 +1,173 @@
+package com.economicfoodexchanger.media;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the most recently viewed post media on the heap, keyed by (postId, index, size), so a
+ * popular post is served without a database lookup. Bounded by a byte budget with LRU eviction;
+ * the budget is capped at a fraction of the max heap whatever the configuration says.
+ * Files larger than the per-entry limit (videos, mostly) are never cached.
+ * <p>
+ * Metrics: media.cache.hits, media.cache.misses, media.cache.evictions,
+ * media.cache.resident.bytes and media.cache.entries (see /actuator/metrics).
+ */
+@Component
+public class HotMediaCache {
+
+    private static final double MAX_HEAP_FRACTION = 0.25;
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+
+    // Access-ordered: iteration starts at the least recently used entry
+    private final LinkedHashMap<Key, CachedMedia> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long residentBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public HotMediaCache(@Value("${media.cache.max-size-mb:64}") long maxSizeMb,
+                         @Value("${media.cache.max-entry-size-kb:2048}") long maxEntrySizeKb,
+                         MeterRegistry meterRegistry) {
+        long heapLimit = (long) (Runtime.getRuntime().maxMemory() * MAX_HEAP_FRACTION);
+        this.maxBytes = Math.max(0, Math.min(maxSizeMb * 1024 * 1024, heapLimit));
+        this.maxEntryBytes = Math.min(maxEntrySizeKb * 1024, maxBytes);
+
+        FunctionCounter.builder("media.cache.hits", hits, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("media.cache.misses", misses, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("media.cache.evictions", evictions, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("media.cache.resident.bytes", this, HotMediaCache::residentBytes)
+                .baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("media.cache.entries", this, HotMediaCache::entryCount).register(meterRegistry);
+
+        System.out.println("Hot media cache budget: " + (this.maxBytes / (1024 * 1024)) + " MB");
+    }
+
+    public CachedMedia get(Integer postId, Integer index, MediaSize size) {
+        CachedMedia media;
+        synchronized (entries) {
+            media = entries.get(new Key(postId, index, size));
+        }
+        (media != null ? hits : misses).incrementAndGet();
+        return media;
+    }
+
+    /**
+     * Caches a copy of the content if it fits the per-entry limit, evicting least recently used
+     * entries to stay within the budget. Returns the cached entry, or null when it was not cached.
+     */
+    public CachedMedia put(Integer postId, Integer index, MediaSize size, ByteBuffer content,
+                           String contentType, String fileName, String etag) {
+        int length = content.remaining();
+        if (length > maxEntryBytes) {
+            return null;
+        }
+
+        // Copied outside the lock; the source may be a mapped segment or a blob we do not own
+        ByteBuffer copy = ByteBuffer.allocate(length);
+        copy.put(content.duplicate());
+        copy.flip();
+        CachedMedia media = new CachedMedia(copy.asReadOnlyBuffer(), contentType, fileName, etag);
+
+        synchronized (entries) {
+            CachedMedia previous = entries.put(new Key(postId, index, size), media);
+            if (previous != null) {
+                residentBytes -= previous.length();
+            }
+            residentBytes += length;
+
+            Iterator<CachedMedia> eldest = entries.values().iterator();
+            while (residentBytes > maxBytes && eldest.hasNext()) {
+                residentBytes -= eldest.next().length();
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+        return media;
+    }
+
+    // Drops every size of every file of the post; call whenever its media changes
+    public void invalidatePost(Integer postId) {
+        synchronized (entries) {
+            Iterator<Map.Entry<Key, CachedMedia>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Key, CachedMedia> entry = iterator.next();
+                if (entry.getKey().postId.equals(postId)) {
+                    residentBytes -= entry.getValue().length();
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    public long residentBytes() {
+        synchronized (entries) {
+            return residentBytes;
+        }
+    }
+
+    public int entryCount() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public static final class CachedMedia {
+        private final ByteBuffer content;
+        private final String contentType;
+        private final String fileName;
+        private final String etag;
+
+        CachedMedia(ByteBuffer content, String contentType, String fileName, String etag) {
+            this.content = content;
+            this.contentType = contentType;
+            this.fileName = fileName;
+            this.etag = etag;
+        }
+
+        // A fresh view per response, so concurrent writers do not share a position
+        public ByteBuffer getContent() { return content.duplicate(); }
+        public String getContentType() { return contentType; }
+        public String getFileName() { return fileName; }
+        public String getEtag() { return etag; }
+
+        int length() { return content.capacity(); }
+    }
+
+    private static final class Key {
+        final Integer postId;
+        final Integer index;
+        final MediaSize size;
+
+        Key(Integer postId, Integer index, MediaSize size) {
+            this.postId = postId;
+            this.index = index;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return postId.equals(key.postId) && index.equals(key.index) && size == key.size;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(postId, index, size);
+        }
+    }
+}
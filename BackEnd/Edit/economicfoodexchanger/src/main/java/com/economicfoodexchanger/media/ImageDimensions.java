@@ -0,0 +1,37 @@
+package com.economicfoodexchanger.media;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+
+// Reads image width/height from the file header without decoding the pixels
+public final class ImageDimensions {
+
+    private ImageDimensions() {}
+
+    // Returns {width, height}, or null if the content is not a readable image
+    public static int[] read(ByteBuffer content) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteBufferInputStream(content))) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                return new int[]{reader.getWidth(0), reader.getHeight(0)};
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            System.err.println("Could not read image dimensions: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.economicfoodexchanger.media;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes media content straight from its buffer to the servlet output stream.
+ * Supports single byte ranges (Range / If-Range) so video players can seek without
+ * downloading the whole file again.
+ * <p>
+ * The ETag is the content hash of the representation being served. A request whose
+ * {@code v} parameter carries that same hash is cached as immutable; any other URL must be
+ * revalidated, which costs a 304 with no body.
+ */
+@Component
+public class MediaResponseWriter {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final String VERSION_PARAM = "v";
+
+    public void write(HttpServletRequest request, HttpServletResponse response, ByteBuffer content,
+                      String contentType, String fileName, String etag) throws IOException {
+        write(request, response, content, contentType, fileName, etag, true);
+    }
+
+    // shared = false keeps the response out of proxy caches (payment files)
+    public void write(HttpServletRequest request, HttpServletResponse response, ByteBuffer content,
+                      String contentType, String fileName, String etag, boolean shared) throws IOException {
+        if (notModified(request, response, etag, shared)) {
+            return;
+        }
+        long length = content.remaining();
+
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (fileName != null) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + fileName + "\"");
+        }
+
+        ByteRange range = rangeToServe(request, etag, length);
+        if (range == ByteRange.UNSATISFIABLE) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+
+        ByteBuffer body = content;
+        if (range != null) {
+            body = content.duplicate();
+            body.position(content.position() + (int) range.start);
+            body.limit(content.position() + (int) range.end + 1);
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range.start + "-" + range.end + "/" + length);
+        } else {
+            response.setStatus(HttpServletResponse.SC_OK);
+        }
+        response.setContentLengthLong(body.remaining());
+
+        // For a mapped buffer this copies through a small transfer buffer, never the whole file
+        try {
+            WritableByteChannel channel = Channels.newChannel(response.getOutputStream());
+            while (body.hasRemaining()) {
+                ByteBuffer chunk = body.duplicate();
+                chunk.limit(chunk.position() + Math.min(CHUNK_SIZE, chunk.remaining()));
+                body.position(body.position() + channel.write(chunk));
+            }
+            response.flushBuffer();
+        } catch (IOException e) {
+            // Players drop the connection all the time while seeking; nothing left to report to the client
+            System.out.println("Media stream closed by client: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sets the validator and caching headers and answers If-None-Match. Call it before loading
+     * a payload that is expensive to fetch; when it returns true a 304 has been sent and the
+     * handler is done.
+     */
+    public boolean notModified(HttpServletRequest request, HttpServletResponse response,
+                               String etag, boolean shared) {
+        if (etag == null) {
+            return false;
+        }
+
+        response.setHeader(HttpHeaders.ETAG, quote(etag));
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl(request, etag, shared).getHeaderValue());
+
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && matchesAny(ifNoneMatch, etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+        return false;
+    }
+
+    private CacheControl cacheControl(HttpServletRequest request, String etag, boolean shared) {
+        if (!etag.equals(request.getParameter(VERSION_PARAM))) {
+            // Unversioned URLs can change what they point to; always revalidate
+            return shared ? CacheControl.noCache().cachePublic() : CacheControl.noCache().cachePrivate();
+        }
+        CacheControl cacheControl = CacheControl.maxAge(365, TimeUnit.DAYS).immutable();
+        return shared ? cacheControl.cachePublic() : cacheControl.cachePrivate();
+    }
+
+    // If-None-Match uses the weak comparison, so W/"..." matches as well
+    private static boolean matchesAny(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(quote(etag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Returns null when the full content should be sent
+    private ByteRange rangeToServe(HttpServletRequest request, String etag, long length) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null) {
+            return null;
+        }
+
+        // If-Range: only honour the range when the client still has the same representation
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && (etag == null || !ifRange.trim().equals(quote(etag)))) {
+            return null;
+        }
+
+        return ByteRange.parse(rangeHeader, length);
+    }
+
+    private static String quote(String etag) {
+        return "\"" + etag + "\"";
+    }
+
+    static final class ByteRange {
+        static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+        final long start;
+        final long end; // inclusive
+
+        private ByteRange(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        // Parses a single "bytes=" range; malformed or multi-range headers are ignored (null)
+        static ByteRange parse(String header, long length) {
+            String value = header.trim();
+            if (!value.startsWith("bytes=") || value.indexOf(',') >= 0) {
+                return null;
+            }
+            value = value.substring("bytes=".length()).trim();
+            int dash = value.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+
+            try {
+                String first = value.substring(0, dash).trim();
+                String last = value.substring(dash + 1).trim();
+
+                if (first.isEmpty()) {
+                    // Suffix range: the last N bytes
+                    long suffix = Long.parseLong(last);
+                    if (suffix <= 0 || length == 0) {
+                        return UNSATISFIABLE;
+                    }
+                    return new ByteRange(Math.max(0, length - suffix), length - 1);
+                }
+
+                long start = Long.parseLong(first);
+                long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+                if (end < start) {
+                    return null;
+                }
+                if (start >= length) {
+                    return UNSATISFIABLE;
+                }
+                return new ByteRange(start, Math.min(end, length - 1));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
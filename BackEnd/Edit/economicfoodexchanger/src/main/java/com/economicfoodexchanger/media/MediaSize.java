@@ -0,0 +1,31 @@
+package com.economicfoodexchanger.media;
+
+// Precomputed image sizes, selected with ?size= on media URLs
+public enum MediaSize {
+    THUMB(160),
+    MEDIUM(480),
+    FULL(0); // the main processed image (or the original for videos)
+
+    private final int maxDimension;
+
+    MediaSize(int maxDimension) {
+        this.maxDimension = maxDimension;
+    }
+
+    // Longest side in pixels; 0 for FULL, which keeps each upload's own bounds
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    public static MediaSize parse(String value) {
+        if (value == null || value.isBlank()) {
+            return FULL;
+        }
+        for (MediaSize size : values()) {
+            if (size.name().equalsIgnoreCase(value.trim())) {
+                return size;
+            }
+        }
+        return FULL;
+    }
+}
@@ -0,0 +1,29 @@
+package com.economicfoodexchanger.media;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Storage for uploaded media bytes. Files are addressed by the SHA-256 of their content,
+ * so the same file uploaded twice is only stored once and MySQL only has to keep the key.
+ */
+public interface MediaStore {
+
+    // Stores the bytes (if not already present) and returns the content key
+    String put(byte[] data) throws IOException;
+
+    // Streaming variant for uploads: heap use is bounded by a fixed buffer, not by the file size
+    String put(InputStream input) throws IOException;
+
+    boolean contains(String key);
+
+    // Largest content in bytes that put accepts
+    long maxContentSize();
+
+    // Size in bytes of the stored content, or -1 if the key is unknown
+    long size(String key);
+
+    // Read-only view of the stored content, or null if the key is unknown
+    ByteBuffer read(String key) throws IOException;
+}
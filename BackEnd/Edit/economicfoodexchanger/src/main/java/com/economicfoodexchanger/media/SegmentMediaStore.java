@@ -0,0 +1,352 @@
+package com.economicfoodexchanger.media;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Local disk MediaStore. Content is appended to segment files as
+ * [magic][sha-256][length][bytes] records and never rewritten, so readers can memory-map a
+ * segment and stream straight out of the page cache. The key -> location index lives in memory
+ * and is rebuilt on startup by scanning the record headers.
+ */
+@Component
+public class SegmentMediaStore implements MediaStore {
+
+    private static final int RECORD_MAGIC = 0x4D454431; // "MED1"
+    private static final int HEADER_SIZE = 4 + ContentHash.LENGTH + 8;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+    private static final String INCOMING_PREFIX = "incoming-";
+    private static final int TRANSFER_CHUNK_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final long maxSegmentSize;
+
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    private final Map<Integer, FileChannel> readChannels = new ConcurrentHashMap<>();
+    private final Map<Integer, MappedByteBuffer> mappings = new ConcurrentHashMap<>();
+
+    private FileChannel activeChannel;
+    private int activeSegment;
+
+    public SegmentMediaStore(@Value("${media.store.dir:./media-store}") String directory,
+                             @Value("${media.store.segment-size-mb:1024}") long segmentSizeMb) {
+        this.directory = Paths.get(directory);
+        this.maxSegmentSize = Math.min(segmentSizeMb * 1024 * 1024, Integer.MAX_VALUE);
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        deleteIncomingFiles();
+
+        List<Integer> segments = listSegments();
+        for (int i = 0; i < segments.size(); i++) {
+            scanSegment(segments.get(i), i == segments.size() - 1);
+        }
+
+        activeSegment = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+        activeChannel = FileChannel.open(segmentPath(activeSegment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        System.out.println("Media store opened at " + directory.toAbsolutePath() +
+                " - " + index.size() + " files in " + Math.max(segments.size(), 1) + " segment(s)");
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (activeChannel != null) {
+            activeChannel.close();
+        }
+        for (FileChannel channel : readChannels.values()) {
+            channel.close();
+        }
+        mappings.clear();
+    }
+
+    @Override
+    public String put(byte[] data) throws IOException {
+        String key = ContentHash.of(data);
+        if (index.containsKey(key)) {
+            return key;
+        }
+        if (data.length > maxContentSize()) {
+            throw new IOException("Media file too large for the segment store: " + data.length + " bytes");
+        }
+
+        synchronized (this) {
+            if (index.containsKey(key)) {
+                return key;
+            }
+
+            long recordSize = HEADER_SIZE + (long) data.length;
+            if (activeChannel.size() > 0 && activeChannel.size() + recordSize > maxSegmentSize) {
+                rollSegment();
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(RECORD_MAGIC);
+            header.put(ContentHash.fromKey(key));
+            header.putLong(data.length);
+            header.flip();
+
+            long recordStart = activeChannel.size();
+            writeFully(activeChannel, new ByteBuffer[]{header, ByteBuffer.wrap(data)}, recordStart);
+            // The reference goes to MySQL right after this, so the bytes must be on disk first
+            activeChannel.force(false);
+
+            index.put(key, new Location(activeSegment, recordStart + HEADER_SIZE, data.length));
+        }
+        return key;
+    }
+
+    /**
+     * Spools the stream to a temp file next to the segments while hashing it, then appends the
+     * temp file to the active segment with a channel transfer. Only one chunk buffer is on the
+     * heap at any time.
+     */
+    @Override
+    public String put(InputStream input) throws IOException {
+        Path incoming = Files.createTempFile(directory, INCOMING_PREFIX, ".tmp");
+        try {
+            MessageDigest digest = ContentHash.newDigest();
+            long length = 0;
+            try (FileChannel out = FileChannel.open(incoming, StandardOpenOption.WRITE)) {
+                byte[] chunk = new byte[TRANSFER_CHUNK_SIZE];
+                int read;
+                while ((read = input.read(chunk)) != -1) {
+                    digest.update(chunk, 0, read);
+                    ByteBuffer buffer = ByteBuffer.wrap(chunk, 0, read);
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    length += read;
+                }
+            }
+
+            String key = ContentHash.toKey(digest.digest());
+            if (index.containsKey(key)) {
+                return key;
+            }
+            if (length > maxContentSize()) {
+                throw new IOException("Media file too large for the segment store: " + length + " bytes");
+            }
+
+            synchronized (this) {
+                if (index.containsKey(key)) {
+                    return key;
+                }
+
+                long recordSize = HEADER_SIZE + length;
+                if (activeChannel.size() > 0 && activeChannel.size() + recordSize > maxSegmentSize) {
+                    rollSegment();
+                }
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(RECORD_MAGIC);
+                header.put(ContentHash.fromKey(key));
+                header.putLong(length);
+                header.flip();
+
+                long recordStart = activeChannel.size();
+                writeFully(activeChannel, new ByteBuffer[]{header}, recordStart);
+                try (FileChannel in = FileChannel.open(incoming, StandardOpenOption.READ)) {
+                    long transferred = 0;
+                    while (transferred < length) {
+                        long count = activeChannel.transferFrom(in, recordStart + HEADER_SIZE + transferred, length - transferred);
+                        if (count <= 0) {
+                            throw new IOException("Upload spool file ended early");
+                        }
+                        transferred += count;
+                    }
+                }
+                // The reference goes to MySQL right after this, so the bytes must be on disk first
+                activeChannel.force(false);
+
+                index.put(key, new Location(activeSegment, recordStart + HEADER_SIZE, length));
+            }
+            return key;
+        } finally {
+            Files.deleteIfExists(incoming);
+        }
+    }
+
+    @Override
+    public boolean contains(String key) {
+        return key != null && index.containsKey(key);
+    }
+
+    // A record, header included, is mapped as one buffer when read
+    @Override
+    public long maxContentSize() {
+        return Integer.MAX_VALUE - HEADER_SIZE;
+    }
+
+    @Override
+    public long size(String key) {
+        Location location = key != null ? index.get(key) : null;
+        return location != null ? location.length : -1;
+    }
+
+    @Override
+    public ByteBuffer read(String key) throws IOException {
+        Location location = key != null ? index.get(key) : null;
+        if (location == null) {
+            return null;
+        }
+
+        MappedByteBuffer segment = mapping(location.segment, location.offset + location.length);
+        ByteBuffer view = segment.duplicate();
+        view.position((int) location.offset);
+        view.limit((int) (location.offset + location.length));
+        return view.slice();
+    }
+
+    // Maps the whole segment read-only; the active segment is re-mapped once it has grown past the old mapping
+    private MappedByteBuffer mapping(int segment, long requiredSize) throws IOException {
+        MappedByteBuffer mapped = mappings.get(segment);
+        if (mapped != null && mapped.capacity() >= requiredSize) {
+            return mapped;
+        }
+
+        synchronized (mappings) {
+            mapped = mappings.get(segment);
+            if (mapped == null || mapped.capacity() < requiredSize) {
+                FileChannel channel = readChannels.computeIfAbsent(segment, this::openForRead);
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                mappings.put(segment, mapped);
+            }
+            return mapped;
+        }
+    }
+
+    private FileChannel openForRead(int segment) {
+        try {
+            return FileChannel.open(segmentPath(segment), StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open media segment " + segment, e);
+        }
+    }
+
+    private void rollSegment() throws IOException {
+        activeChannel.force(true);
+        activeChannel.close();
+        activeSegment++;
+        activeChannel = FileChannel.open(segmentPath(activeSegment),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        System.out.println("Media store rolled to segment " + activeSegment);
+    }
+
+    private void scanSegment(int segment, boolean isLast) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            long position = 0;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            byte[] digest = new byte[ContentHash.LENGTH];
+
+            while (position + HEADER_SIZE <= size) {
+                header.clear();
+                readFully(channel, header, position);
+                header.flip();
+
+                int magic = header.getInt();
+                header.get(digest);
+                long length = header.getLong();
+                if (magic != RECORD_MAGIC || length < 0 || position + HEADER_SIZE + length > size) {
+                    break;
+                }
+
+                index.putIfAbsent(ContentHash.toKey(digest), new Location(segment, position + HEADER_SIZE, length));
+                position += HEADER_SIZE + length;
+            }
+
+            if (position < size) {
+                if (isLast) {
+                    // A crash in the middle of an append leaves a torn record at the tail; drop it
+                    System.err.println("Truncating torn record in media segment " + segment + " at offset " + position);
+                    channel.truncate(position);
+                } else {
+                    System.err.println("Media segment " + segment + " is damaged after offset " + position);
+                }
+            }
+        }
+    }
+
+    // Spool files left behind by a crash during an upload
+    private void deleteIncomingFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                if (path.getFileName().toString().startsWith(INCOMING_PREFIX)) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    private List<Integer> listSegments() throws IOException {
+        List<Integer> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> segments.add(Integer.parseInt(
+                            name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()))));
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer[] buffers, long position) throws IOException {
+        channel.position(position);
+        long remaining = 0;
+        for (ByteBuffer buffer : buffers) {
+            remaining += buffer.remaining();
+        }
+        while (remaining > 0) {
+            remaining -= channel.write(buffers);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of media segment");
+            }
+        }
+    }
+
+    private static class Location {
+        final int segment;
+        final long offset;
+        final long length;
+
+        Location(int segment, long offset, long length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
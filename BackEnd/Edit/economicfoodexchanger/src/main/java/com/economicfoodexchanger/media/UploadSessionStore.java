@@ -0,0 +1,348 @@
+package com.economicfoodexchanger.media;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.SequenceInputStream;
+import java.io.Writer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Enumeration;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+import java.util.UUID;
+
+/**
+ * Resumable uploads. Each session is a directory holding session.properties and one file per
+ * received chunk. Chunk n always starts at n * chunkSize, so a client that lost its connection
+ * asks for the received offset and resends from the first missing chunk. A chunk is written to
+ * a temp file and renamed into place, so a dropped request never leaves a half chunk behind.
+ * Sessions untouched for longer than the TTL are deleted by a scheduled sweep.
+ * <p>
+ * Finalizing is claimed by creating a marker file, which only one caller can do, and its result
+ * is written next to it. The chunks are then deleted but the session is kept until the TTL, so a
+ * client that retries finalize after a timeout gets the same result instead of a second copy.
+ */
+@Component
+public class UploadSessionStore {
+
+    private static final String SESSION_FILE = "session.properties";
+    private static final String FINALIZING_FILE = "finalizing";
+    private static final String RESULT_FILE = "result.properties";
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final long chunkSize;
+    private final long maxUploadSize;
+    private final Duration sessionTtl;
+    private final Duration finalizeTimeout;
+
+    public UploadSessionStore(@Value("${media.upload.dir:./upload-sessions}") String directory,
+                              @Value("${media.upload.chunk-size-kb:4096}") long chunkSizeKb,
+                              @Value("${media.upload.max-size-mb:2000}") long maxUploadSizeMb,
+                              @Value("${media.upload.session-ttl-hours:24}") long sessionTtlHours,
+                              @Value("${media.upload.finalize-timeout-ms:600000}") long finalizeTimeoutMs,
+                              MediaStore mediaStore) {
+        this.directory = Paths.get(directory);
+        this.chunkSize = chunkSizeKb * 1024;
+        // An upload the store cannot take would only fail after every chunk was sent
+        this.maxUploadSize = Math.min(maxUploadSizeMb * 1024 * 1024, mediaStore.maxContentSize());
+        this.sessionTtl = Duration.ofHours(sessionTtlHours);
+        this.finalizeTimeout = Duration.ofMillis(finalizeTimeoutMs);
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+    }
+
+    public Session create(Integer postId, String fileName, String contentType, long totalSize) throws IOException {
+        if (totalSize <= 0 || totalSize > maxUploadSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Upload size must be between 1 byte and " + (maxUploadSize / (1024 * 1024)) + " MB");
+        }
+
+        Session session = new Session(UUID.randomUUID().toString(), postId, fileName, contentType, totalSize, chunkSize);
+        Path sessionDir = directory.resolve(session.uploadId);
+        Files.createDirectories(sessionDir);
+
+        Properties properties = new Properties();
+        properties.setProperty("postId", String.valueOf(postId));
+        properties.setProperty("fileName", fileName != null ? fileName : "");
+        properties.setProperty("contentType", contentType);
+        properties.setProperty("totalSize", String.valueOf(totalSize));
+        properties.setProperty("chunkSize", String.valueOf(chunkSize));
+        try (Writer writer = Files.newBufferedWriter(sessionDir.resolve(SESSION_FILE))) {
+            properties.store(writer, "Upload session");
+        }
+        return session;
+    }
+
+    // Returns null for unknown (or already collected) sessions
+    public Session get(String uploadId) throws IOException {
+        if (!isValidId(uploadId)) {
+            return null;
+        }
+        Path sessionFile = directory.resolve(uploadId).resolve(SESSION_FILE);
+        if (!Files.exists(sessionFile)) {
+            return null;
+        }
+
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(sessionFile)) {
+            properties.load(reader);
+        }
+        String fileName = properties.getProperty("fileName");
+        return new Session(uploadId,
+                Integer.valueOf(properties.getProperty("postId")),
+                fileName == null || fileName.isEmpty() ? null : fileName,
+                properties.getProperty("contentType"),
+                Long.parseLong(properties.getProperty("totalSize")),
+                Long.parseLong(properties.getProperty("chunkSize")));
+    }
+
+    /**
+     * Stores chunk number {@code chunk}, which must start at {@code offset} and be exactly
+     * chunkSize bytes long (shorter only for the last chunk). Re-sending a chunk replaces it.
+     * Returns the received offset afterwards.
+     */
+    public long writeChunk(Session session, int chunk, long offset, InputStream body) throws IOException {
+        if (chunk < 0 || chunk >= session.getChunkCount()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Chunk " + chunk + " is out of range, the upload has " + session.getChunkCount() + " chunks");
+        }
+        if (offset != chunk * session.chunkSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Chunk " + chunk + " must start at offset " + (chunk * session.chunkSize));
+        }
+        long expected = Math.min(session.chunkSize, session.totalSize - offset);
+
+        Path sessionDir = directory.resolve(session.uploadId);
+        Path temp = Files.createTempFile(sessionDir, "chunk-", ".tmp");
+        try {
+            long written = copyAtMost(body, temp, expected + 1);
+            if (written != expected) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Chunk " + chunk + " must be " + expected + " bytes, received " +
+                                (written > expected ? "more" : String.valueOf(written)));
+            }
+            Files.move(temp, chunkPath(session, chunk), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        // Keeps an active session away from the garbage collector
+        Files.setLastModifiedTime(sessionDir.resolve(SESSION_FILE), FileTime.from(Instant.now()));
+        return receivedOffset(session);
+    }
+
+    // Bytes received without gaps from the start of the file
+    public long receivedOffset(Session session) {
+        long offset = 0;
+        for (int chunk = 0; chunk < session.getChunkCount(); chunk++) {
+            if (!Files.exists(chunkPath(session, chunk))) {
+                break;
+            }
+            offset += Math.min(session.chunkSize, session.totalSize - offset);
+        }
+        return offset;
+    }
+
+    // The chunks in order as one stream; only valid once receivedOffset == totalSize
+    public InputStream openAssembled(Session session) {
+        Enumeration<InputStream> chunks = new Enumeration<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasMoreElements() {
+                return next < session.getChunkCount();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                if (!hasMoreElements()) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    return Files.newInputStream(chunkPath(session, next++));
+                } catch (IOException e) {
+                    throw new IllegalStateException("Upload chunk missing: " + e.getMessage(), e);
+                }
+            }
+        };
+        return new SequenceInputStream(chunks);
+    }
+
+    /**
+     * Claims the session for finalizing; false while another call holds the claim. A claim older
+     * than media.upload.finalize-timeout-ms belongs to a finalize that died with its process.
+     */
+    public boolean claimFinalize(Session session) throws IOException {
+        Path marker = directory.resolve(session.uploadId).resolve(FINALIZING_FILE);
+        try {
+            Files.createFile(marker);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            Instant claimedAt = Files.getLastModifiedTime(marker).toInstant();
+            if (claimedAt.isAfter(Instant.now().minus(finalizeTimeout))) {
+                return false;
+            }
+            Files.deleteIfExists(marker);
+            return claimFinalize(session);
+        }
+    }
+
+    // After a failed finalize, so the client can try again
+    public void releaseFinalize(Session session) throws IOException {
+        Files.deleteIfExists(directory.resolve(session.uploadId).resolve(FINALIZING_FILE));
+    }
+
+    public boolean isFinalizing(Session session) {
+        Path sessionDir = directory.resolve(session.uploadId);
+        return Files.exists(sessionDir.resolve(FINALIZING_FILE)) || Files.exists(sessionDir.resolve(RESULT_FILE));
+    }
+
+    // Records the media index the file got and frees the chunks; the session stays until the TTL
+    public void completeFinalize(Session session, int mediaIndex) throws IOException {
+        Path sessionDir = directory.resolve(session.uploadId);
+        Properties properties = new Properties();
+        properties.setProperty("mediaIndex", String.valueOf(mediaIndex));
+        Path temp = Files.createTempFile(sessionDir, "result-", ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp)) {
+                properties.store(writer, "Finalized upload");
+            }
+            Files.move(temp, sessionDir.resolve(RESULT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        for (int chunk = 0; chunk < session.getChunkCount(); chunk++) {
+            Files.deleteIfExists(chunkPath(session, chunk));
+        }
+        Files.setLastModifiedTime(sessionDir.resolve(SESSION_FILE), FileTime.from(Instant.now()));
+    }
+
+    // Media index of a finalized session, or null if it was not finalized
+    public Integer finalizedMediaIndex(Session session) throws IOException {
+        Path resultFile = directory.resolve(session.uploadId).resolve(RESULT_FILE);
+        if (!Files.exists(resultFile)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(resultFile)) {
+            properties.load(reader);
+        }
+        return Integer.valueOf(properties.getProperty("mediaIndex"));
+    }
+
+    public void delete(String uploadId) throws IOException {
+        if (isValidId(uploadId)) {
+            deleteDirectory(directory.resolve(uploadId));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${media.upload.gc-interval-ms:3600000}")
+    public void collectExpiredSessions() {
+        Instant cutoff = Instant.now().minus(sessionTtl);
+        int collected = 0;
+        try (DirectoryStream<Path> sessions = Files.newDirectoryStream(directory)) {
+            for (Path sessionDir : sessions) {
+                Path sessionFile = sessionDir.resolve(SESSION_FILE);
+                Path marker = Files.exists(sessionFile) ? sessionFile : sessionDir;
+                if (Files.getLastModifiedTime(marker).toInstant().isBefore(cutoff)) {
+                    deleteDirectory(sessionDir);
+                    collected++;
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Upload session cleanup failed: " + e.getMessage());
+        }
+        if (collected > 0) {
+            System.out.println("Removed " + collected + " expired upload session(s)");
+        }
+    }
+
+    private Path chunkPath(Session session, int chunk) {
+        return directory.resolve(session.uploadId).resolve(String.format("chunk-%06d.part", chunk));
+    }
+
+    // Stops after limit bytes so an oversized chunk cannot fill the disk
+    private static long copyAtMost(InputStream input, Path target, long limit) throws IOException {
+        long written = 0;
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        try (OutputStream output = Files.newOutputStream(target)) {
+            int read;
+            while (written < limit && (read = input.read(buffer, 0, (int) Math.min(buffer.length, limit - written))) != -1) {
+                output.write(buffer, 0, read);
+                written += read;
+            }
+        }
+        return written;
+    }
+
+    private static void deleteDirectory(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            Files.deleteIfExists(dir);
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    // Session ids are UUIDs; anything else could point outside the upload directory
+    private static boolean isValidId(String uploadId) {
+        try {
+            return uploadId != null && UUID.fromString(uploadId).toString().equals(uploadId);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    public static final class Session {
+        private final String uploadId;
+        private final Integer postId;
+        private final String fileName;
+        private final String contentType;
+        private final long totalSize;
+        private final long chunkSize;
+
+        Session(String uploadId, Integer postId, String fileName, String contentType, long totalSize, long chunkSize) {
+            this.uploadId = uploadId;
+            this.postId = postId;
+            this.fileName = fileName;
+            this.contentType = contentType;
+            this.totalSize = totalSize;
+            this.chunkSize = chunkSize;
+        }
+
+        public String getUploadId() { return uploadId; }
+        public Integer getPostId() { return postId; }
+        public String getFileName() { return fileName; }
+        public String getContentType() { return contentType; }
+        public long getTotalSize() { return totalSize; }
+        public long getChunkSize() { return chunkSize; }
+
+        public int getChunkCount() {
+            return (int) ((totalSize + chunkSize - 1) / chunkSize);
+        }
+    }
+}
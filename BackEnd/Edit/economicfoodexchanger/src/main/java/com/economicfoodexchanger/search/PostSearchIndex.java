@@ -0,0 +1,251 @@
+package com.economicfoodexchanger.search;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over post title, category and description, ranked with BM25.
+ * Each query word matches its exact term, then terms it is a prefix of, then terms within a
+ * small edit distance, with decreasing weight; a post's score is the sum over query words,
+ * scaled by the share of query words it matched. Updates replace a whole post at a time.
+ */
+@Component
+public class PostSearchIndex {
+
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float CATEGORY_WEIGHT = 1.5f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    private static final float PREFIX_BOOST = 0.6f;
+    private static final float FUZZY_BOOST = 0.35f;
+    private static final int MAX_EXPANSIONS = 64;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, IndexedPost> posts = new HashMap<>();
+    // term -> (post id -> weighted term frequency); sorted for prefix lookups
+    private final NavigableMap<String, Map<Integer, Float>> postings = new TreeMap<>();
+    private double totalLength;
+    private volatile boolean loaded;
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return posts.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void replaceAll(Collection<Document> documents) {
+        lock.writeLock().lock();
+        try {
+            posts.clear();
+            postings.clear();
+            totalLength = 0;
+            for (Document document : documents) {
+                add(document);
+            }
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(Document document) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(document.id());
+            add(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Integer postId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(postId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ranked matches for the query. Closed posts are skipped unless includeClosed;
+     * category, when given, must match exactly (case-insensitive).
+     */
+    public Page search(String query, String category, boolean includeClosed, int offset, int limit) {
+        List<String> queryTerms = SearchTokenizer.tokenize(query);
+        if (queryTerms.isEmpty()) {
+            return new Page(List.of(), 0);
+        }
+
+        lock.readLock().lock();
+        try {
+            double averageLength = posts.isEmpty() ? 1 : totalLength / posts.size();
+            Map<Integer, float[]> scores = new HashMap<>();  // [score, matched query terms]
+
+            for (String queryTerm : queryTerms) {
+                // Best expansion of this query term per post
+                Map<Integer, Float> termScores = new HashMap<>();
+                for (Map.Entry<String, Float> expansion : expand(queryTerm).entrySet()) {
+                    Map<Integer, Float> postingList = postings.get(expansion.getKey());
+                    double idf = idf(postingList.size());
+                    for (Map.Entry<Integer, Float> posting : postingList.entrySet()) {
+                        IndexedPost post = posts.get(posting.getKey());
+                        if (!post.matches(category, includeClosed)) {
+                            continue;
+                        }
+                        double tf = posting.getValue();
+                        double bm25 = idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * post.length / averageLength));
+                        termScores.merge(posting.getKey(), (float) (bm25 * expansion.getValue()), Math::max);
+                    }
+                }
+                termScores.forEach((postId, score) -> {
+                    float[] total = scores.computeIfAbsent(postId, id -> new float[2]);
+                    total[0] += score;
+                    total[1]++;
+                });
+            }
+
+            List<Hit> hits = new ArrayList<>(scores.size());
+            scores.forEach((postId, total) ->
+                    hits.add(new Hit(posts.get(postId).document, total[0] * total[1] / queryTerms.size())));
+            hits.sort(Comparator.comparingDouble(Hit::score).reversed()
+                    .thenComparing(hit -> hit.document().id(), Comparator.reverseOrder()));
+
+            int from = Math.min(offset, hits.size());
+            int to = Math.min(from + limit, hits.size());
+            return new Page(new ArrayList<>(hits.subList(from, to)), hits.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Index terms a query term stands for, with their weight
+    private Map<String, Float> expand(String queryTerm) {
+        Map<String, Float> expansions = new HashMap<>();
+        if (postings.containsKey(queryTerm)) {
+            expansions.put(queryTerm, 1.0f);
+        }
+
+        if (queryTerm.length() >= 2) {
+            int added = 0;
+            for (String term : postings.subMap(queryTerm, false, queryTerm + Character.MAX_VALUE, false).keySet()) {
+                if (added++ >= MAX_EXPANSIONS) {
+                    break;
+                }
+                expansions.putIfAbsent(term, PREFIX_BOOST);
+            }
+        }
+
+        int queryLength = queryTerm.codePointCount(0, queryTerm.length());
+        if (queryLength >= 4) {
+            int maxEdits = queryLength >= 8 ? 2 : 1;
+            // Typos rarely hit the first letter; only terms starting with it are compared
+            String first = queryTerm.substring(0, Character.charCount(queryTerm.codePointAt(0)));
+            int added = 0;
+            for (String term : postings.subMap(first, true, first + Character.MAX_VALUE, false).keySet()) {
+                if (added >= MAX_EXPANSIONS) {
+                    break;
+                }
+                if (!expansions.containsKey(term) && EditDistance.within(queryTerm, term, maxEdits)) {
+                    expansions.put(term, FUZZY_BOOST);
+                    added++;
+                }
+            }
+        }
+        return expansions;
+    }
+
+    private double idf(int documentFrequency) {
+        return Math.log(1 + (posts.size() - documentFrequency + 0.5) / (documentFrequency + 0.5));
+    }
+
+    private void add(Document document) {
+        Map<String, Float> termWeights = new HashMap<>();
+        float length = addTerms(termWeights, document.title(), TITLE_WEIGHT)
+                + addTerms(termWeights, document.category(), CATEGORY_WEIGHT)
+                + addTerms(termWeights, document.description(), DESCRIPTION_WEIGHT);
+        if (termWeights.isEmpty()) {
+            return;
+        }
+
+        for (Map.Entry<String, Float> entry : termWeights.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), term -> new HashMap<>()).put(document.id(), entry.getValue());
+        }
+        posts.put(document.id(), new IndexedPost(document, termWeights.keySet().toArray(new String[0]), length));
+        totalLength += length;
+    }
+
+    private static float addTerms(Map<String, Float> termWeights, String text, float weight) {
+        List<String> terms = SearchTokenizer.tokenize(text);
+        for (String term : terms) {
+            termWeights.merge(term, weight, Float::sum);
+        }
+        return terms.size() * weight;
+    }
+
+    private void removeLocked(Integer postId) {
+        IndexedPost existing = posts.remove(postId);
+        if (existing == null) {
+            return;
+        }
+        for (String term : existing.terms) {
+            Map<Integer, Float> postingList = postings.get(term);
+            if (postingList != null) {
+                postingList.remove(postId);
+                if (postingList.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= existing.length;
+    }
+
+    // What the index keeps per post: enough to render a result without a database query
+    public record Document(Integer id, String title, String description, String category, String quantity,
+                           String ownerName, LocalDateTime createdAt, boolean open) {
+    }
+
+    public record Hit(Document document, double score) {
+    }
+
+    public record Page(List<Hit> hits, int total) {
+    }
+
+    private static final class IndexedPost {
+        private final Document document;
+        private final String[] terms;
+        private final float length;
+
+        private IndexedPost(Document document, String[] terms, float length) {
+            this.document = document;
+            this.terms = terms;
+            this.length = length;
+        }
+
+        private boolean matches(String category, boolean includeClosed) {
+            return (includeClosed || document.open()) &&
+                    (category == null || category.equalsIgnoreCase(document.category()));
+        }
+    }
+}
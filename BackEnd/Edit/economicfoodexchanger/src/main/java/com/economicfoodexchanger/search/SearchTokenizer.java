@@ -0,0 +1,87 @@
+package com.economicfoodexchanger.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// Splits English and Sinhala text into index terms. Sinhala vowel signs and virama are combining
+// marks, so they are kept inside the word; zero-width joiners (used for conjuncts) are dropped so
+// both spellings give the same term. English words get a light plural stemming.
+// Also used by the matching engine to normalize item names.
+public final class SearchTokenizer {
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "for", "from", "in", "is", "of", "on", "or", "the", "to", "with");
+
+    private SearchTokenizer() {}
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFC);
+        StringBuilder current = new StringBuilder();
+        int i = 0;
+        while (i <= normalized.length()) {
+            int codePoint = i < normalized.length() ? normalized.codePointAt(i) : ' ';
+            if (isWordChar(codePoint)) {
+                if (codePoint != 0x200C && codePoint != 0x200D) {
+                    current.appendCodePoint(codePoint);
+                }
+            } else if (current.length() > 0) {
+                String token = normalizeTerm(current.toString());
+                if (token != null) {
+                    tokens.add(token);
+                }
+                current.setLength(0);
+            }
+            i += Character.charCount(codePoint);
+        }
+        return tokens;
+    }
+
+    private static boolean isWordChar(int codePoint) {
+        if (Character.isLetterOrDigit(codePoint) || codePoint == 0x200C || codePoint == 0x200D) {
+            return true;
+        }
+        int type = Character.getType(codePoint);
+        return type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK;
+    }
+
+    private static String normalizeTerm(String word) {
+        String term = word.toLowerCase(Locale.ROOT);
+        if (STOP_WORDS.contains(term)) {
+            return null;
+        }
+        return isAsciiLetters(term) ? stem(term) : term;
+    }
+
+    // Plural forms only: "carrots" -> "carrot", "tomatoes" -> "tomato", "berries" -> "berry"
+    static String stem(String term) {
+        int length = term.length();
+        if (length <= 3 || !term.endsWith("s") || term.endsWith("ss") || term.endsWith("us")) {
+            return term;
+        }
+        if (term.endsWith("ies") && length > 4) {
+            return term.substring(0, length - 3) + "y";
+        }
+        if (term.endsWith("oes") || term.endsWith("xes") || term.endsWith("ches") || term.endsWith("shes") || term.endsWith("sses")) {
+            return term.substring(0, length - 2);
+        }
+        return term.substring(0, length - 1);
+    }
+
+    private static boolean isAsciiLetters(String term) {
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            if (c < 'a' || c > 'z') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,273 @@
+package com.economicfoodexchanger.service;
+
+import com.economicfoodexchanger.bidding.BidOrderBook;
+import com.economicfoodexchanger.bidding.HashedWheelTimer;
+import com.economicfoodexchanger.sharedpost.ClosePolicy;
+import com.economicfoodexchanger.sharedpost.SharedPostChangedEvent;
+import com.economicfoodexchanger.sharedpost.SharedPostDao;
+import com.economicfoodexchanger.sharedpost.delivery.Delivery;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closes posts at their bidding deadline. Every open post with a deadline has one timeout on a
+ * HashedWheelTimer (ticks of auction.wheel.tick-ms), so tens of thousands of pending deadlines
+ * cost one bucket per tick instead of a table scan. The timeouts are rebuilt from MySQL at
+ * startup and follow post events afterwards; deadlines that passed while the application was
+ * down fire on the first tick.
+ * <p>
+ * When a deadline fires the post is read again. With close policy ACCEPT_BEST its best bid is
+ * accepted through BidAcceptanceService, like an owner would; otherwise, or without bids,
+ * bidding_closed_at is set by a conditional UPDATE. Either way the post leaves the open set
+ * (SharedPostDao.OPEN_POST), and the change event drops its order book and match entry.
+ * An acceptance that fails for another reason than the post being taken meanwhile (database
+ * trouble, a stale best bid) is tried again after auction.retry-ms, so an ACCEPT_BEST post with
+ * bids is never closed without a winner.
+ * <p>
+ * Bid intake asks isPastDeadline, so no bid gets in between the deadline and the close; an
+ * ACCEPT_BEST post only considers bids placed by its deadline.
+ * <p>
+ * Metrics: auction.deadlines.pending, auction.closed and auction.accepted.
+ */
+@Service
+public class AuctionCloseService {
+
+    private record Scheduled(LocalDateTime deadline, HashedWheelTimer.Timeout timeout) {
+    }
+
+    private enum Acceptance { ACCEPTED, NO_BIDS, TAKEN, FAILED }
+
+    private static final int DELIVERY_LOCATION_LENGTH = 45;
+
+    @Autowired
+    private SharedPostDao sharedPostDao;
+
+    @Autowired
+    private BidBookService bidBookService;
+
+    @Autowired
+    private BidAcceptanceService bidAcceptanceService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor closeExecutor;
+    private final HashedWheelTimer timer;
+    private final Map<Integer, Scheduled> scheduled = new ConcurrentHashMap<>();
+    private final long retryMs;
+    private volatile boolean loaded;
+
+    private final AtomicLong closed = new AtomicLong();
+    private final AtomicLong accepted = new AtomicLong();
+
+    public AuctionCloseService(PlatformTransactionManager transactionManager,
+                               @Value("${auction.wheel.tick-ms:1000}") long tickMs,
+                               @Value("${auction.wheel.size:4096}") int wheelSize,
+                               @Value("${auction.retry-ms:30000}") long retryMs,
+                               MeterRegistry meterRegistry) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retryMs = retryMs;
+        // Unbounded: it never holds more than the deadlines that are due, which the wheel held already
+        this.closeExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "auction-close");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.timer = new HashedWheelTimer("auction-wheel", tickMs, wheelSize, closeExecutor);
+
+        Gauge.builder("auction.deadlines.pending", timer, HashedWheelTimer::pending).register(meterRegistry);
+        FunctionCounter.builder("auction.closed", closed, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("auction.accepted", accepted, AtomicLong::get).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadDeadlines() {
+        try {
+            int count = 0;
+            for (SharedPostDao.DeadlineProjection post : sharedPostDao.findOpenDeadlines()) {
+                schedule(post.getId(), post.getDeadline());
+                count++;
+            }
+            loaded = true;
+            System.out.println("Auction deadlines scheduled for " + count + " open posts");
+        } catch (RuntimeException e) {
+            System.err.println("Auction deadline load failed: " + e.getMessage());
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    // True from the deadline of an open post until it is closed or its bid accepted
+    public boolean isPastDeadline(Integer postId) {
+        Scheduled current = scheduled.get(postId);
+        return current != null && !current.deadline.isAfter(LocalDateTime.now());
+    }
+
+    // New and edited posts get their deadline (re)scheduled, posts that are no longer open lose it
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostChanged(SharedPostChangedEvent event) {
+        Integer postId = event.postId();
+        if (postId == null) {
+            return;
+        }
+        if (event.change() == SharedPostChangedEvent.Change.CONFIRMED
+                || event.change() == SharedPostChangedEvent.Change.CLOSED) {
+            unschedule(postId);
+            return;
+        }
+        try {
+            sharedPostDao.findOpenDeadlineById(postId).ifPresentOrElse(post -> {
+                Scheduled current = scheduled.get(postId);
+                if (current == null || !current.deadline.equals(post.getDeadline())) {
+                    schedule(postId, post.getDeadline());
+                }
+            }, () -> unschedule(postId));
+        } catch (RuntimeException e) {
+            System.err.println("Could not schedule the deadline of post " + postId + ": " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.stop();
+        closeExecutor.shutdownNow();
+    }
+
+    private void schedule(Integer postId, LocalDateTime deadline) {
+        schedule(postId, deadline, Math.max(0, Duration.between(LocalDateTime.now(), deadline).toMillis()));
+    }
+
+    // Fires onDeadline again for the same deadline after auction.retry-ms
+    private void retry(Integer postId, LocalDateTime deadline) {
+        schedule(postId, deadline, retryMs);
+    }
+
+    private void schedule(Integer postId, LocalDateTime deadline, long delayMs) {
+        HashedWheelTimer.Timeout timeout = timer.schedule(() -> onDeadline(postId, deadline), delayMs);
+        Scheduled previous = scheduled.put(postId, new Scheduled(deadline, timeout));
+        if (previous != null) {
+            previous.timeout.cancel();
+        }
+    }
+
+    private void unschedule(Integer postId) {
+        Scheduled previous = scheduled.remove(postId);
+        if (previous != null) {
+            previous.timeout.cancel();
+        }
+    }
+
+    // On auction-close; the post is read again, since it may have changed after it was scheduled
+    // The entry stays in scheduled until the post is settled, which keeps isPastDeadline true meanwhile
+    private void onDeadline(Integer postId, LocalDateTime deadline) {
+        try {
+            SharedPostDao.DeadlineProjection post = sharedPostDao.findOpenDeadlineById(postId).orElse(null);
+            if (post == null) {
+                forget(postId, deadline);
+                return;
+            }
+            if (post.getDeadline().isAfter(LocalDateTime.now())) {
+                // Extended without an event reaching this instance
+                schedule(postId, post.getDeadline());
+                return;
+            }
+            if (ClosePolicy.ACCEPT_BEST.name().equals(post.getClosePolicy())) {
+                switch (acceptBest(postId, post.getDeadline())) {
+                    case ACCEPTED -> {
+                        accepted.incrementAndGet();
+                        forget(postId, deadline);
+                        return;
+                    }
+                    case TAKEN -> {
+                        // Confirmed by its owner or closed meanwhile: no longer open, nothing to close
+                        forget(postId, deadline);
+                        return;
+                    }
+                    case FAILED -> {
+                        retry(postId, deadline);
+                        return;
+                    }
+                    case NO_BIDS -> {
+                        // Closed without a winner below
+                    }
+                }
+            }
+            close(postId);
+            forget(postId, deadline);
+        } catch (RuntimeException e) {
+            System.err.println("Could not close post " + postId + " at its deadline, retrying: " + e.getMessage());
+            retry(postId, deadline);
+        }
+    }
+
+    private void forget(Integer postId, LocalDateTime deadline) {
+        scheduled.computeIfPresent(postId, (id, current) -> current.deadline.equals(deadline) ? null : current);
+    }
+
+    // Bids stored after the deadline (before intake saw it pass) do not count
+    private Acceptance acceptBest(Integer postId, LocalDateTime deadline) {
+        BidOrderBook.Bid best = bidBookService.bestBidPlacedBy(postId, deadline);
+        if (best == null) {
+            return Acceptance.NO_BIDS;
+        }
+        Delivery delivery = new Delivery();
+        String location = best.deliveryLocation();
+        delivery.setLocation(location == null || location.length() <= DELIVERY_LOCATION_LENGTH
+                ? location : location.substring(0, DELIVERY_LOCATION_LENGTH));
+        delivery.setDescription("Accepted automatically at the bidding deadline");
+        try {
+            bidAcceptanceService.acceptBid(postId, best.id(), delivery);
+            return Acceptance.ACCEPTED;
+        } catch (ResponseStatusException e) {
+            if (HttpStatus.CONFLICT.equals(e.getStatusCode())) {
+                // confirmIfOpen lost: an owner accepted at the same moment, or the post was closed
+                return Acceptance.TAKEN;
+            }
+            // The best bid was confirmed or removed after the book was read
+            System.err.println("Could not accept bid " + best.id() + " on post " + postId + ", retrying: " + e.getReason());
+            return Acceptance.FAILED;
+        } catch (RuntimeException e) {
+            System.err.println("Could not accept bid " + best.id() + " on post " + postId + ", retrying: " + e.getMessage());
+            return Acceptance.FAILED;
+        }
+    }
+
+    private void close(Integer postId) {
+        Integer updated = transactionTemplate.execute(status -> {
+            int count = sharedPostDao.closeIfExpired(postId, LocalDateTime.now());
+            if (count > 0) {
+                eventPublisher.publishEvent(new SharedPostChangedEvent(postId, SharedPostChangedEvent.Change.CLOSED));
+            }
+            return count;
+        });
+        if (updated != null && updated > 0) {
+            closed.incrementAndGet();
+        }
+    }
+}
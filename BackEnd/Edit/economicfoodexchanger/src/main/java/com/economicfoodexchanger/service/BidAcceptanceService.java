@@ -0,0 +1,106 @@
+package com.economicfoodexchanger.service;
+
+import com.economicfoodexchanger.sharedpost.BidChangedEvent;
+import com.economicfoodexchanger.sharedpost.BitDetailsDao;
+import com.economicfoodexchanger.sharedpost.SharedPostChangedEvent;
+import com.economicfoodexchanger.sharedpost.SharedPostDao;
+import com.economicfoodexchanger.sharedpost.delivery.Delivery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Accepting a bid: confirms the post and the bid and creates the delivery with its payment and
+ * first status, all in one transaction, for exactly one caller per post.
+ * <p>
+ * The database is the arbiter: the post is confirmed with a conditional UPDATE that only succeeds
+ * while it is still open, and the bid with one that only succeeds while it is pending. Only a
+ * caller whose UPDATE affects no row gets 409, whether it lost to a concurrent click, a
+ * double-submit after the first commit or another application instance.
+ * <p>
+ * A striped lock in front of that is an optimisation only: concurrent clicks on the same post
+ * usually queue on it instead of on the InnoDB row lock. Posts share stripes, so a caller that
+ * does not get its stripe within bids.accept.lock-wait-ms goes ahead without it rather than
+ * failing because of an unrelated post.
+ */
+@Service
+public class BidAcceptanceService {
+
+    @Autowired
+    private SharedPostDao sharedPostDao;
+
+    @Autowired
+    private BitDetailsDao bitDetailsDao;
+
+    @Autowired
+    private DeliveryService deliveryService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final TransactionTemplate transactionTemplate;
+    private final ReentrantLock[] stripes;
+    private final long lockWaitMs;
+
+    public BidAcceptanceService(PlatformTransactionManager transactionManager,
+                                @Value("${bids.accept.lock-stripes:256}") int stripeCount,
+                                @Value("${bids.accept.lock-wait-ms:100}") long lockWaitMs) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.lockWaitMs = lockWaitMs;
+    }
+
+    public Delivery acceptBid(Integer postId, Integer bidId, Delivery delivery) {
+        if (postId == null || bidId == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sharedpostid and bitid are required");
+        }
+        ReentrantLock lock = stripes[Math.floorMod(postId.hashCode(), stripes.length)];
+        boolean locked;
+        try {
+            locked = lock.tryLock(lockWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            locked = false;
+        }
+        // Held until after commit, so the next caller for this post sees the committed state
+        try {
+            return transactionTemplate.execute(status -> acceptInTransaction(postId, bidId, delivery));
+        } finally {
+            if (locked) {
+                lock.unlock();
+            }
+        }
+    }
+
+    private Delivery acceptInTransaction(Integer postId, Integer bidId, Delivery delivery) {
+        if (sharedPostDao.confirmIfOpen(postId) == 0) {
+            if (!sharedPostDao.existsById(postId)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Post not found: " + postId);
+            }
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Post " + postId + " already has an accepted bid or is closed");
+        }
+        // Exceptions from here on roll the post update back as well
+        if (bitDetailsDao.confirmIfPending(bidId, postId) == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No pending bid " + bidId + " on post " + postId);
+        }
+
+        Delivery saved = deliveryService.createInitialDelivery(delivery, sharedPostDao.getReferenceById(postId));
+
+        // Delivered after commit, and not at all on rollback
+        eventPublisher.publishEvent(new SharedPostChangedEvent(postId, SharedPostChangedEvent.Change.CONFIRMED));
+        bitDetailsDao.findBookRowById(bidId).ifPresent(bid -> eventPublisher.publishEvent(new BidChangedEvent(
+                bidId, postId, BidChangedEvent.Change.CONFIRMED, bid.getBitrate(), bid.getNeedamount())));
+        return saved;
+    }
+}
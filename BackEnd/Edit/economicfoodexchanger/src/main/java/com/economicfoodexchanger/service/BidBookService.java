@@ -0,0 +1,196 @@
+package com.economicfoodexchanger.service;
+
+import com.economicfoodexchanger.UserDao;
+import com.economicfoodexchanger.bidding.BidOrderBook;
+import com.economicfoodexchanger.dto.BidBookDto;
+import com.economicfoodexchanger.dto.BidSummaryDto;
+import com.economicfoodexchanger.matching.PostMatchIndex;
+import com.economicfoodexchanger.sharedpost.BidChangedEvent;
+import com.economicfoodexchanger.sharedpost.BitDetailsDao;
+import com.economicfoodexchanger.sharedpost.SharedPostChangedEvent;
+import com.economicfoodexchanger.sharedpost.SharedPostDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bid order books. Open posts are answered from BidOrderBook, which is loaded at startup and
+ * kept current from bid and post events; closed posts are read from MySQL on demand.
+ * <p>
+ * A new bid that comes with its bidder (the batched intake) is added from the event alone; the
+ * bidder's name comes from a map filled whenever bid rows are read, so a batch costs no SELECT
+ * per bid on the thread that stored it. A renamed bidder shows the old name on newly added bids
+ * until that post's book is next rebuilt.
+ */
+@Service
+public class BidBookService {
+
+    public static final int DEFAULT_TOP = 10;
+    public static final int MAX_TOP = 50;
+
+    @Autowired
+    private BitDetailsDao bitDetailsDao;
+
+    @Autowired
+    private SharedPostDao sharedPostDao;
+
+    @Autowired
+    private BidOrderBook bidOrderBook;
+
+    @Autowired
+    private UserDao userDao;
+
+    // Bidder id to name, for bids added from events
+    private final Map<Integer, String> bidderNames = new ConcurrentHashMap<>();
+
+    public BidBookDto getBook(Integer postId, Integer top) {
+        int topCount = top == null ? DEFAULT_TOP : Math.max(0, Math.min(top, MAX_TOP));
+
+        BidOrderBook.Book book = bidOrderBook.book(postId);
+        if (book == null) {
+            SharedPostDao.PostCategoryProjection post = sharedPostDao.findPostCategoryById(postId)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Post not found: " + postId));
+            book = BidOrderBook.Book.of(postId, directionOf(post.getCategory()), loadBids(postId));
+        }
+
+        BidBookDto dto = new BidBookDto();
+        dto.setPostId(postId);
+        dto.setBidCount(book.count());
+        dto.setBestBid(book.best() == null ? null : toDto(book.best()));
+        List<BidSummaryDto> topBids = new ArrayList<>();
+        for (BidOrderBook.Bid bid : book.top(topCount)) {
+            topBids.add(toDto(bid));
+        }
+        dto.setTopBids(topBids);
+        dto.setHighestRate(book.highestRate());
+        dto.setLowestRate(book.lowestRate());
+        dto.setSpread(book.spread());
+        dto.setConfirmedBidId(book.confirmedBidId());
+        return dto;
+    }
+
+    // Best pending bid placed by the deadline; read from MySQL, since the book does not know when bids came in
+    public BidOrderBook.Bid bestBidPlacedBy(Integer postId, LocalDateTime deadline) {
+        SharedPostDao.PostCategoryProjection post = sharedPostDao.findPostCategoryById(postId).orElse(null);
+        if (post == null) {
+            return null;
+        }
+        List<BidOrderBook.Bid> bids = new ArrayList<>();
+        for (BitDetailsDao.BookRowProjection row : bitDetailsDao.findBookRowsByPostIdPlacedBy(postId, deadline)) {
+            bids.add(toBid(row));
+        }
+        return BidOrderBook.Book.of(postId, directionOf(post.getCategory()), bids).best();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadBooks() {
+        try {
+            Map<Integer, BidOrderBook.Direction> openPosts = new HashMap<>();
+            for (SharedPostDao.PostCategoryProjection post : sharedPostDao.findOpenPostCategories()) {
+                openPosts.put(post.getId(), directionOf(post.getCategory()));
+            }
+            List<BidOrderBook.Bid> bids = new ArrayList<>();
+            for (BitDetailsDao.BookRowProjection row : bitDetailsDao.findOpenBookRows()) {
+                bids.add(toBid(row));
+            }
+            bidOrderBook.replaceAll(openPosts, bids);
+            System.out.println("Bid order books loaded for " + openPosts.size() + " open posts, " + bids.size() + " bids");
+        } catch (RuntimeException e) {
+            System.err.println("Bid order book load failed: " + e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBidChanged(BidChangedEvent event) {
+        try {
+            if (event.change() == BidChangedEvent.Change.ADDED && event.bidderId() != null) {
+                // While loading there is no book yet; the order book keeps the bid until it is
+                if (!bidOrderBook.isLoaded() || bidOrderBook.book(event.postId()) != null) {
+                    bidOrderBook.add(new BidOrderBook.Bid(event.bidId(), event.postId(), event.bitrate(),
+                            event.needamount(), event.deliveryLocation(), event.bidderId(),
+                            bidderName(event.bidderId()), false));
+                }
+            } else if (event.change() == BidChangedEvent.Change.ADDED) {
+                bitDetailsDao.findBookRowById(event.bidId()).ifPresent(row -> bidOrderBook.add(toBid(row)));
+            } else if (event.postId() != null) {
+                bidOrderBook.confirm(event.postId(), event.bidId());
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Could not apply bid " + event.bidId() + " to its order book: " + e.getMessage());
+        }
+    }
+
+    // New and edited posts get a (re)built book, closed posts lose theirs
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostChanged(SharedPostChangedEvent event) {
+        Integer postId = event.postId();
+        if (postId == null) {
+            return;
+        }
+        try {
+            sharedPostDao.findOpenPostCategoryById(postId).ifPresentOrElse(
+                    post -> bidOrderBook.replacePost(postId, directionOf(post.getCategory()), loadBids(postId)),
+                    () -> bidOrderBook.remove(postId));
+        } catch (RuntimeException e) {
+            System.err.println("Could not refresh the order book of post " + postId + ": " + e.getMessage());
+        }
+    }
+
+    private List<BidOrderBook.Bid> loadBids(Integer postId) {
+        List<BidOrderBook.Bid> bids = new ArrayList<>();
+        for (BitDetailsDao.BookRowProjection row : bitDetailsDao.findBookRowsByPostId(postId)) {
+            bids.add(toBid(row));
+        }
+        return bids;
+    }
+
+    // One SELECT per bidder not seen yet, not per bid
+    private String bidderName(Integer bidderId) {
+        String name = bidderNames.get(bidderId);
+        if (name == null) {
+            name = userDao.findNameById(bidderId).orElse(null);
+            if (name != null) {
+                bidderNames.put(bidderId, name);
+            }
+        }
+        return name;
+    }
+
+    // Bids on a buying post are offers to sell, where the cheapest is best
+    private static BidOrderBook.Direction directionOf(String category) {
+        return PostMatchIndex.sideOf(category) == PostMatchIndex.Side.BUYING
+                ? BidOrderBook.Direction.LOWEST_FIRST : BidOrderBook.Direction.HIGHEST_FIRST;
+    }
+
+    private BidOrderBook.Bid toBid(BitDetailsDao.BookRowProjection row) {
+        if (row.getBidderId() != null && row.getBidderName() != null) {
+            bidderNames.put(row.getBidderId(), row.getBidderName());
+        }
+        return new BidOrderBook.Bid(row.getId(), row.getPostId(), row.getBitrate(), row.getNeedamount(),
+                row.getDeliveryLocation(), row.getBidderId(), row.getBidderName(),
+                row.getConfirmedFlag() != null && row.getConfirmedFlag() == 1);
+    }
+
+    private static BidSummaryDto toDto(BidOrderBook.Bid bid) {
+        BidSummaryDto dto = new BidSummaryDto();
+        dto.setId(bid.id());
+        dto.setBitrate(bid.bitrate());
+        dto.setNeedamount(bid.needamount());
+        dto.setDeliveryLocation(bid.deliveryLocation());
+        dto.setBidderId(bid.bidderId());
+        dto.setBidderName(bid.bidderName());
+        dto.setConfirmed(bid.confirmed());
+        return dto;
+    }
+}
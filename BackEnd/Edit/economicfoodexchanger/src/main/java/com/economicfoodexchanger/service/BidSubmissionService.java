@@ -0,0 +1,75 @@
+package com.economicfoodexchanger.service;
+
+import com.economicfoodexchanger.bidding.BidIngestionQueue;
+import com.economicfoodexchanger.bidding.BidOrderBook;
+import com.economicfoodexchanger.sharedpost.BitDetails;
+import com.economicfoodexchanger.sharedpost.SharedPostDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Validates bids for the batched intake and hands them to BidIngestionQueue. Everything is
+ * checked before a bid is queued, so a queued bid only fails to store when the database does.
+ */
+@Service
+public class BidSubmissionService {
+
+    // Same bidder as /bitdetails/addbit until requests carry the logged-in user
+    private static final Integer BIDDER_ID = 1;
+
+    @Autowired
+    private BidIngestionQueue bidIngestionQueue;
+
+    @Autowired
+    private BidOrderBook bidOrderBook;
+
+    @Autowired
+    private SharedPostDao sharedPostDao;
+
+    @Autowired
+    private AuctionCloseService auctionCloseService;
+
+    public CompletableFuture<Integer> submit(Integer postId, BitDetails bid) {
+        if (bid.getBitrate() == null || bid.getBitrate().signum() <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "bitrate must be a positive amount");
+        }
+        if (bid.getNeedamount() != null && bid.getNeedamount().signum() < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "needamount must not be negative");
+        }
+        if (!fits(bid.getBitrate()) || (bid.getNeedamount() != null && !fits(bid.getNeedamount()))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Amounts are limited to 8 digits and 2 decimals");
+        }
+        if (bid.getDeliverylocation() != null && bid.getDeliverylocation().length() > 45) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "deliverylocation is limited to 45 characters");
+        }
+        if (bid.getBitdetailscol() != null && bid.getBitdetailscol().length() > 255) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "bitdetailscol is limited to 255 characters");
+        }
+
+        // Open posts have an order book and deadlines are on the auction wheel; the database is only
+        // asked while those are loading
+        if (bidOrderBook.isLoaded() && auctionCloseService.isLoaded()) {
+            if (bidOrderBook.book(postId) == null || auctionCloseService.isPastDeadline(postId)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Post " + postId + " does not exist or is not open for bids");
+            }
+        } else if (sharedPostDao.countTakingBidsById(postId) == 0) {
+            if (!sharedPostDao.existsById(postId)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Post not found: " + postId);
+            }
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Post " + postId + " is not open for bids");
+        }
+
+        return bidIngestionQueue.submit(new BidIngestionQueue.PendingBid(postId, BIDDER_ID, bid.getBitrate(),
+                bid.getNeedamount(), bid.getBitdetailscol(), bid.getDeliverylocation()));
+    }
+
+    // bitdetails.bitrate and needamount are DECIMAL(10,2)
+    private static boolean fits(BigDecimal amount) {
+        return amount.scale() <= 2 && amount.precision() - amount.scale() <= 8;
+    }
+}
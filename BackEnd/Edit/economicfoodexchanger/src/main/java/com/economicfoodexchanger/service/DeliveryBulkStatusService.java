@@ -0,0 +1,143 @@
+package com.economicfoodexchanger.service;
+
+import com.economicfoodexchanger.dto.StatusUpdateResultDto;
+import com.economicfoodexchanger.dto.UpdateStatusRequest;
+import com.economicfoodexchanger.sharedpost.delivery.DeliveryDao;
+import com.economicfoodexchanger.sharedpost.delivery.DeliveryStatusChangedEvent;
+import com.economicfoodexchanger.sharedpost.delivery.DeliveryStaus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Many delivery status changes in one transaction. Status ids are checked against
+ * DeliveryStatusCache and delivery ids with one IN query; the valid items are then written as
+ * two JDBC batches, the history rows and the current-status updates (see
+ * DeliveryService.recordStatusChange for the single-item path). With rewriteBatchedStatements
+ * each batch is one round trip, however many items it has.
+ * <p>
+ * Invalid items are reported and skipped, the rest are stored. A database error rolls back the
+ * whole request.
+ */
+@Service
+public class DeliveryBulkStatusService {
+
+    private static final String INSERT_HISTORY = "INSERT INTO delivery_status_history " +
+            "(status_date_change, delivery_staus_id, delivery_id) VALUES (?, ?, ?)";
+    // Same condition as DeliveryDao.advanceCurrentStatus: only ever forward in time
+    private static final String ADVANCE_CURRENT_STATUS = "UPDATE delivery SET current_status_id = ?, current_status_at = ? " +
+            "WHERE id = ? AND (current_status_at IS NULL OR current_status_at <= ?)";
+    // Device clocks drift; changes stamped further ahead than this are refused
+    private static final Duration MAX_CLOCK_SKEW = Duration.ofMinutes(5);
+
+    private record Change(Integer deliveryId, Integer postId, DeliveryStaus status, LocalDateTime changedAt) {
+    }
+
+    @Autowired
+    private DeliveryDao deliveryDao;
+
+    @Autowired
+    private DeliveryStatusCache deliveryStatusCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final int maxItems;
+
+    public DeliveryBulkStatusService(@Value("${delivery.bulk.max-items:1000}") int maxItems) {
+        this.maxItems = maxItems;
+    }
+
+    // One result per request item, in the same order
+    @Transactional
+    public List<StatusUpdateResultDto> updateStatuses(List<UpdateStatusRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No status updates given");
+        }
+        if (requests.size() > maxItems) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + maxItems + " status updates per request");
+        }
+
+        Set<Integer> deliveryIds = new HashSet<>();
+        for (UpdateStatusRequest request : requests) {
+            if (request != null && request.getDeliveryId() != null) {
+                deliveryIds.add(request.getDeliveryId());
+            }
+        }
+        Map<Integer, Integer> postIds = new HashMap<>();
+        if (!deliveryIds.isEmpty()) {
+            for (DeliveryDao.DeliveryPostProjection row : deliveryDao.findPostIdsByIdIn(deliveryIds)) {
+                postIds.put(row.getId(), row.getPostId());
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<StatusUpdateResultDto> results = new ArrayList<>(requests.size());
+        List<Change> changes = new ArrayList<>(requests.size());
+        for (UpdateStatusRequest request : requests) {
+            Integer deliveryId = request == null ? null : request.getDeliveryId();
+            Integer statusId = request == null ? null : request.getStatusId();
+            DeliveryStaus status = deliveryStatusCache.find(statusId);
+            LocalDateTime changedAt = request == null || request.getChangedAt() == null ? now : request.getChangedAt();
+            String error = null;
+            if (deliveryId == null || statusId == null) {
+                error = "DeliveryId and StatusId are required";
+            } else if (status == null) {
+                error = "Delivery status not found with ID: " + statusId;
+            } else if (!postIds.containsKey(deliveryId)) {
+                error = "Delivery not found with ID: " + deliveryId;
+            } else if (changedAt.isAfter(now.plus(MAX_CLOCK_SKEW))) {
+                error = "changedAt is in the future: " + changedAt;
+            }
+            if (error == null) {
+                changes.add(new Change(deliveryId, postIds.get(deliveryId), status, changedAt));
+            }
+            results.add(new StatusUpdateResultDto(deliveryId, statusId, error == null, error));
+        }
+
+        if (!changes.isEmpty()) {
+            write(changes);
+            // Delivered after commit, one per history row like single updates
+            for (Change change : changes) {
+                eventPublisher.publishEvent(new DeliveryStatusChangedEvent(change.deliveryId, change.postId,
+                        change.status.getId(), change.status.getName(), change.changedAt));
+            }
+        }
+        System.out.println("Bulk delivery status update: " + changes.size() + " of " + requests.size() + " stored");
+        return results;
+    }
+
+    // In request order, so several changes to one delivery end at the latest of them
+    private void write(List<Change> changes) {
+        jdbcTemplate.batchUpdate(INSERT_HISTORY, changes, changes.size(), (statement, change) -> {
+            statement.setTimestamp(1, Timestamp.valueOf(change.changedAt));
+            statement.setInt(2, change.status.getId());
+            statement.setInt(3, change.deliveryId);
+        });
+        jdbcTemplate.batchUpdate(ADVANCE_CURRENT_STATUS, changes, changes.size(), (statement, change) -> {
+            Timestamp changedAt = Timestamp.valueOf(change.changedAt);
+            statement.setInt(1, change.status.getId());
+            statement.setTimestamp(2, changedAt);
+            statement.setInt(3, change.deliveryId);
+            statement.setTimestamp(4, changedAt);
+        });
+    }
+}
@@ -1,7 +1,15 @@
 package com.economicfoodexchanger.service;
 
 import com.economicfoodexchanger.dto.DeliveryResponseDto;
+import com.economicfoodexchanger.dto.DeliveryStatusListItemDto;
 import com.economicfoodexchanger.dto.DeliveryWithStatusDto;
+import com.economicfoodexchanger.dto.PaymentSummaryDto;
+import com.economicfoodexchanger.dto.PostSummaryDto;
+import com.economicfoodexchanger.media.MediaSize;
+import com.economicfoodexchanger.media.MediaStore;
+import com.economicfoodexchanger.sharedpost.CategoreyStatus;
+import com.economicfoodexchanger.sharedpost.MediaContainer;
+import com.economicfoodexchanger.sharedpost.PostMediaDao;
 import com.economicfoodexchanger.sharedpost.SharedPost;
 import com.economicfoodexchanger.sharedpost.SharedPostDao;
 import com.economicfoodexchanger.sharedpost.delivery.*;
@@ -10,17 +18,24 @@ import com.economicfoodexchanger.sharedpost.payment.PaymentDao;
 import com.economicfoodexchanger.sharedpost.payment.PaymentType;
 import com.economicfoodexchanger.sharedpost.payment.PaymentTypeDao;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class DeliveryService {
 
+    public static final int DEFAULT_LIST_SIZE = 20;
+    public static final int MAX_LIST_SIZE = 100;
+    private static final int MAX_THUMBNAILS = 4;
+
     @Autowired
     private DeliveryDao deliveryDao;
 
@@ -39,29 +54,28 @@ public class DeliveryService {
     @Autowired
     private DeliveryStatusHistoryDao deliveryStatusHistoryDao;
 
+    @Autowired
+    private PostMediaDao postMediaDao;
+
+    @Autowired
+    private MediaStore mediaStore;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Transactional(readOnly = true)
     public DeliveryResponseDto getDeliveryByPostId(Integer postId) {
-        SharedPost sharedPost = sharedPostDao.findById(postId)
-            .orElseThrow(() -> new ResponseStatusException(
-                org.springframework.http.HttpStatus.NOT_FOUND, 
-                "SharedPost with ID " + postId + " not found"));
-        
-        Delivery delivery = deliveryDao.findBysharedPost(sharedPost);
-        if (delivery == null) {
-            throw new ResponseStatusException(
-                org.springframework.http.HttpStatus.NOT_FOUND, 
-                "Delivery not found for post ID " + postId);
-        }
-        
-        return convertToDto(delivery);
+        return convertToDto(findCardByPostId(postId));
     }
 
+    @Transactional(readOnly = true)
     public DeliveryResponseDto getDeliveryById(Integer id) {
-        Delivery delivery = deliveryDao.findById(id)
+        DeliveryDao.CardProjection card = deliveryDao.findCardById(id)
             .orElseThrow(() -> new ResponseStatusException(
                 org.springframework.http.HttpStatus.NOT_FOUND, 
                 "Delivery with ID " + id + " not found"));
         
-        return convertToDto(delivery);
+        return convertToDto(card);
     }
 
     @Transactional
@@ -86,13 +100,7 @@ public class DeliveryService {
         
         System.out.println("Found delivery: " + delivery.getId() + ", New status: " + newStatus.getName());
         
-        // Create and save the history record directly instead of using the helper method
-        DeliveryStatusHistory history = new DeliveryStatusHistory();
-        history.setDelivery(delivery);
-        history.setDeliveryStaus(newStatus);
-        history.setStatusDateChange(LocalDateTime.now());
-        
-        deliveryStatusHistoryDao.save(history);
+        recordStatusChange(delivery, newStatus, LocalDateTime.now());
         
         System.out.println("Successfully updated delivery status. Delivery ID: " + delivery.getId());
     }
@@ -102,27 +110,33 @@ public class DeliveryService {
     }
 
     public DeliveryStatusHistory getCurrentStatus(Integer deliveryId) {
-        return deliveryStatusHistoryDao.findCurrentStatusByDeliveryId(deliveryId);
+        return deliveryStatusHistoryDao.findFirstByDeliveryIdOrderByStatusDateChangeDescIdDesc(deliveryId);
     }
 
-    public DeliveryWithStatusDto getDeliveryWithStatus(Integer postId) {
-        SharedPost sharedPost = sharedPostDao.findById(postId)
-            .orElseThrow(() -> new ResponseStatusException(
-                org.springframework.http.HttpStatus.NOT_FOUND, 
-                "SharedPost with ID " + postId + " not found"));
-        
-        Delivery delivery = deliveryDao.findBysharedPost(sharedPost);
-        if (delivery == null) {
-            throw new ResponseStatusException(
-                org.springframework.http.HttpStatus.NOT_FOUND, 
-                "Delivery not found for post ID " + postId);
+    // Deliveries whose current status is statusId, most recently changed first
+    public List<DeliveryStatusListItemDto> getDeliveriesByStatus(Integer statusId, Integer page, Integer size) {
+        int pageSize = size == null ? DEFAULT_LIST_SIZE : Math.max(1, Math.min(size, MAX_LIST_SIZE));
+        int offset = Math.max(0, page == null ? 0 : page) * pageSize;
+        List<DeliveryStatusListItemDto> items = new ArrayList<>();
+        for (DeliveryDao.StatusListProjection row : deliveryDao.findByCurrentStatus(statusId, pageSize, offset)) {
+            DeliveryStatusListItemDto item = new DeliveryStatusListItemDto();
+            item.setId(row.getId());
+            item.setTrackingNumber(row.getTrackingNumber());
+            item.setPostId(row.getPostId());
+            item.setStatusId(row.getStatusId());
+            item.setStatus(row.getStatus());
+            item.setStatusChangedAt(row.getStatusChangedAt());
+            items.add(item);
         }
-        
-        // Convert to DTO to avoid lazy loading issues
-        DeliveryResponseDto deliveryDto = convertToDto(delivery);
-        
-        DeliveryStatusHistory currentStatus = deliveryStatusHistoryDao.findCurrentStatusByDeliveryId(delivery.getId());
-        List<DeliveryStatusHistory> statusHistory = deliveryStatusHistoryDao.findByDeliveryIdOrderByStatusDateChangeDesc(delivery.getId());
+        return items;
+    }
+
+    @Transactional(readOnly = true)
+    public DeliveryWithStatusDto getDeliveryWithStatus(Integer postId) {
+        // The DTO's history is newest first
+        DeliveryResponseDto deliveryDto = convertToDto(findCardByPostId(postId));
+        List<DeliveryStatusHistory> statusHistory = deliveryDto.getStatusHistory();
+        DeliveryStatusHistory currentStatus = statusHistory.isEmpty() ? null : statusHistory.get(0);
         
         return new DeliveryWithStatusDto(deliveryDto, currentStatus, statusHistory);
     }
@@ -139,16 +153,13 @@ public class DeliveryService {
                 .orElseThrow(() -> new ResponseStatusException(
                     org.springframework.http.HttpStatus.NOT_FOUND, 
                     "Delivery status with ID 1 not found"));
-            
+            LocalDateTime now = LocalDateTime.now();
+
             // Save delivery first
             Delivery savedDelivery = deliveryDao.save(delivery);
-            
-            // Then create the initial status history
-            DeliveryStatusHistory history = new DeliveryStatusHistory();
-            history.setDelivery(savedDelivery);
-            history.setDeliveryStaus(initialStatus);
-            history.setStatusDateChange(LocalDateTime.now());
-            deliveryStatusHistoryDao.save(history);
+
+            // Then the initial status history and current status (read-only on the entity)
+            recordStatusChange(savedDelivery, initialStatus, now);
             
             return savedDelivery;
         } else {
@@ -176,25 +187,108 @@ public class DeliveryService {
         }
     }
 
-    private DeliveryResponseDto convertToDto(Delivery delivery) {
+    // History row and materialized current status in the caller's transaction
+    private void recordStatusChange(Delivery delivery, DeliveryStaus status, LocalDateTime changedAt) {
+        DeliveryStatusHistory history = new DeliveryStatusHistory();
+        history.setDelivery(delivery);
+        history.setDeliveryStaus(status);
+        history.setStatusDateChange(changedAt);
+        deliveryStatusHistoryDao.save(history);
+        deliveryDao.advanceCurrentStatus(delivery.getId(), status.getId(), changedAt);
+        publishStatusChange(history);
+    }
+
+    // Delivered to listeners after the surrounding transaction commits
+    private void publishStatusChange(DeliveryStatusHistory history) {
+        Delivery delivery = history.getDelivery();
+        DeliveryStaus status = history.getDeliveryStaus();
+        eventPublisher.publishEvent(new DeliveryStatusChangedEvent(delivery.getId(),
+                delivery.getSharedPost() != null ? delivery.getSharedPost().getId() : null,
+                status.getId(), status.getName(), history.getStatusDateChange()));
+    }
+
+    private DeliveryDao.CardProjection findCardByPostId(Integer postId) {
+        Optional<DeliveryDao.CardProjection> card = deliveryDao.findCardByPostId(postId);
+        if (card.isPresent()) {
+            return card.get();
+        }
+        if (!sharedPostDao.existsById(postId)) {
+            throw new ResponseStatusException(
+                org.springframework.http.HttpStatus.NOT_FOUND, 
+                "SharedPost with ID " + postId + " not found");
+        }
+        throw new ResponseStatusException(
+            org.springframework.http.HttpStatus.NOT_FOUND, 
+            "Delivery not found for post ID " + postId);
+    }
+
+    // Three queries: the card row, the status history and the post's media
+    private DeliveryResponseDto convertToDto(DeliveryDao.CardProjection card) {
         DeliveryResponseDto dto = new DeliveryResponseDto();
-        dto.setId(delivery.getId());
-        dto.setTrackingNumber(delivery.getTrackingNumber());
-        dto.setLocation(delivery.getLocation());
-        dto.setCurrentPackageLocation(delivery.getCurrentPackageLocation());
-        dto.setDeliveryCompany(delivery.getDeliveryCompany());
-        dto.setDescription(delivery.getDescription());
-        dto.setPayment(delivery.getPayment());
-        dto.setSharedPost(delivery.getSharedPost());
-        
-        DeliveryStatusHistory currentStatus = deliveryStatusHistoryDao.findCurrentStatusByDeliveryId(delivery.getId());
-        if (currentStatus != null) {
-            dto.setCurrentStatus(currentStatus.getDeliveryStaus());
+        dto.setId(card.getId());
+        dto.setTrackingNumber(card.getTrackingNumber());
+        dto.setLocation(card.getLocation());
+        dto.setCurrentPackageLocation(card.getCurrentPackageLocation());
+        dto.setDeliveryCompany(card.getDeliveryCompany());
+        dto.setDescription(card.getDescription());
+        if (card.getStatusId() != null) {
+            dto.setCurrentStatus(new DeliveryStaus(card.getStatusId(), card.getStatusName()));
+        }
+        if (card.getPaymentId() != null) {
+            dto.setPayment(toPaymentSummary(card));
+        }
+        if (card.getPostId() != null) {
+            dto.setSharedPost(toPostSummary(card));
         }
         
-        List<DeliveryStatusHistory> statusHistory = deliveryStatusHistoryDao.findByDeliveryIdOrderByStatusDateChangeDesc(delivery.getId());
+        List<DeliveryStatusHistory> statusHistory = deliveryStatusHistoryDao.findByDeliveryIdOrderByStatusDateChangeDesc(card.getId());
         dto.setStatusHistory(statusHistory);
         
         return dto;
     }
+
+    private PaymentSummaryDto toPaymentSummary(DeliveryDao.CardProjection card) {
+        PaymentSummaryDto payment = new PaymentSummaryDto();
+        payment.setId(card.getPaymentId());
+        payment.setAmount(card.getPaymentAmount());
+        payment.setNote(card.getPaymentNote());
+        payment.setStatus(card.getPaymentStatusFlag() != null && card.getPaymentStatusFlag() != 0);
+        payment.setFiletype(card.getPaymentFiletype());
+        if (card.getPaymentTypeId() != null) {
+            payment.setPaymentType(new PaymentType(card.getPaymentTypeId(), card.getPaymentTypeName()));
+        }
+        // Files stored before the MediaStore are still in the row; newer ones are sized by key
+        long fileSize = card.getPaymentLegacyFileSize() != null && card.getPaymentLegacyFileSize() > 0
+                ? card.getPaymentLegacyFileSize()
+                : card.getPaymentFileHash() != null ? Math.max(0, mediaStore.size(card.getPaymentFileHash())) : 0;
+        payment.setHasFile(fileSize > 0);
+        payment.setFileSize(fileSize);
+        payment.setFileUrl(fileSize > 0 ? "/payment/file/" + card.getPaymentId() : null);
+        return payment;
+    }
+
+    private PostSummaryDto toPostSummary(DeliveryDao.CardProjection card) {
+        PostSummaryDto post = new PostSummaryDto();
+        post.setId(card.getPostId());
+        post.setTitle(card.getPostTitle());
+        post.setQuantity(card.getPostQuantity());
+        if (card.getPostCategoryId() != null) {
+            post.setCategory(new CategoreyStatus(card.getPostCategoryId(), card.getPostCategory()));
+        }
+        if (card.getPostOwnerId() != null) {
+            post.setOwner(new PostSummaryDto.Owner(card.getPostOwnerId(), card.getPostOwnerName(),
+                    card.getPostOwnerUsername()));
+        }
+        post.setCreatedAt(card.getPostCreatedAt());
+        post.setConformed(card.getPostConformedFlag() != null && card.getPostConformedFlag() != 0);
+        post.setComplete(card.getPostCompleteFlag() != null && card.getPostCompleteFlag() != 0);
+        for (PostMediaDao.FeedMediaProjection media : postMediaDao.findFeedMediaByPostIds(List.of(card.getPostId()))) {
+            if (media.getMediaType() == MediaContainer.MediaType.IMAGE && post.getThumbnailUrls().size() < MAX_THUMBNAILS) {
+                post.getThumbnailUrls().add(PostMediaService.mediaUrl(media.getPostId(), media.getOrdinal(),
+                        MediaSize.THUMB, media.getThumbKey()));
+            }
+        }
+        post.setMediaInfoUrl("/sharedpost/" + card.getPostId() + "/media-info");
+        return post;
+    }
 }
@@ -0,0 +1,52 @@
+package com.economicfoodexchanger.service;
+
+import com.economicfoodexchanger.sharedpost.delivery.DeliveryStatusDao;
+import com.economicfoodexchanger.sharedpost.delivery.DeliveryStaus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The delivery_staus reference rows (a handful, changed by hand if ever), kept in memory so bulk
+ * status updates validate status ids without a query. An unknown id reloads the table, at most
+ * once per RELOAD_INTERVAL_MS, so a status added in MySQL is picked up without a restart.
+ */
+@Service
+public class DeliveryStatusCache {
+
+    private static final long RELOAD_INTERVAL_MS = 10_000;
+
+    @Autowired
+    private DeliveryStatusDao deliveryStatusDao;
+
+    private volatile Map<Integer, DeliveryStaus> statuses = Map.of();
+    private volatile long loadedAtMillis;
+
+    // Null for an unknown status id
+    public DeliveryStaus find(Integer statusId) {
+        if (statusId == null) {
+            return null;
+        }
+        DeliveryStaus status = statuses.get(statusId);
+        if (status == null && System.currentTimeMillis() - loadedAtMillis >= RELOAD_INTERVAL_MS) {
+            reload();
+            status = statuses.get(statusId);
+        }
+        return status;
+    }
+
+    private synchronized void reload() {
+        if (System.currentTimeMillis() - loadedAtMillis < RELOAD_INTERVAL_MS) {
+            // Another caller reloaded while this one waited
+            return;
+        }
+        Map<Integer, DeliveryStaus> loaded = new HashMap<>();
+        for (DeliveryStaus status : deliveryStatusDao.findAll()) {
+            loaded.put(status.getId(), status);
+        }
+        statuses = Map.copyOf(loaded);
+        loadedAtMillis = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,99 @@
+package com.economicfoodexchanger.service;
+
+import com.economicfoodexchanger.dto.DeliveryPositionDto;
+import com.economicfoodexchanger.dto.GpsPingDto;
+import com.economicfoodexchanger.dto.PingBatchResultDto;
+import com.economicfoodexchanger.sharedpost.delivery.DeliveryDao;
+import com.economicfoodexchanger.tracking.DeliveryPositionTracker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * GPS tracking of deliveries: validates pings from driver phones and hands them to
+ * DeliveryPositionTracker, and answers "where is my package" from its memory. A delivery that
+ * is already being tracked is not looked up again, so a steady stream of pings costs no query.
+ */
+@Service
+public class DeliveryTrackingService {
+
+    // Phone clocks drift; fixes stamped further ahead than this are refused
+    private static final Duration MAX_CLOCK_SKEW = Duration.ofMinutes(5);
+
+    @Autowired
+    private DeliveryPositionTracker deliveryPositionTracker;
+
+    @Autowired
+    private DeliveryDao deliveryDao;
+
+    private final int maxPingsPerRequest;
+
+    public DeliveryTrackingService(@Value("${tracking.max-pings-per-request:500}") int maxPingsPerRequest) {
+        this.maxPingsPerRequest = maxPingsPerRequest;
+    }
+
+    public PingBatchResultDto recordPings(Integer deliveryId, List<GpsPingDto> pings) {
+        if (pings == null || pings.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No pings given");
+        }
+        if (pings.size() > maxPingsPerRequest) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + maxPingsPerRequest + " pings per request");
+        }
+        if (!deliveryPositionTracker.isActive(deliveryId) && !deliveryDao.existsById(deliveryId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Delivery not found with ID: " + deliveryId);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<DeliveryPositionTracker.Ping> valid = new ArrayList<>(pings.size());
+        for (GpsPingDto ping : pings) {
+            if (ping == null || !isValid(ping.getLatitude(), -90, 90) || !isValid(ping.getLongitude(), -180, 180)) {
+                continue;
+            }
+            LocalDateTime recordedAt = ping.getRecordedAt() == null ? now : ping.getRecordedAt();
+            if (recordedAt.isAfter(now.plus(MAX_CLOCK_SKEW))) {
+                continue;
+            }
+            Float accuracy = ping.getAccuracy() != null && ping.getAccuracy() >= 0 ? ping.getAccuracy() : null;
+            valid.add(new DeliveryPositionTracker.Ping(deliveryId, ping.getLatitude(), ping.getLongitude(),
+                    accuracy, recordedAt));
+        }
+
+        int dropped = valid.isEmpty() ? 0 : deliveryPositionTracker.record(valid);
+        return new PingBatchResultDto(deliveryId, valid.size(), pings.size() - valid.size(), dropped);
+    }
+
+    public DeliveryPositionDto getPosition(Integer deliveryId) {
+        DeliveryPositionDto dto = new DeliveryPositionDto();
+        dto.setDeliveryId(deliveryId);
+
+        DeliveryPositionTracker.Ping ping = deliveryPositionTracker.latest(deliveryId);
+        if (ping != null) {
+            dto.setLatitude(ping.latitude());
+            dto.setLongitude(ping.longitude());
+            dto.setAccuracy(ping.accuracyM());
+            dto.setRecordedAt(ping.recordedAt());
+            return dto;
+        }
+
+        // Not tracked right now (idle, or since a restart): the newest stored point
+        DeliveryDao.PositionProjection row = deliveryDao.findLatestPosition(deliveryId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "No position known for delivery " + deliveryId));
+        dto.setLatitude(row.getLatitude());
+        dto.setLongitude(row.getLongitude());
+        dto.setAccuracy(row.getAccuracy());
+        dto.setRecordedAt(row.getRecordedAt());
+        return dto;
+    }
+
+    private static boolean isValid(Double degrees, double min, double max) {
+        return degrees != null && Double.isFinite(degrees) && degrees >= min && degrees <= max;
+    }
+}
@@ -0,0 +1,299 @@
+package com.economicfoodexchanger.service;
+
+import com.economicfoodexchanger.imaging.ImageCodec;
+import com.economicfoodexchanger.media.ByteBufferInputStream;
+import com.economicfoodexchanger.media.ContentHash;
+import com.economicfoodexchanger.media.HotMediaCache;
+import com.economicfoodexchanger.media.MediaSize;
+import com.economicfoodexchanger.media.MediaStore;
+import com.economicfoodexchanger.sharedpost.MediaStatus;
+import com.economicfoodexchanger.sharedpost.PostMedia;
+import com.economicfoodexchanger.sharedpost.PostMediaDao;
+import com.economicfoodexchanger.story.ShareStory;
+import com.economicfoodexchanger.story.ShareStoryDao;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+/**
+ * Resizes and re-encodes uploaded images off the request thread. Uploads persist the original
+ * and reserve queue slots up front; a fixed worker pool then processes every file of a post in
+ * parallel. When the queue is full the upload is refused with 503 instead of piling up work.
+ * Each image is written once per MediaSize (full, medium, thumb).
+ * <p>
+ * Jobs live only in memory. Media still PROCESSING at startup lost theirs when the previous run
+ * stopped, so they are queued again from their originals, waiting for free slots like uploads do.
+ */
+@Service
+public class MediaProcessingService {
+
+    private static final int POST_MAX_WIDTH = 1200;
+    private static final int POST_MAX_HEIGHT = 900;
+    private static final int STORY_MAX_WIDTH = 800;
+    private static final int STORY_MAX_HEIGHT = 600;
+
+    @Autowired
+    private PostMediaDao postMediaDao;
+
+    @Autowired
+    private ShareStoryDao shareStoryDao;
+
+    @Autowired
+    private MediaStore mediaStore;
+
+    @Autowired
+    private HotMediaCache hotMediaCache;
+
+    @Autowired
+    private ImageCodec imageCodec;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final ExecutorService workers;
+    private final Semaphore queueSlots;
+    private final Set<String> pendingDerivatives = ConcurrentHashMap.newKeySet();
+
+    public MediaProcessingService(@Value("${media.processing.threads:4}") int threads,
+                                  @Value("${media.processing.queue-capacity:200}") int queueCapacity) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "media-processing-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.workers = Executors.newFixedThreadPool(threads, threadFactory);
+        // Counts queued and running jobs, so a full queue is detected before anything is persisted
+        this.queueSlots = new Semaphore(queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeProcessing() {
+        List<Integer> mediaIds;
+        try {
+            mediaIds = postMediaDao.findIdsByStatus(MediaStatus.PROCESSING);
+        } catch (RuntimeException e) {
+            System.err.println("Could not load unprocessed media: " + e.getMessage());
+            return;
+        }
+        if (mediaIds.isEmpty()) {
+            return;
+        }
+        System.out.println("Re-queueing " + mediaIds.size() + " media left in PROCESSING");
+        // Own thread, so waiting for free slots does not hold up startup
+        Thread resume = new Thread(() -> {
+            for (Integer mediaId : mediaIds) {
+                try {
+                    queueSlots.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                try {
+                    workers.execute(() -> runJob(() -> processPostMedia(mediaId, false)));
+                } catch (RuntimeException e) {
+                    // Shutting down; the rest is picked up at the next start
+                    queueSlots.release();
+                    return;
+                }
+            }
+        }, "media-resume");
+        resume.setDaemon(true);
+        resume.start();
+    }
+
+    // Reserves room for the given number of jobs or rejects the upload with 503
+    public void reserve(int jobs) {
+        if (jobs > 0 && !queueSlots.tryAcquire(jobs)) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Image processing queue is full, please try again shortly");
+        }
+    }
+
+    public void release(int jobs) {
+        if (jobs > 0) {
+            queueSlots.release(jobs);
+        }
+    }
+
+    // Each media row is processed by its own job; slots must have been reserved for all of them
+    public void submitPostMedia(List<PostMedia> mediaList) {
+        for (PostMedia media : mediaList) {
+            Integer mediaId = media.getId();
+            workers.execute(() -> runJob(() -> processPostMedia(mediaId, false)));
+        }
+    }
+
+    public void submitStoryImage(Integer storyId) {
+        workers.execute(() -> runJob(() -> processStoryImage(storyId, false)));
+    }
+
+    // Queues derivative generation for media uploaded before derivatives existed.
+    // Best effort: skipped when the queue is busy or the job is already queued.
+    // A failed attempt marks the media FAILED, and callers do not ask again for FAILED media.
+    public void requestPostMediaDerivatives(Integer mediaId) {
+        if (pendingDerivatives.add("post:" + mediaId)) {
+            if (queueSlots.tryAcquire()) {
+                workers.execute(() -> runJob(() -> {
+                    try {
+                        processPostMedia(mediaId, true);
+                    } finally {
+                        pendingDerivatives.remove("post:" + mediaId);
+                    }
+                }));
+            } else {
+                pendingDerivatives.remove("post:" + mediaId);
+            }
+        }
+    }
+
+    public void requestStoryDerivatives(Integer storyId) {
+        if (pendingDerivatives.add("story:" + storyId)) {
+            if (queueSlots.tryAcquire()) {
+                workers.execute(() -> runJob(() -> {
+                    try {
+                        processStoryImage(storyId, true);
+                    } finally {
+                        pendingDerivatives.remove("story:" + storyId);
+                    }
+                }));
+            } else {
+                pendingDerivatives.remove("story:" + storyId);
+            }
+        }
+    }
+
+    private void runJob(Runnable job) {
+        try {
+            job.run();
+        } finally {
+            queueSlots.release();
+        }
+    }
+
+    // derivativesOnly: the served image is already processed, only add the smaller sizes
+    private void processPostMedia(Integer mediaId, boolean derivativesOnly) {
+        PostMedia media = postMediaDao.findById(mediaId).orElse(null);
+        if (media == null) {
+            return;
+        }
+
+        // Results are written with targeted UPDATEs, so edits made to the row meanwhile are kept
+        String sourceKey = media.getOriginalKey() != null ? media.getOriginalKey() : media.getStorageKey();
+        Integer postId = media.getSharedPost().getId();
+        try {
+            ByteBuffer original = mediaStore.read(sourceKey);
+            if (original == null) {
+                throw new IOException("original not found in media store");
+            }
+
+            BufferedImage originalImage = imageCodec.decode(new ByteBufferInputStream(original), POST_MAX_WIDTH, POST_MAX_HEIGHT);
+            if (originalImage != null) {
+                // Each size is scaled from the next larger one, not from the original
+                BufferedImage full = imageCodec.resize(originalImage, POST_MAX_WIDTH, POST_MAX_HEIGHT);
+                BufferedImage medium = imageCodec.resize(full, MediaSize.MEDIUM.getMaxDimension(), MediaSize.MEDIUM.getMaxDimension());
+                BufferedImage thumb = imageCodec.resize(medium, MediaSize.THUMB.getMaxDimension(), MediaSize.THUMB.getMaxDimension());
+
+                String mediumKey = mediaStore.put(imageCodec.encodeJpeg(medium));
+                String thumbKey = mediaStore.put(imageCodec.encodeJpeg(thumb));
+                if (derivativesOnly) {
+                    write("media " + mediaId, () -> postMediaDao.updateDerivatives(mediaId, sourceKey, mediumKey, thumbKey,
+                            MediaStatus.READY));
+                } else {
+                    byte[] compressed = imageCodec.encodeJpeg(full);
+                    String storageKey = mediaStore.put(compressed);
+                    write("media " + mediaId, () -> postMediaDao.updateProcessed(mediaId, sourceKey, storageKey, "image/jpeg",
+                            (long) compressed.length, full.getWidth(), full.getHeight(), mediumKey, thumbKey,
+                            MediaStatus.READY));
+                    System.out.println("IMAGE PROCESSED: " + media.getFileName() +
+                            " - Original: " + formatFileSize(original.remaining()) +
+                            " - Compressed: " + formatFileSize(compressed.length));
+                }
+            } else {
+                write("media " + mediaId, () -> postMediaDao.updateStatus(mediaId, sourceKey, MediaStatus.READY));
+            }
+        } catch (Exception e) {
+            // The original stays in place and is still served
+            System.err.println("Image processing failed for media " + mediaId + ": " + e.getMessage());
+            try {
+                write("media " + mediaId, () -> postMediaDao.updateStatus(mediaId, sourceKey, MediaStatus.FAILED));
+            } catch (RuntimeException statusFailure) {
+                System.err.println("Could not mark media " + mediaId + " as failed: " + statusFailure.getMessage());
+            }
+        }
+        hotMediaCache.invalidatePost(postId);
+    }
+
+    // One targeted UPDATE in its own transaction; 0 rows means the row changed under the job
+    private void write(String target, IntSupplier update) {
+        Integer rows = transactionTemplate.execute(status -> update.getAsInt());
+        if (rows == null || rows == 0) {
+            System.out.println("Processing result for " + target + " dropped: its image changed while it was processed");
+        }
+    }
+
+    private void processStoryImage(Integer storyId, boolean derivativesOnly) {
+        ShareStory story = shareStoryDao.findById(storyId).orElse(null);
+        if (story == null || story.getImage() == null) {
+            return;
+        }
+
+        String sourceHash = story.getImageHash();
+        try {
+            BufferedImage originalImage = imageCodec.decode(new ByteArrayInputStream(story.getImage()), STORY_MAX_WIDTH, STORY_MAX_HEIGHT);
+            if (originalImage != null) {
+                BufferedImage full = imageCodec.resize(originalImage, STORY_MAX_WIDTH, STORY_MAX_HEIGHT);
+                BufferedImage medium = imageCodec.resize(full, MediaSize.MEDIUM.getMaxDimension(), MediaSize.MEDIUM.getMaxDimension());
+                BufferedImage thumb = imageCodec.resize(medium, MediaSize.THUMB.getMaxDimension(), MediaSize.THUMB.getMaxDimension());
+
+                String mediumKey = mediaStore.put(imageCodec.encodeJpeg(medium));
+                String thumbKey = mediaStore.put(imageCodec.encodeJpeg(thumb));
+                if (derivativesOnly) {
+                    write("story " + storyId, () -> shareStoryDao.updateDerivativeKeys(storyId, sourceHash, mediumKey, thumbKey));
+                } else {
+                    byte[] compressed = imageCodec.encodeJpeg(full);
+                    System.out.println("STORY IMAGE PROCESSED: " + storyId +
+                            " - Original: " + formatFileSize(story.getImage().length) +
+                            " - Compressed: " + formatFileSize(compressed.length));
+                    write("story " + storyId, () -> shareStoryDao.updateProcessedImage(storyId, sourceHash, compressed,
+                            ContentHash.of(compressed), mediumKey, thumbKey));
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Image processing failed for story " + storyId + ": " + e.getMessage());
+        }
+    }
+
+    private String formatFileSize(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        else if (bytes < 1024 * 1024) return String.format("%.1f KB", bytes / 1024.0);
+        else return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+}
@@ -0,0 +1,128 @@
+package com.economicfoodexchanger.service;
+
+import com.economicfoodexchanger.dto.NearbyPostDto;
+import com.economicfoodexchanger.geo.Coordinates;
+import com.economicfoodexchanger.geo.PostGeoIndex;
+import com.economicfoodexchanger.sharedpost.SharedPostChangedEvent;
+import com.economicfoodexchanger.sharedpost.SharedPostDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * "Posts near me" over open posts with coordinates. Searches are answered from the in-memory
+ * PostGeoIndex; until its first load has finished they go to the SPATIAL index in MySQL.
+ * The grid is reloaded from the database periodically and updated right away when a post is
+ * created, edited or closed through this application.
+ */
+@Service
+public class NearbyPostService {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 200;
+
+    @Autowired
+    private SharedPostDao sharedPostDao;
+
+    @Autowired
+    private PostGeoIndex postGeoIndex;
+
+    @Value("${geo.nearby.max-radius-km:50}")
+    private double maxRadiusKm;
+
+    public List<NearbyPostDto> search(double lat, double lng, double radiusKm, String category, Integer limit) {
+        if (!Double.isFinite(lat) || lat < -90 || lat > 90 || !Double.isFinite(lng) || lng < -180 || lng > 180) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "lat must be within [-90, 90] and lng within [-180, 180]");
+        }
+        if (!(radiusKm > 0)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "radiusKm must be positive");
+        }
+        double radius = Math.min(radiusKm, maxRadiusKm);
+        int maxResults = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+        String categoryFilter = category == null || category.isBlank() ? null : category.trim();
+
+        List<NearbyPostDto> results = new ArrayList<>();
+        if (postGeoIndex.isLoaded()) {
+            for (PostGeoIndex.Hit hit : postGeoIndex.search(lat, lng, radius, categoryFilter, maxResults)) {
+                PostGeoIndex.Entry entry = hit.entry();
+                results.add(toDto(entry.id(), entry.title(), entry.quantity(), entry.latitude(), entry.longitude(),
+                        entry.category(), entry.ownerName(), hit.distanceKm()));
+            }
+        } else {
+            double latSpan = radius / Coordinates.KM_PER_DEGREE_LAT;
+            double lngSpan = Coordinates.lngDegrees(radius, lat);
+            String box = boundingBox(Math.max(-90, lat - latSpan), Math.max(-180, lng - lngSpan),
+                    Math.min(90, lat + latSpan), Math.min(180, lng + lngSpan));
+
+            for (SharedPostDao.NearbyRowProjection row : sharedPostDao.findNearby(lat, lng, box, radius * 1000,
+                    categoryFilter, maxResults)) {
+                results.add(toDto(row.getId(), row.getTitle(), row.getQuantity(), row.getLatitude(), row.getLongitude(),
+                        row.getCategory(), row.getOwnerName(), row.getDistanceMeters() / 1000));
+            }
+        }
+        return results;
+    }
+
+    // Re-reads one post after it was saved: added, moved, or dropped once it is closed
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostChanged(SharedPostChangedEvent event) {
+        Integer postId = event.postId();
+        if (postId == null) {
+            return;
+        }
+        try {
+            sharedPostDao.findOpenGeoRowById(postId).ifPresentOrElse(
+                    row -> postGeoIndex.put(toEntry(row)),
+                    () -> postGeoIndex.remove(postId));
+        } catch (RuntimeException e) {
+            // The periodic reload picks the post up later
+            System.err.println("Could not refresh post " + postId + " in the geo index: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${geo.index.refresh-ms:300000}")
+    public void reloadIndex() {
+        try {
+            List<PostGeoIndex.Entry> entries = new ArrayList<>();
+            for (SharedPostDao.GeoRowProjection row : sharedPostDao.findOpenGeoRows()) {
+                entries.add(toEntry(row));
+            }
+            postGeoIndex.replaceAll(entries);
+        } catch (RuntimeException e) {
+            System.err.println("Geo index reload failed: " + e.getMessage());
+        }
+    }
+
+    private static PostGeoIndex.Entry toEntry(SharedPostDao.GeoRowProjection row) {
+        return new PostGeoIndex.Entry(row.getId(), row.getLatitude(), row.getLongitude(), row.getTitle(),
+                row.getQuantity(), row.getCategory(), row.getOwnerName());
+    }
+
+    // WKT polygon in long-lat order, matching the axis-order option of the native query
+    private static String boundingBox(double minLat, double minLng, double maxLat, double maxLng) {
+        return String.format(Locale.ROOT, "POLYGON((%1$.7f %2$.7f, %3$.7f %2$.7f, %3$.7f %4$.7f, %1$.7f %4$.7f, %1$.7f %2$.7f))",
+                minLng, minLat, maxLng, maxLat);
+    }
+
+    private static NearbyPostDto toDto(Integer id, String title, String quantity, double latitude, double longitude,
+                                       String category, String ownerName, double distanceKm) {
+        NearbyPostDto dto = new NearbyPostDto();
+        dto.setId(id);
+        dto.setTitle(title);
+        dto.setQuantity(quantity);
+        dto.setLatitude(latitude);
+        dto.setLongitude(longitude);
+        dto.setCategory(category);
+        dto.setOwnerName(ownerName);
+        dto.setDistanceKm(Math.round(distanceKm * 1000) / 1000.0);
+        return dto;
+    }
+}
@@ -0,0 +1,211 @@
+package com.economicfoodexchanger.service;
+
+import com.economicfoodexchanger.dto.FeedPageDto;
+import com.economicfoodexchanger.sharedpost.BidChangedEvent;
+import com.economicfoodexchanger.sharedpost.SharedPostChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * First page of the post feed per category and page size, kept as the JSON bytes that go on
+ * the wire. Entries are tagged with the feed version they were built at. Creating, editing or
+ * confirming a post and placing a bid bump the version after commit, which makes every entry
+ * stale at once without touching the map.
+ * <p>
+ * With feed.cache.stale-while-revalidate a stale entry is still served while a single
+ * background rebuild replaces it, as long as it was built within feed.cache.max-stale-ms.
+ * Otherwise the first caller rebuilds it and concurrent callers for the same key wait for that
+ * one build instead of running their own.
+ * <p>
+ * Metrics: feed.cache.hits, feed.cache.stale.hits, feed.cache.misses, feed.cache.hit.ratio
+ * and the feed.cache.rebuild timer (see /actuator/metrics).
+ */
+@Component
+public class PostFeedCache {
+
+    public enum State { HIT, STALE, MISS }
+
+    // json is shared between requests and must not be modified
+    public record CachedPage(byte[] json, long version, State state) {
+    }
+
+    private record Key(String category, int pageSize) {
+    }
+
+    private record Entry(byte[] json, long version, long builtAtMillis) {
+    }
+
+    private final PostFeedService postFeedService;
+    private final ObjectMapper objectMapper;
+
+    private final boolean staleWhileRevalidate;
+    private final long maxStaleMs;
+    private final int maxEntries;
+
+    // Starts at the start time so ETags from before a restart never match
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Key, CompletableFuture<Entry>> rebuilds = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor rebuildExecutor;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final Timer rebuildTimer;
+
+    public PostFeedCache(PostFeedService postFeedService, ObjectMapper objectMapper,
+                         @Value("${feed.cache.stale-while-revalidate:true}") boolean staleWhileRevalidate,
+                         @Value("${feed.cache.max-stale-ms:30000}") long maxStaleMs,
+                         @Value("${feed.cache.max-entries:256}") int maxEntries,
+                         MeterRegistry meterRegistry) {
+        this.postFeedService = postFeedService;
+        this.objectMapper = objectMapper;
+        this.staleWhileRevalidate = staleWhileRevalidate;
+        this.maxStaleMs = maxStaleMs;
+        this.maxEntries = maxEntries;
+        this.rebuildExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxEntries), runnable -> {
+                    Thread thread = new Thread(runnable, "feed-cache-rebuild");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        FunctionCounter.builder("feed.cache.hits", hits, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("feed.cache.stale.hits", staleHits, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("feed.cache.misses", misses, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("feed.cache.hit.ratio", this, PostFeedCache::hitRatio).register(meterRegistry);
+        this.rebuildTimer = Timer.builder("feed.cache.rebuild").register(meterRegistry);
+    }
+
+    public CachedPage firstPage(String category, Integer limit) {
+        String categoryKey = category == null || category.isBlank() ? null : category.trim().toLowerCase(Locale.ROOT);
+        Key key = new Key(categoryKey, PostFeedService.pageSize(limit));
+
+        Entry entry = entries.get(key);
+        if (entry != null && entry.version == version.get()) {
+            hits.incrementAndGet();
+            return new CachedPage(entry.json, entry.version, State.HIT);
+        }
+        if (entry != null && staleWhileRevalidate && System.currentTimeMillis() - entry.builtAtMillis <= maxStaleMs) {
+            staleHits.incrementAndGet();
+            rebuildInBackground(key);
+            return new CachedPage(entry.json, entry.version, State.STALE);
+        }
+
+        misses.incrementAndGet();
+        try {
+            Entry built = rebuild(key).join();
+            return new CachedPage(built.json, built.version, State.MISS);
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    public double hitRatio() {
+        long served = hits.get() + staleHits.get();
+        long total = served + misses.get();
+        return total == 0 ? 0 : (double) served / total;
+    }
+
+    // After commit, so a rebuild that starts after the bump sees the new rows
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostChanged(SharedPostChangedEvent event) {
+        version.incrementAndGet();
+    }
+
+    // Bid counts are part of the feed items; confirming a bid changes nothing the feed shows
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBidChanged(BidChangedEvent event) {
+        if (event.change() == BidChangedEvent.Change.ADDED) {
+            version.incrementAndGet();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    private void rebuildInBackground(Key key) {
+        // Claimed before queuing, so a burst of stale hits queues one rebuild, not one each
+        CompletableFuture<Entry> build = new CompletableFuture<>();
+        if (rebuilds.putIfAbsent(key, build) != null) {
+            return;
+        }
+        try {
+            rebuildExecutor.execute(() -> {
+                runBuild(key, build);
+                if (build.isCompletedExceptionally()) {
+                    // The stale entry stays; the next stale hit tries again
+                    System.err.println("Feed cache rebuild failed for " + key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rebuilds.remove(key, build);
+            build.completeExceptionally(e);
+        }
+    }
+
+    // One build per key at a time; callers that arrive during a build get the same future
+    private CompletableFuture<Entry> rebuild(Key key) {
+        CompletableFuture<Entry> build = new CompletableFuture<>();
+        CompletableFuture<Entry> running = rebuilds.putIfAbsent(key, build);
+        if (running != null) {
+            return running;
+        }
+        runBuild(key, build);
+        return build;
+    }
+
+    private void runBuild(Key key, CompletableFuture<Entry> build) {
+        try {
+            build.complete(build(key));
+        } catch (RuntimeException e) {
+            build.completeExceptionally(e);
+        } finally {
+            rebuilds.remove(key, build);
+        }
+    }
+
+    private Entry build(Key key) {
+        // Read before querying: a bump during the build leaves this entry stale, never wrongly fresh
+        long buildVersion = version.get();
+        long start = System.nanoTime();
+        FeedPageDto page = postFeedService.getPage(null, key.category, key.pageSize);
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(page);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the feed", e);
+        }
+        rebuildTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        Entry entry = new Entry(json, buildVersion, System.currentTimeMillis());
+        if (entries.containsKey(key) || entries.size() < maxEntries) {
+            entries.merge(key, entry, (current, fresh) -> fresh.version >= current.version ? fresh : current);
+        }
+        return entry;
+    }
+}
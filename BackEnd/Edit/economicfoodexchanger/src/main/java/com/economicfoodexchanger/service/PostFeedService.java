@@ -0,0 +1,120 @@
+package com.economicfoodexchanger.service;
+
+import com.economicfoodexchanger.dto.FeedPageDto;
+import com.economicfoodexchanger.dto.PostFeedItemDto;
+import com.economicfoodexchanger.media.MediaSize;
+import com.economicfoodexchanger.sharedpost.MediaContainer;
+import com.economicfoodexchanger.sharedpost.PostMediaDao;
+import com.economicfoodexchanger.sharedpost.SharedPostDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Newest-first post feed with keyset pagination. The cursor encodes the (createdateandtime, id)
+ * of the last post on the page, so every page is an index range scan no matter how deep the
+ * client scrolls. A page costs two queries: the post rows and the media of those posts.
+ */
+@Service
+public class PostFeedService {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 50;
+    private static final int MAX_THUMBNAILS = 4;
+
+    @Autowired
+    private SharedPostDao sharedPostDao;
+
+    @Autowired
+    private PostMediaDao postMediaDao;
+
+    public static int pageSize(Integer limit) {
+        return limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    // category is a categoreystatus name ("Selling post"); null or blank for all posts
+    public FeedPageDto getPage(String cursor, String category, Integer limit) {
+        int pageSize = pageSize(limit);
+        String categoryFilter = category == null || category.isBlank() ? null : category.trim();
+
+        // One extra row tells whether there is a next page
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+        List<SharedPostDao.FeedRowProjection> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = sharedPostDao.findFeedFirstPage(categoryFilter, page);
+        } else {
+            Cursor position = Cursor.decode(cursor);
+            rows = sharedPostDao.findFeedPageAfter(categoryFilter, position.createdAt, position.id, page);
+        }
+
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+
+        Map<Integer, PostFeedItemDto> items = new LinkedHashMap<>();
+        for (SharedPostDao.FeedRowProjection row : rows) {
+            PostFeedItemDto item = new PostFeedItemDto();
+            item.setId(row.getId());
+            item.setTitle(row.getTitle());
+            item.setQuantity(row.getQuantity());
+            item.setLatitude(row.getLatitude());
+            item.setLongitude(row.getLongitude());
+            item.setCategory(row.getCategory());
+            item.setOwnerId(row.getOwnerId());
+            item.setOwnerName(row.getOwnerName());
+            item.setCreatedAt(row.getCreatedAt());
+            item.setMediaCount(row.getMediaCount() != null ? row.getMediaCount() : 0);
+            item.setBidCount(row.getBidCount() != null ? row.getBidCount() : 0);
+            items.put(row.getId(), item);
+        }
+
+        if (!items.isEmpty()) {
+            for (PostMediaDao.FeedMediaProjection media : postMediaDao.findFeedMediaByPostIds(items.keySet())) {
+                PostFeedItemDto item = items.get(media.getPostId());
+                if (media.getMediaType() == MediaContainer.MediaType.IMAGE && item.getThumbnailUrls().size() < MAX_THUMBNAILS) {
+                    item.getThumbnailUrls().add(PostMediaService.mediaUrl(media.getPostId(), media.getOrdinal(),
+                            MediaSize.THUMB, media.getThumbKey()));
+                }
+            }
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            SharedPostDao.FeedRowProjection last = rows.get(rows.size() - 1);
+            nextCursor = new Cursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new FeedPageDto(new ArrayList<>(items.values()), nextCursor, hasMore);
+    }
+
+    // Opaque to clients: base64url of "<createdateandtime>|<id>"
+    record Cursor(LocalDateTime createdAt, Integer id) {
+
+        String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, separator)),
+                        Integer.valueOf(raw.substring(separator + 1)));
+            } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid feed cursor");
+            }
+        }
+    }
+}
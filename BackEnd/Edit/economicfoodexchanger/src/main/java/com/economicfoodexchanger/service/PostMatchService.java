@@ -0,0 +1,114 @@
+package com.economicfoodexchanger.service;
+
+import com.economicfoodexchanger.dto.PostMatchDto;
+import com.economicfoodexchanger.matching.PostMatchIndex;
+import com.economicfoodexchanger.sharedpost.SharedPostChangedEvent;
+import com.economicfoodexchanger.sharedpost.SharedPostDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Buyer-seller matching. Lookups only touch the in-memory PostMatchIndex; MySQL is read once at
+ * startup to build it and then one row at a time whenever a post is created, edited or closed.
+ * A failed build is retried periodically until the index has loaded.
+ */
+@Service
+public class PostMatchService {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 50;
+
+    @Autowired
+    private SharedPostDao sharedPostDao;
+
+    @Autowired
+    private PostMatchIndex postMatchIndex;
+
+    public List<PostMatchDto> matchesFor(Integer postId, Integer limit) {
+        if (!postMatchIndex.isLoaded()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Match index is still loading, try again shortly");
+        }
+        int maxResults = limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+
+        List<PostMatchIndex.Match> matches = postMatchIndex.matches(postId, maxResults);
+        if (matches == null) {
+            // Closed posts and posts that are neither buying nor selling have no matches
+            if (!sharedPostDao.existsById(postId)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Post not found: " + postId);
+            }
+            return List.of();
+        }
+
+        List<PostMatchDto> results = new ArrayList<>(matches.size());
+        for (PostMatchIndex.Match match : matches) {
+            PostMatchIndex.Post post = match.post();
+            PostMatchDto dto = new PostMatchDto();
+            dto.setId(post.id());
+            dto.setTitle(post.title());
+            dto.setQuantity(post.quantity());
+            dto.setCategory(post.category());
+            dto.setOwnerName(post.ownerName());
+            dto.setDistanceKm(match.distanceKm() == null ? null : Math.round(match.distanceKm() * 1000) / 1000.0);
+            dto.setScore(round(match.score()));
+            dto.setItemSimilarity(round(match.itemSimilarity()));
+            dto.setQuantityFit(round(match.quantityFit()));
+            results.add(dto);
+        }
+        return results;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        try {
+            List<PostMatchIndex.Post> posts = new ArrayList<>();
+            for (SharedPostDao.MatchRowProjection row : sharedPostDao.findOpenMatchRows()) {
+                posts.add(toPost(row));
+            }
+            postMatchIndex.replaceAll(posts);
+            System.out.println("Match index built with " + postMatchIndex.size() + " open posts");
+        } catch (RuntimeException e) {
+            System.err.println("Match index build failed: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${matching.index.retry-ms:30000}", initialDelayString = "${matching.index.retry-ms:30000}")
+    public void retryBuildIndex() {
+        if (!postMatchIndex.isLoaded()) {
+            buildIndex();
+        }
+    }
+
+    // A new post gets its ranked counterparts here, and is offered to theirs
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostChanged(SharedPostChangedEvent event) {
+        Integer postId = event.postId();
+        if (postId == null) {
+            return;
+        }
+        try {
+            sharedPostDao.findOpenMatchRowById(postId).ifPresentOrElse(
+                    row -> postMatchIndex.put(toPost(row)),
+                    () -> postMatchIndex.remove(postId));
+        } catch (RuntimeException e) {
+            System.err.println("Could not update post " + postId + " in the match index: " + e.getMessage());
+        }
+    }
+
+    private static PostMatchIndex.Post toPost(SharedPostDao.MatchRowProjection row) {
+        return new PostMatchIndex.Post(row.getId(), row.getTitle(), row.getQuantity(), row.getCategory(),
+                row.getOwnerId(), row.getOwnerName(), row.getLatitude(), row.getLongitude());
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,153 @@
+package com.economicfoodexchanger.service;
+
+import com.economicfoodexchanger.media.HotMediaCache;
+import com.economicfoodexchanger.media.ImageDimensions;
+import com.economicfoodexchanger.media.MediaSize;
+import com.economicfoodexchanger.media.MediaStore;
+import com.economicfoodexchanger.sharedpost.MediaContainer;
+import com.economicfoodexchanger.sharedpost.MediaStatus;
+import com.economicfoodexchanger.sharedpost.PostMedia;
+import com.economicfoodexchanger.sharedpost.PostMediaDao;
+import com.economicfoodexchanger.sharedpost.SharedPostChangedEvent;
+import com.economicfoodexchanger.sharedpost.SharedPostDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.util.List;
+
+// Turns files already in the MediaStore into post_media rows
+@Service
+public class PostMediaService {
+
+    @Autowired
+    private PostMediaDao postMediaDao;
+
+    @Autowired
+    private SharedPostDao sharedPostDao;
+
+    @Autowired
+    private MediaStore mediaStore;
+
+    @Autowired
+    private MediaProcessingService mediaProcessingService;
+
+    @Autowired
+    private HotMediaCache hotMediaCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    public static boolean isSupported(String contentType) {
+        return contentType != null && (contentType.startsWith("image/") || contentType.startsWith("video/"));
+    }
+
+    // Media URL of a post file. v= pins the URL to the content hash, which lets browsers and proxies
+    // cache it as immutable; derivatives that do not exist yet (null key) get an unversioned URL.
+    public static String mediaUrl(Integer postId, Integer ordinal, MediaSize size, String storageKey) {
+        StringBuilder url = new StringBuilder("/sharedpost/media/").append(postId).append('/').append(ordinal);
+        char separator = '?';
+        if (size != MediaSize.FULL) {
+            url.append("?size=").append(size.name().toLowerCase());
+            separator = '&';
+        }
+        if (storageKey != null) {
+            url.append(separator).append("v=").append(storageKey);
+        }
+        return url.toString();
+    }
+
+    // Builds the (unsaved, unlinked) row for a stored file; null for unsupported content types
+    public PostMedia describe(String storageKey, String fileName, String contentType) throws IOException {
+        if (!isSupported(contentType)) {
+            System.out.println("Unsupported media type: " + contentType + " for file: " + fileName);
+            return null;
+        }
+
+        PostMedia media = new PostMedia();
+        media.setFileName(fileName);
+        media.setContentType(contentType);
+        media.setStorageKey(storageKey);
+        media.setOriginalKey(storageKey);
+        media.setFileSize(mediaStore.size(storageKey));
+
+        if (contentType.startsWith("image/")) {
+            // Keep the original; MediaProcessingService swaps in the resized version when done
+            media.setMediaType(MediaContainer.MediaType.IMAGE);
+            media.setStatus(MediaStatus.PROCESSING);
+
+            int[] dimensions = ImageDimensions.read(mediaStore.read(storageKey));
+            if (dimensions != null) {
+                media.setWidth(dimensions[0]);
+                media.setHeight(dimensions[1]);
+            }
+
+            System.out.println("IMAGE: " + fileName + " - Original: " + formatFileSize(media.getFileSize()));
+        } else {
+            // Store videos as-is (you can add compression here if needed)
+            media.setMediaType(MediaContainer.MediaType.VIDEO);
+            media.setStatus(MediaStatus.READY);
+
+            System.out.println("VIDEO: " + fileName + " - Size: " + formatFileSize(media.getFileSize()));
+        }
+        return media;
+    }
+
+    // Appends a stored file as the next media entry of an existing post
+    public PostMedia attach(Integer postId, String storageKey, String fileName, String contentType) throws IOException {
+        if (!sharedPostDao.existsById(postId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Post not found: " + postId);
+        }
+
+        PostMedia media = describe(storageKey, fileName, contentType);
+        if (media == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported media type: " + contentType);
+        }
+
+        boolean needsProcessing = media.getStatus() == MediaStatus.PROCESSING;
+        if (needsProcessing) {
+            mediaProcessingService.reserve(1);
+        }
+        try {
+            // Concurrent uploads to one post queue on its row lock, so each gets the next free ordinal
+            transactionTemplate.executeWithoutResult(status -> {
+                if (sharedPostDao.lockById(postId).isEmpty()) {
+                    throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Post not found: " + postId);
+                }
+                if (sharedPostDao.countLegacyMediaById(postId) > 0) {
+                    // PostMediaBackfill would drop the legacy files once the post has post_media rows
+                    throw new ResponseStatusException(HttpStatus.CONFLICT, "Post media is still being migrated, try again later");
+                }
+                media.setSharedPost(sharedPostDao.getReferenceById(postId));
+                media.setOrdinal(postMediaDao.nextOrdinal(postId));
+                postMediaDao.save(media);
+                // After commit: the feed cache and live clients see the post's new media count and thumbnail
+                eventPublisher.publishEvent(new SharedPostChangedEvent(postId, SharedPostChangedEvent.Change.UPDATED));
+            });
+        } catch (RuntimeException e) {
+            if (needsProcessing) {
+                mediaProcessingService.release(1);
+            }
+            throw e;
+        }
+
+        if (needsProcessing) {
+            mediaProcessingService.submitPostMedia(List.of(media));
+        }
+        hotMediaCache.invalidatePost(postId);
+        return media;
+    }
+
+    private String formatFileSize(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        else if (bytes < 1024 * 1024) return String.format("%.1f KB", bytes / 1024.0);
+        else return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+}
@@ -0,0 +1,63 @@
+package com.economicfoodexchanger.service;
+
+import com.economicfoodexchanger.User;
+import com.economicfoodexchanger.sharedpost.BitDetails;
+import com.economicfoodexchanger.sharedpost.SharedPost;
+import com.economicfoodexchanger.sharedpost.SharedPostDao;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Endpoints that still return full SharedPost entities (bids with bidders, reviews, owner).
+ * Everything is lazy, so the "SharedPost.detail" graph brings owner and category with the post
+ * query and initializeDetails loads the rest before the transaction ends:
+ * <ul>
+ *   <li>bids and reviews: one subselect each for all posts of the query</li>
+ *   <li>bidders, their roles and member profiles: batch loads of
+ *       hibernate.default_batch_fetch_size ids per query</li>
+ * </ul>
+ */
+@Service
+public class PostReadService {
+
+    @Autowired
+    private SharedPostDao sharedPostDao;
+
+    @Transactional(readOnly = true)
+    public List<SharedPost> findAllNewestFirst() {
+        List<SharedPost> posts = sharedPostDao.findAll(Sort.by(Sort.Direction.DESC, "createdateandtime"));
+        initializeDetails(posts);
+        return posts;
+    }
+
+    @Transactional(readOnly = true)
+    public List<SharedPost> findByOwner(User owner) {
+        List<SharedPost> posts = sharedPostDao.getAllByUsername(owner);
+        initializeDetails(posts);
+        return posts;
+    }
+
+    // Must run inside a transaction, on posts loaded with the SharedPost.detail graph
+    public void initializeDetails(Collection<SharedPost> posts) {
+        for (SharedPost post : posts) {
+            Hibernate.initialize(post.getBitDetails());
+            Hibernate.initialize(post.getReviews());
+        }
+        for (SharedPost post : posts) {
+            for (BitDetails bid : post.getBitDetails()) {
+                User bidder = bid.getUser();
+                if (bidder != null) {
+                    Hibernate.initialize(bidder);
+                    Hibernate.initialize(bidder.getRoleList());
+                    Hibernate.initialize(bidder.getCommunityMember());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.economicfoodexchanger.service;
+
+import com.economicfoodexchanger.dto.PostSearchHitDto;
+import com.economicfoodexchanger.dto.PostSearchResultDto;
+import com.economicfoodexchanger.search.PostSearchIndex;
+import com.economicfoodexchanger.sharedpost.SharedPostChangedEvent;
+import com.economicfoodexchanger.sharedpost.SharedPostDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Post search. Queries only touch the in-memory PostSearchIndex; MySQL is read once at startup
+ * to build it and then one row at a time whenever a post changes. A failed build is retried
+ * periodically until the index has loaded.
+ */
+@Service
+public class PostSearchService {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 50;
+
+    @Autowired
+    private SharedPostDao sharedPostDao;
+
+    @Autowired
+    private PostSearchIndex postSearchIndex;
+
+    public PostSearchResultDto search(String query, String category, boolean includeClosed, Integer page, Integer size) {
+        if (query == null || query.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Search query (q) is required");
+        }
+        if (!postSearchIndex.isLoaded()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Search index is still loading, try again shortly");
+        }
+        int pageNumber = page == null ? 0 : Math.max(0, page);
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        String categoryFilter = category == null || category.isBlank() ? null : category.trim();
+
+        PostSearchIndex.Page result = postSearchIndex.search(query, categoryFilter, includeClosed,
+                pageNumber * pageSize, pageSize);
+
+        List<PostSearchHitDto> items = new ArrayList<>();
+        for (PostSearchIndex.Hit hit : result.hits()) {
+            PostSearchIndex.Document document = hit.document();
+            PostSearchHitDto item = new PostSearchHitDto();
+            item.setId(document.id());
+            item.setTitle(document.title());
+            item.setQuantity(document.quantity());
+            item.setCategory(document.category());
+            item.setOwnerName(document.ownerName());
+            item.setCreatedAt(document.createdAt());
+            item.setOpen(document.open());
+            item.setScore(Math.round(hit.score() * 1000) / 1000.0);
+            items.add(item);
+        }
+        return new PostSearchResultDto(items, result.total(), pageNumber, pageSize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        try {
+            List<PostSearchIndex.Document> documents = new ArrayList<>();
+            for (SharedPostDao.SearchRowProjection row : sharedPostDao.findSearchRows()) {
+                documents.add(toDocument(row));
+            }
+            postSearchIndex.replaceAll(documents);
+            System.out.println("Search index built with " + documents.size() + " posts");
+        } catch (RuntimeException e) {
+            System.err.println("Search index build failed: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${search.index.retry-ms:30000}", initialDelayString = "${search.index.retry-ms:30000}")
+    public void retryBuildIndex() {
+        if (!postSearchIndex.isLoaded()) {
+            buildIndex();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostChanged(SharedPostChangedEvent event) {
+        Integer postId = event.postId();
+        if (postId == null) {
+            return;
+        }
+        try {
+            sharedPostDao.findSearchRowById(postId).ifPresentOrElse(
+                    row -> postSearchIndex.put(toDocument(row)),
+                    () -> postSearchIndex.remove(postId));
+        } catch (RuntimeException e) {
+            System.err.println("Could not update post " + postId + " in the search index: " + e.getMessage());
+        }
+    }
+
+    private static PostSearchIndex.Document toDocument(SharedPostDao.SearchRowProjection row) {
+        return new PostSearchIndex.Document(row.getId(), row.getTitle(), row.getDescription(), row.getCategory(),
+                row.getQuantity(), row.getOwnerName(), row.getCreatedAt(),
+                row.getOpenFlag() != null && row.getOpenFlag() == 1);
+    }
+}
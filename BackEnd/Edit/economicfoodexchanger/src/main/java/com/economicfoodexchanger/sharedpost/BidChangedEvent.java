@@ -0,0 +1,16 @@
+package com.economicfoodexchanger.sharedpost;
+
+import java.math.BigDecimal;
+
+// Published after a bid was placed on a post or confirmed by the post owner. A new bid may carry
+// its delivery location and bidder, so listeners need not read the row back; bidderId is null
+// when it does not.
+public record BidChangedEvent(Integer bidId, Integer postId, Change change, BigDecimal bitrate, BigDecimal needamount,
+                              String deliveryLocation, Integer bidderId) {
+
+    public enum Change { ADDED, CONFIRMED }
+
+    public BidChangedEvent(Integer bidId, Integer postId, Change change, BigDecimal bitrate, BigDecimal needamount) {
+        this(bidId, postId, change, bitrate, needamount, null, null);
+    }
+}
@@ -9,6 +9,13 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+// Bid list: the bidder with roles and member profile in the same query
+@NamedEntityGraph(name = "BitDetails.withUser",
+        attributeNodes = @NamedAttributeNode(value = "user", subgraph = "user"),
+        subgraphs = @NamedSubgraph(name = "user", attributeNodes = {
+                @NamedAttributeNode("roleList"),
+                @NamedAttributeNode("communityMember")
+        }))
 @Entity
 @Table(name = "bitdetails")
 @Data
@@ -42,7 +49,7 @@ public class BitDetails {
     @JoinColumn(name = "sharedpost_id", referencedColumnName = "id")
     private SharedPost sharedpost;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", referencedColumnName = "id")
     private User user;
 }
\ No newline at end of file
@@ -1,11 +1,19 @@
 package com.economicfoodexchanger.sharedpost;
 
 import com.economicfoodexchanger.UserDao;
+import com.economicfoodexchanger.dto.BidBookDto;
+import com.economicfoodexchanger.dto.BidSubmissionDto;
+import com.economicfoodexchanger.service.BidBookService;
+import com.economicfoodexchanger.service.BidSubmissionService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/bitdetails")
@@ -20,6 +28,15 @@ public class BitDetailsController {
     @Autowired
     UserDao userDao;
 
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    BidBookService bidBookService;
+
+    @Autowired
+    BidSubmissionService bidSubmissionService;
+
     @GetMapping("/all")
     public List<BitDetails> getAll() {
         return bitDetailsDao.findAll();
@@ -27,18 +44,42 @@ public class BitDetailsController {
 
     @PostMapping("/addbit")
     public String uploadBitDetails(@RequestBody BitDetails bitDetails, @RequestParam Integer postid) {
-
+        // Same rule as /submit: no bids once the post is confirmed, complete or past its deadline
+        if (sharedPostDao.countTakingBidsById(postid) == 0) {
+            if (!sharedPostDao.existsById(postid)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Post not found: " + postid);
+            }
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Post " + postid + " is not open for bids");
+        }
         bitDetails.setSharedpost(sharedPostDao.getReferenceById(postid));
         bitDetails.setUser(userDao.getReferenceById(1));
         System.out.println(bitDetails.getDeliverylocation());
         try {
             bitDetailsDao.save(bitDetails);
+            eventPublisher.publishEvent(new BidChangedEvent(bitDetails.getId(), postid, BidChangedEvent.Change.ADDED,
+                    bitDetails.getBitrate(), bitDetails.getNeedamount()));
             return "Bit details uploaded successfully!";
         } catch (Exception e) {
             return "Upload failed: " + e.getMessage();
         }
     }
 
+    // Batched intake for busy lots: the bid is validated, queued and inserted together with other
+    // bids in one JDBC batch. By default the answer (201) waits for that commit, so an acknowledged
+    // bid is stored; wait=false answers 202 as soon as it is queued, before it is durable.
+    // A full queue is answered with 503.
+    @PostMapping("/submit")
+    public CompletableFuture<ResponseEntity<BidSubmissionDto>> submitBid(@RequestBody BitDetails bitDetails,
+                                                                         @RequestParam Integer postid,
+                                                                         @RequestParam(defaultValue = "true") boolean wait) {
+        CompletableFuture<Integer> saved = bidSubmissionService.submit(postid, bitDetails);
+        if (!wait) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(new BidSubmissionDto(postid, null, "QUEUED")));
+        }
+        return saved.thenApply(bidId -> ResponseEntity.status(HttpStatus.CREATED)
+                .body(new BidSubmissionDto(postid, bidId, "SAVED")));
+    }
 
     @GetMapping("/getbypostid")
     public List<BitDetails> getByPostId(@RequestParam Integer postid) {
@@ -47,14 +88,10 @@ public class BitDetailsController {
         return bitDetailsDao.findBySharedpost(sharedPost);
     }
 
-    public boolean UpdateConfirmation(@RequestParam Integer bitId) {
-        Optional<BitDetails> bitDetailsDetails = bitDetailsDao.findById(bitId);
-        if (bitDetailsDetails.isPresent()) {
-            BitDetails bitDetails = bitDetailsDetails.get();
-            bitDetails.setConformedstate(true);
-            bitDetailsDao.save(bitDetails);
-            return true;
-        }
-        return false;
+    // Best bid, top bids, bid count and spread of a post without loading its bid entities
+    //http://localhost:8080/bitdetails/book?postid=1&top=10
+    @GetMapping("/book")
+    public BidBookDto getBook(@RequestParam Integer postid, @RequestParam(required = false) Integer top) {
+        return bidBookService.getBook(postid, top);
     }
 }
\ No newline at end of file
@@ -1,10 +1,61 @@
 package com.economicfoodexchanger.sharedpost;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface BitDetailsDao extends JpaRepository<BitDetails, Integer> {
 
+    @Override
+    @EntityGraph("BitDetails.withUser")
+    List<BitDetails> findAll();
 
+    @EntityGraph("BitDetails.withUser")
     List<BitDetails> findBySharedpost(SharedPost sharedPost);
+
+    // Bid acceptance: confirms the bid only if it belongs to the post and is not confirmed yet
+    @Modifying
+    @Query(value = "UPDATE bitdetails SET conformedstate = 1 " +
+            "WHERE id = :id AND sharedpost_id = :postId AND COALESCE(conformedstate, 0) = 0", nativeQuery = true)
+    int confirmIfPending(@Param("id") Integer id, @Param("postId") Integer postId);
+
+    // Order book rows (BidOrderBook): one bid with its bidder, without loading entities
+    public interface BookRowProjection {
+        Integer getId();
+        Integer getPostId();
+        BigDecimal getBitrate();
+        BigDecimal getNeedamount();
+        String getDeliveryLocation();
+        Integer getBidderId();
+        String getBidderName();
+        Integer getConfirmedFlag();
+    }
+
+    String BOOK_SELECT = "SELECT b.id AS id, b.sharedpost_id AS postId, b.bitrate AS bitrate, " +
+            "b.needamount AS needamount, b.deliverylocation AS deliveryLocation, " +
+            "u.id AS bidderId, u.name AS bidderName, COALESCE(b.conformedstate, 0) AS confirmedFlag " +
+            "FROM bitdetails b " +
+            "JOIN sharedpost p ON p.id = b.sharedpost_id " +
+            "LEFT JOIN user u ON u.id = b.user_id ";
+
+    @Query(value = BOOK_SELECT + "WHERE " + SharedPostDao.OPEN_POST, nativeQuery = true)
+    List<BookRowProjection> findOpenBookRows();
+
+    @Query(value = BOOK_SELECT + "WHERE b.sharedpost_id = :postId", nativeQuery = true)
+    List<BookRowProjection> findBookRowsByPostId(@Param("postId") Integer postId);
+
+    // Deadline acceptance: bids with placed_at NULL were stored before migration 011, long before any deadline
+    @Query(value = BOOK_SELECT + "WHERE b.sharedpost_id = :postId AND (b.placed_at IS NULL OR b.placed_at <= :deadline)",
+            nativeQuery = true)
+    List<BookRowProjection> findBookRowsByPostIdPlacedBy(@Param("postId") Integer postId,
+                                                         @Param("deadline") LocalDateTime deadline);
+
+    @Query(value = BOOK_SELECT + "WHERE b.id = :id", nativeQuery = true)
+    Optional<BookRowProjection> findBookRowById(@Param("id") Integer id);
 }
@@ -0,0 +1,6 @@
+package com.economicfoodexchanger.sharedpost;
+
+// What happens to a post when its bidding deadline passes; a post without one is treated as CLOSE
+public enum ClosePolicy {
+    CLOSE, ACCEPT_BEST
+}
@@ -1,4 +1,6 @@
 package com.economicfoodexchanger.sharedpost;
+import java.io.ByteArrayInputStream;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -23,6 +25,21 @@ public class MediaContainer implements Serializable {
         this.mediaFiles.add(mediaFile);
     }
 
+    // Reads a container serialized into the legacy sharedpost.photos column
+    public static MediaContainer deserialize(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return new MediaContainer();
+        }
+
+        try (ByteArrayInputStream bis = new ByteArrayInputStream(bytes);
+             ObjectInputStream ois = new ObjectInputStream(bis)) {
+            return (MediaContainer) ois.readObject();
+        } catch (Exception e) {
+            System.err.println("Error deserializing media container: " + e.getMessage());
+            return new MediaContainer();
+        }
+    }
+
     public static class MediaFile implements Serializable {
         private static final long serialVersionUID = 1L;
         private byte[] data;
@@ -30,6 +47,8 @@ public class MediaContainer implements Serializable {
         private String fileName;
         private MediaType mediaType;
         private long fileSize;
+        // Content key in the MediaStore; when set, data is not kept in the container
+        private String storageKey;
 
         public MediaFile() {}
 
@@ -41,6 +60,14 @@ public class MediaContainer implements Serializable {
             this.fileSize = data != null ? data.length : 0;
         }
 
+        public MediaFile(String storageKey, long fileSize, String contentType, String fileName, MediaType mediaType) {
+            this.storageKey = storageKey;
+            this.fileSize = fileSize;
+            this.contentType = contentType;
+            this.fileName = fileName;
+            this.mediaType = mediaType;
+        }
+
         // Getters and setters
         public byte[] getData() { return data; }
         public void setData(byte[] data) {
@@ -59,6 +86,9 @@ public class MediaContainer implements Serializable {
 
         public long getFileSize() { return fileSize; }
         public void setFileSize(long fileSize) { this.fileSize = fileSize; }
+
+        public String getStorageKey() { return storageKey; }
+        public void setStorageKey(String storageKey) { this.storageKey = storageKey; }
     }
 
     public enum MediaType {
@@ -0,0 +1,6 @@
+package com.economicfoodexchanger.sharedpost;
+
+// Processing state of a post_media row
+public enum MediaStatus {
+    PROCESSING, READY, FAILED
+}
@@ -0,0 +1,177 @@
+package com.economicfoodexchanger.sharedpost;
+
+import com.economicfoodexchanger.media.MediaStore;
+import com.economicfoodexchanger.media.UploadSessionStore;
+import com.economicfoodexchanger.service.PostMediaService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// Resumable uploads for large post media (videos over mobile links):
+//   POST   /sharedpost/uploads?postId=&fileName=&contentType=&totalSize=   -> session with chunkSize
+//   PUT    /sharedpost/uploads/{uploadId}/chunks/{n}?offset=n*chunkSize    (raw bytes in the body)
+//   GET    /sharedpost/uploads/{uploadId}                                  -> received offset
+//   POST   /sharedpost/uploads/{uploadId}/finalize                         -> adds the file to the post;
+//                                                                             repeating it returns the same result
+//   DELETE /sharedpost/uploads/{uploadId}
+@RestController
+@RequestMapping("/sharedpost/uploads")
+public class MediaUploadController {
+
+    @Autowired
+    UploadSessionStore uploadSessionStore;
+
+    @Autowired
+    MediaStore mediaStore;
+
+    @Autowired
+    PostMediaService postMediaService;
+
+    @Autowired
+    SharedPostDao sharedPostDao;
+
+    @PostMapping
+    public ResponseEntity<UploadStatus> createSession(@RequestParam Integer postId,
+                                                      @RequestParam(required = false) String fileName,
+                                                      @RequestParam String contentType,
+                                                      @RequestParam long totalSize) throws IOException {
+        if (!sharedPostDao.existsById(postId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Post not found: " + postId);
+        }
+        if (!PostMediaService.isSupported(contentType)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported media type: " + contentType);
+        }
+
+        UploadSessionStore.Session session = uploadSessionStore.create(postId, fileName, contentType, totalSize);
+        return ResponseEntity.status(HttpStatus.CREATED).body(UploadStatus.of(session, 0));
+    }
+
+    @PutMapping("/{uploadId}/chunks/{chunk}")
+    public UploadStatus uploadChunk(@PathVariable String uploadId, @PathVariable int chunk,
+                                    @RequestParam long offset, HttpServletRequest request) throws IOException {
+        UploadSessionStore.Session session = requireSession(uploadId);
+        if (uploadSessionStore.isFinalizing(session)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Upload " + uploadId + " is already being finalized");
+        }
+        try (InputStream body = request.getInputStream()) {
+            long received = uploadSessionStore.writeChunk(session, chunk, offset, body);
+            return UploadStatus.of(session, received);
+        }
+    }
+
+    @GetMapping("/{uploadId}")
+    public UploadStatus getStatus(@PathVariable String uploadId) throws IOException {
+        UploadSessionStore.Session session = requireSession(uploadId);
+        return UploadStatus.of(session, uploadSessionStore.receivedOffset(session));
+    }
+
+    @PostMapping("/{uploadId}/finalize")
+    public UploadStatus finalizeUpload(@PathVariable String uploadId) throws IOException {
+        UploadSessionStore.Session session = requireSession(uploadId);
+        Integer finalized = uploadSessionStore.finalizedMediaIndex(session);
+        if (finalized != null) {
+            // A retry after a timeout or a double submit: already attached, answer the same
+            return finalizedStatus(session, finalized);
+        }
+        if (!uploadSessionStore.claimFinalize(session)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Upload " + uploadId + " is being finalized, try again shortly");
+        }
+
+        PostMedia media;
+        try {
+            long received = uploadSessionStore.receivedOffset(session);
+            if (received < session.getTotalSize()) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Upload incomplete: " + received + " of " + session.getTotalSize() + " bytes received");
+            }
+
+            String storageKey;
+            try (InputStream assembled = uploadSessionStore.openAssembled(session)) {
+                storageKey = mediaStore.put(assembled);
+            }
+            media = postMediaService.attach(session.getPostId(), storageKey,
+                    session.getFileName(), session.getContentType());
+        } catch (IOException | RuntimeException e) {
+            uploadSessionStore.releaseFinalize(session);
+            throw e;
+        }
+        uploadSessionStore.completeFinalize(session, media.getOrdinal());
+        return finalizedStatus(session, media.getOrdinal());
+    }
+
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<Void> cancelUpload(@PathVariable String uploadId) throws IOException {
+        requireSession(uploadId);
+        uploadSessionStore.delete(uploadId);
+        return ResponseEntity.noContent().build();
+    }
+
+    private static UploadStatus finalizedStatus(UploadSessionStore.Session session, int mediaIndex) {
+        UploadStatus status = UploadStatus.of(session, session.getTotalSize());
+        status.setMediaIndex(mediaIndex);
+        status.setUrl("/sharedpost/media/" + session.getPostId() + "/" + mediaIndex);
+        return status;
+    }
+
+    private UploadSessionStore.Session requireSession(String uploadId) throws IOException {
+        UploadSessionStore.Session session = uploadSessionStore.get(uploadId);
+        if (session == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Upload session not found or expired: " + uploadId);
+        }
+        return session;
+    }
+
+    public static class UploadStatus {
+        private String uploadId;
+        private Integer postId;
+        private long totalSize;
+        private long chunkSize;
+        private int chunkCount;
+        private long receivedOffset;
+        private int nextChunk;
+        private boolean complete;
+        private Integer mediaIndex;
+        private String url;
+
+        static UploadStatus of(UploadSessionStore.Session session, long receivedOffset) {
+            UploadStatus status = new UploadStatus();
+            status.setUploadId(session.getUploadId());
+            status.setPostId(session.getPostId());
+            status.setTotalSize(session.getTotalSize());
+            status.setChunkSize(session.getChunkSize());
+            status.setChunkCount(session.getChunkCount());
+            status.setReceivedOffset(receivedOffset);
+            status.setNextChunk((int) (receivedOffset / session.getChunkSize()));
+            status.setComplete(receivedOffset >= session.getTotalSize());
+            return status;
+        }
+
+        // Getters and setters
+        public String getUploadId() { return uploadId; }
+        public void setUploadId(String uploadId) { this.uploadId = uploadId; }
+        public Integer getPostId() { return postId; }
+        public void setPostId(Integer postId) { this.postId = postId; }
+        public long getTotalSize() { return totalSize; }
+        public void setTotalSize(long totalSize) { this.totalSize = totalSize; }
+        public long getChunkSize() { return chunkSize; }
+        public void setChunkSize(long chunkSize) { this.chunkSize = chunkSize; }
+        public int getChunkCount() { return chunkCount; }
+        public void setChunkCount(int chunkCount) { this.chunkCount = chunkCount; }
+        public long getReceivedOffset() { return receivedOffset; }
+        public void setReceivedOffset(long receivedOffset) { this.receivedOffset = receivedOffset; }
+        public int getNextChunk() { return nextChunk; }
+        public void setNextChunk(int nextChunk) { this.nextChunk = nextChunk; }
+        public boolean isComplete() { return complete; }
+        public void setComplete(boolean complete) { this.complete = complete; }
+        public Integer getMediaIndex() { return mediaIndex; }
+        public void setMediaIndex(Integer mediaIndex) { this.mediaIndex = mediaIndex; }
+        public String getUrl() { return url; }
+        public void setUrl(String url) { this.url = url; }
+    }
+}
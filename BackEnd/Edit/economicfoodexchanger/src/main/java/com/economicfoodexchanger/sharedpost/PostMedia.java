@@ -0,0 +1,80 @@
+package com.economicfoodexchanger.sharedpost;
+
+import com.economicfoodexchanger.media.MediaSize;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One row per media file of a post. The bytes live in the MediaStore under storageKey
+// and are only read when that file is requested.
+@Entity
+@Table(name = "post_media")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostMedia {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "sharedpost_id", referencedColumnName = "id")
+    private SharedPost sharedPost;
+
+    @Column(name = "ordinal")
+    private Integer ordinal;
+
+    @Column(name = "file_name")
+    private String fileName;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "media_type", length = 10)
+    private MediaContainer.MediaType mediaType;
+
+    @Column(name = "file_size")
+    private Long fileSize;
+
+    @Column(name = "width")
+    private Integer width;
+
+    @Column(name = "height")
+    private Integer height;
+
+    // Key of the file as served; points at the original until processing has finished
+    @Column(name = "storage_key", length = 64)
+    private String storageKey;
+
+    // Key of the file exactly as uploaded
+    @Column(name = "original_key", length = 64)
+    private String originalKey;
+
+    // Downscaled copies for feed tiles and previews (images only)
+    @Column(name = "thumb_key", length = 64)
+    private String thumbKey;
+
+    @Column(name = "medium_key", length = 64)
+    private String mediumKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 12)
+    private MediaStatus status;
+
+    // Key to serve for the requested size, or null if that derivative has not been generated
+    public String storageKeyFor(MediaSize size) {
+        switch (size) {
+            case THUMB:
+                return thumbKey;
+            case MEDIUM:
+                return mediumKey;
+            default:
+                return storageKey;
+        }
+    }
+}
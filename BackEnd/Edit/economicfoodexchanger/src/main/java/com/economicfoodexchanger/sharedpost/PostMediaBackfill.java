@@ -0,0 +1,110 @@
+package com.economicfoodexchanger.sharedpost;
+
+import com.economicfoodexchanger.media.HotMediaCache;
+import com.economicfoodexchanger.media.ImageDimensions;
+import com.economicfoodexchanger.media.MediaStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Moves posts still stored as a serialized MediaContainer in sharedpost.photos into
+ * post_media rows (bytes go to the MediaStore). Runs on startup and only touches posts whose
+ * photos column is still set, so it is safe to leave enabled.
+ */
+@Component
+public class PostMediaBackfill implements ApplicationRunner {
+
+    @Autowired
+    SharedPostDao sharedPostDao;
+
+    @Autowired
+    PostMediaDao postMediaDao;
+
+    @Autowired
+    MediaStore mediaStore;
+
+    @Autowired
+    HotMediaCache hotMediaCache;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Value("${media.backfill.enabled:true}")
+    boolean enabled;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+
+        List<Integer> postIds = sharedPostDao.findIdsWithLegacyMedia();
+        if (postIds.isEmpty()) {
+            return;
+        }
+
+        System.out.println("=== BACKFILLING post_media FOR " + postIds.size() + " POSTS ===");
+        int migrated = 0;
+        for (Integer postId : postIds) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> migratePost(postId));
+                hotMediaCache.invalidatePost(postId);
+                migrated++;
+            } catch (Exception e) {
+                System.err.println("Backfill failed for post " + postId + ": " + e.getMessage());
+            }
+        }
+        System.out.println("Backfill done: " + migrated + "/" + postIds.size() + " posts migrated");
+    }
+
+    private void migratePost(Integer postId) {
+        // A previous run may have inserted rows and failed before clearing the blob
+        if (postMediaDao.countBySharedPostId(postId) > 0) {
+            sharedPostDao.clearLegacyMedia(postId);
+            return;
+        }
+
+        MediaContainer container = MediaContainer.deserialize(sharedPostDao.findLegacyMediaById(postId));
+        SharedPost post = sharedPostDao.getReferenceById(postId);
+
+        List<MediaContainer.MediaFile> files = container.getMediaFiles();
+        for (int i = 0; i < files.size(); i++) {
+            MediaContainer.MediaFile file = files.get(i);
+            try {
+                String storageKey = file.getStorageKey() != null ? file.getStorageKey() : mediaStore.put(file.getData());
+
+                PostMedia media = new PostMedia();
+                media.setSharedPost(post);
+                media.setOrdinal(i);
+                media.setFileName(file.getFileName());
+                media.setContentType(file.getContentType());
+                media.setMediaType(file.getMediaType());
+                media.setFileSize(mediaStore.size(storageKey));
+                media.setStorageKey(storageKey);
+                media.setOriginalKey(storageKey);
+                media.setStatus(MediaStatus.READY);
+
+                if (file.getMediaType() == MediaContainer.MediaType.IMAGE) {
+                    ByteBuffer content = mediaStore.read(storageKey);
+                    int[] dimensions = content != null ? ImageDimensions.read(content) : null;
+                    if (dimensions != null) {
+                        media.setWidth(dimensions[0]);
+                        media.setHeight(dimensions[1]);
+                    }
+                }
+                postMediaDao.save(media);
+            } catch (Exception e) {
+                throw new IllegalStateException("file " + i + ": " + e.getMessage(), e);
+            }
+        }
+
+        sharedPostDao.clearLegacyMedia(postId);
+    }
+}
@@ -0,0 +1,83 @@
+package com.economicfoodexchanger.sharedpost;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PostMediaDao extends JpaRepository<PostMedia, Integer> {
+
+    Optional<PostMedia> findBySharedPostIdAndOrdinal(Integer postId, Integer ordinal);
+
+    long countBySharedPostId(Integer postId);
+
+    // Ordinal for a file appended to a post; call with the post row locked (SharedPostDao.lockById)
+    @Query("SELECT COALESCE(MAX(m.ordinal) + 1, 0) FROM PostMedia m WHERE m.sharedPost.id = :postId")
+    int nextOrdinal(@Param("postId") Integer postId);
+
+    // Startup: media whose processing job was lost with the previous run
+    @Query("SELECT m.id FROM PostMedia m WHERE m.status = :status ORDER BY m.id")
+    List<Integer> findIdsByStatus(@Param("status") MediaStatus status);
+
+    // Image processing results touch only the columns processing owns, and only while the row
+    // still refers to the original that was processed (sourceKey); 0 rows when it was replaced
+    @Modifying
+    @Query("UPDATE PostMedia m SET m.storageKey = :storageKey, m.contentType = :contentType, m.fileSize = :fileSize, " +
+            "m.width = :width, m.height = :height, m.mediumKey = :mediumKey, m.thumbKey = :thumbKey, m.status = :status " +
+            "WHERE m.id = :id AND COALESCE(m.originalKey, m.storageKey) = :sourceKey")
+    int updateProcessed(@Param("id") Integer id, @Param("sourceKey") String sourceKey,
+                        @Param("storageKey") String storageKey, @Param("contentType") String contentType,
+                        @Param("fileSize") Long fileSize, @Param("width") Integer width, @Param("height") Integer height,
+                        @Param("mediumKey") String mediumKey, @Param("thumbKey") String thumbKey,
+                        @Param("status") MediaStatus status);
+
+    @Modifying
+    @Query("UPDATE PostMedia m SET m.mediumKey = :mediumKey, m.thumbKey = :thumbKey, m.status = :status " +
+            "WHERE m.id = :id AND COALESCE(m.originalKey, m.storageKey) = :sourceKey")
+    int updateDerivatives(@Param("id") Integer id, @Param("sourceKey") String sourceKey,
+                          @Param("mediumKey") String mediumKey, @Param("thumbKey") String thumbKey,
+                          @Param("status") MediaStatus status);
+
+    @Modifying
+    @Query("UPDATE PostMedia m SET m.status = :status " +
+            "WHERE m.id = :id AND COALESCE(m.originalKey, m.storageKey) = :sourceKey")
+    int updateStatus(@Param("id") Integer id, @Param("sourceKey") String sourceKey, @Param("status") MediaStatus status);
+
+    public interface MediaInfoProjection {
+        Integer getOrdinal();
+        String getFileName();
+        String getContentType();
+        MediaContainer.MediaType getMediaType();
+        Long getFileSize();
+        Integer getWidth();
+        Integer getHeight();
+        String getStorageKey();
+        String getThumbKey();
+        String getMediumKey();
+        MediaStatus getStatus();
+    }
+
+    @Query("SELECT m.ordinal AS ordinal, m.fileName AS fileName, m.contentType AS contentType, " +
+            "m.mediaType AS mediaType, m.fileSize AS fileSize, m.width AS width, m.height AS height, " +
+            "m.storageKey AS storageKey, m.thumbKey AS thumbKey, m.mediumKey AS mediumKey, m.status AS status " +
+            "FROM PostMedia m WHERE m.sharedPost.id = :postId ORDER BY m.ordinal")
+    List<MediaInfoProjection> findMediaInfoByPostId(@Param("postId") Integer postId);
+
+    public interface FeedMediaProjection {
+        Integer getPostId();
+        Integer getOrdinal();
+        MediaContainer.MediaType getMediaType();
+        String getThumbKey();
+    }
+
+    // Media of a whole feed page in one query
+    @Query("SELECT m.sharedPost.id AS postId, m.ordinal AS ordinal, m.mediaType AS mediaType, m.thumbKey AS thumbKey " +
+            "FROM PostMedia m WHERE m.sharedPost.id IN :postIds ORDER BY m.sharedPost.id, m.ordinal")
+    List<FeedMediaProjection> findFeedMediaByPostIds(@Param("postIds") Collection<Integer> postIds);
+}
@@ -25,7 +25,7 @@ public class Review {
     private String rate;
 
     @JsonIgnore
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "sharedpost_id", referencedColumnName = "id")
     private SharedPost sharedPost;
 }
@@ -1,17 +1,31 @@
 package com.economicfoodexchanger.sharedpost;
 
 import com.economicfoodexchanger.User;
+import com.economicfoodexchanger.geo.Coordinates;
 import com.economicfoodexchanger.sharedpost.delivery.Delivery;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 import java.io.*;
 import java.time.LocalDateTime;
 import java.util.List;
 
+// Post detail as served by /sharedpost/all: owner (with roles and member profile) and category in
+// the post query; bids and reviews follow in one subselect each (see PostReadService).
+@NamedEntityGraph(name = "SharedPost.detail",
+        attributeNodes = {
+                @NamedAttributeNode(value = "username", subgraph = "owner"),
+                @NamedAttributeNode("categoreyStatus")
+        },
+        subgraphs = @NamedSubgraph(name = "owner", attributeNodes = {
+                @NamedAttributeNode("roleList"),
+                @NamedAttributeNode("communityMember")
+        }))
 @Entity
 @Table(name = "sharedpost")
 @Data
@@ -34,6 +48,16 @@ public class SharedPost {
     @Column(name = "latitude")
     private String latitude;
 
+    // Typed copies of latitude/longitude for nearby search, null when not valid coordinates.
+    // A trigger derives the spatially indexed location column from them.
+    @JsonIgnore
+    @Column(name = "geo_lat")
+    private Double geoLat;
+
+    @JsonIgnore
+    @Column(name = "geo_lng")
+    private Double geoLng;
+
     @Column(name = "quentity")
     private String quentity;
 
@@ -47,37 +71,51 @@ public class SharedPost {
     @Column(name = "complete")
     boolean Complete;
 
+    // Bids are taken until then; null keeps the post open until the owner accepts a bid
+    @Column(name = "bidding_deadline")
+    private LocalDateTime biddingDeadline;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "close_policy", length = 20)
+    private ClosePolicy closePolicy;
+
+    // Written only by the deadline close (AuctionCloseService), never through the entity
+    @Column(name = "bidding_closed_at", insertable = false, updatable = false)
+    private LocalDateTime biddingClosedAt;
+
     @Column(name = "conformed")
     boolean Conformed;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", referencedColumnName = "id")
     private User username;
 
-    @OneToMany(mappedBy = "sharedpost", fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "sharedpost", fetch = FetchType.LAZY)
+    @Fetch(FetchMode.SUBSELECT)
     private List<BitDetails> bitDetails;
 
-    @OneToMany(mappedBy = "sharedPost", fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "sharedPost", fetch = FetchType.LAZY)
+    @Fetch(FetchMode.SUBSELECT)
     private List<Review> reviews;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "categoreystatus_id", referencedColumnName = "id")
     private CategoreyStatus categoreyStatus;
 
+    @PrePersist
+    @PreUpdate
+    void updateGeoCoordinates() {
+        Double lat = Coordinates.parseLatitude(latitude);
+        Double lng = Coordinates.parseLongitude(longitude);
+        boolean valid = lat != null && lng != null;
+        geoLat = valid ? lat : null;
+        geoLng = valid ? lng : null;
+    }
+
     @Transient
     @JsonIgnore
     public MediaContainer getMediaContainer() {
-        if (image == null || image.length == 0) {
-            return new MediaContainer();
-        }
-        
-        try (ByteArrayInputStream bis = new ByteArrayInputStream(image);
-             ObjectInputStream ois = new ObjectInputStream(bis)) {
-            return (MediaContainer) ois.readObject();
-        } catch (Exception e) {
-            System.err.println("Error deserializing media container: " + e.getMessage());
-            return new MediaContainer();
-        }
+        return MediaContainer.deserialize(image);
     }
 
     @Transient
@@ -98,31 +136,4 @@ public class SharedPost {
         }
     }
 
-    @Transient
-    @JsonIgnore
-    public void addMediaFile(byte[] data, String contentType, String fileName, MediaContainer.MediaType mediaType) {
-        MediaContainer container = getMediaContainer();
-        MediaContainer.MediaFile mediaFile = new MediaContainer.MediaFile(data, contentType, fileName, mediaType);
-        container.addMediaFile(mediaFile);
-        setMediaContainer(container);
-    }
-
-    @Transient
-    @JsonIgnore
-    public int getMediaCount() {
-        MediaContainer container = getMediaContainer();
-        return container.getMediaFiles().size();
-    }
-
-    @Transient
-    @JsonIgnore
-    public MediaContainer.MediaFile getMediaFile(int index) {
-        MediaContainer container = getMediaContainer();
-        List<MediaContainer.MediaFile> files = container.getMediaFiles();
-        if (index >= 0 && index < files.size()) {
-            return files.get(index);
-        }
-        return null;
-    }
-
 }
\ No newline at end of file
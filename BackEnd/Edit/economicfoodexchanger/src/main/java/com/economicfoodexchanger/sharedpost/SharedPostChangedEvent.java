@@ -0,0 +1,9 @@
+package com.economicfoodexchanger.sharedpost;
+
+// Published after a post was created or saved (edited, confirmed, completed) or closed at its
+// bidding deadline. Listeners keeping their own copy of post data (search index, geo grid) re-read
+// the post.
+public record SharedPostChangedEvent(Integer postId, Change change) {
+
+    public enum Change { CREATED, UPDATED, CONFIRMED, CLOSED }
+}
@@ -2,25 +2,44 @@ package com.economicfoodexchanger.sharedpost;
 
 import com.economicfoodexchanger.User;
 import com.economicfoodexchanger.UserDao;
+import com.economicfoodexchanger.dto.NearbyPostDto;
+import com.economicfoodexchanger.dto.PostMatchDto;
+import com.economicfoodexchanger.dto.PostSearchResultDto;
+import com.economicfoodexchanger.media.HotMediaCache;
+import com.economicfoodexchanger.media.MediaResponseWriter;
+import com.economicfoodexchanger.media.MediaSize;
+import com.economicfoodexchanger.media.MediaStore;
 import com.economicfoodexchanger.sharedpost.delivery.Delivery;
 import com.economicfoodexchanger.sharedpost.delivery.DeliveryController;
+import com.economicfoodexchanger.service.BidAcceptanceService;
 import com.economicfoodexchanger.service.DeliveryService;
+import com.economicfoodexchanger.service.MediaProcessingService;
+import com.economicfoodexchanger.service.NearbyPostService;
+import com.economicfoodexchanger.service.PostFeedCache;
+import com.economicfoodexchanger.service.PostFeedService;
+import com.economicfoodexchanger.service.PostMatchService;
+import com.economicfoodexchanger.service.PostMediaService;
+import com.economicfoodexchanger.service.PostReadService;
+import com.economicfoodexchanger.service.PostSearchService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.repository.query.Param;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.data.domain.Sort;
+import org.springframework.web.server.ResponseStatusException;
 
-import javax.imageio.ImageIO;
-import java.awt.*;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -36,41 +55,160 @@ public class SharedPostController {
     @Autowired
     UserDao userDao;
 
-    @Autowired
-    BitDetailsController bitDetailsController;
-
     @Autowired
     DeliveryController deliveryController;
 
     @Autowired
     DeliveryService deliveryService;
 
+    @Autowired
+    PostMediaDao postMediaDao;
+
+    @Autowired
+    MediaStore mediaStore;
+
+    @Autowired
+    MediaResponseWriter mediaResponseWriter;
+
+    @Autowired
+    MediaProcessingService mediaProcessingService;
+
+    @Autowired
+    HotMediaCache hotMediaCache;
+
+    @Autowired
+    PostMediaService postMediaService;
+
+    @Autowired
+    PostFeedService postFeedService;
+
+    @Autowired
+    PostFeedCache postFeedCache;
+
+    @Autowired
+    PostReadService postReadService;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    NearbyPostService nearbyPostService;
+
+    @Autowired
+    PostSearchService postSearchService;
+
+    @Autowired
+    PostMatchService postMatchService;
+
+    @Autowired
+    BidAcceptanceService bidAcceptanceService;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    // Full entities with bids and reviews; kept for existing clients, use /feed for lists
     @GetMapping("/all")
     public List<SharedPost> getAll() {
-        return sharedPostDao.findAll(Sort.by(Sort.Direction.DESC, "createdateandtime"));
+        return postReadService.findAllNewestFirst();
+    }
+
+    // Newest posts first, at most 50 per page; pass nextCursor back as ?cursor= for the next page.
+    // The first page comes from PostFeedCache as ready-made JSON; X-Feed-Cache says HIT, STALE or MISS.
+    //http://localhost:8080/sharedpost/feed?category=Selling post&limit=20
+    @GetMapping(value = "/feed", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> getFeed(@RequestParam(required = false) String cursor,
+                                     @RequestParam(required = false) String category,
+                                     @RequestParam(required = false) Integer limit) {
+        if (cursor != null && !cursor.isBlank()) {
+            return ResponseEntity.ok(postFeedService.getPage(cursor, category, limit));
+        }
+        PostFeedCache.CachedPage page = postFeedCache.firstPage(category, limit);
+        // A matching If-None-Match gets a 304 without the body
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag("W/\"feed-" + page.version() + "\"")
+                .header("X-Feed-Cache", page.state().name())
+                .body(page.json());
+    }
+
+    // Open posts within radiusKm (capped at geo.nearby.max-radius-km), nearest first
+    //http://localhost:8080/sharedpost/nearby?lat=6.9271&lng=79.8612&radiusKm=10&category=Selling post
+    @GetMapping("/nearby")
+    public List<NearbyPostDto> getNearby(@RequestParam double lat, @RequestParam double lng,
+                                         @RequestParam(defaultValue = "10") double radiusKm,
+                                         @RequestParam(required = false) String category,
+                                         @RequestParam(required = false) Integer limit) {
+        return nearbyPostService.search(lat, lng, radiusKm, category, limit);
+    }
+
+    // Open posts of the other side (buying for selling and the other way round), best match first
+    //http://localhost:8080/sharedpost/12/matches?limit=20
+    @GetMapping("/{id}/matches")
+    public List<PostMatchDto> getMatches(@PathVariable Integer id,
+                                         @RequestParam(required = false) Integer limit) {
+        return postMatchService.matchesFor(id, limit);
+    }
+
+    // Ranked search over title, description and category (English and Sinhala). Prefixes and
+    // small typos match too; closed (confirmed/completed) posts only with includeClosed=true.
+    //http://localhost:8080/sharedpost/search?q=carrot&page=0&size=20
+    @GetMapping("/search")
+    public PostSearchResultDto search(@RequestParam String q,
+                                      @RequestParam(required = false) String category,
+                                      @RequestParam(defaultValue = "false") boolean includeClosed,
+                                      @RequestParam(required = false) Integer page,
+                                      @RequestParam(required = false) Integer size) {
+        return postSearchService.search(q, category, includeClosed, page, size);
     }
 
     // Old upload method for backward compatibility (single SharedPost object)
     @PostMapping("/upload")
     public String uploadPost(SharedPost sharedPost) {
         try {
+            SharedPostChangedEvent.Change change = sharedPost.getId() == null
+                    ? SharedPostChangedEvent.Change.CREATED : SharedPostChangedEvent.Change.UPDATED;
             sharedPostDao.save(sharedPost);
+            eventPublisher.publishEvent(new SharedPostChangedEvent(sharedPost.getId(), change));
+            if (sharedPost.getId() != null) {
+                // Saving an existing post can replace its media
+                hotMediaCache.invalidatePost(sharedPost.getId());
+            }
             return "Post uploaded successfully!";
         } catch (Exception e) {
             return "Upload failed: " + e.getMessage();
         }
     }
 
-    // New upload method for multiple media files
+    // New upload method for multiple media files. Images are stored as uploaded and
+    // resized in the background; media-info shows when they are ready.
     @PostMapping(value = "/upload-media", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public String uploadPostWithMedia(@RequestParam("title") String title,
                                       @RequestParam("description") String description,
                                       @RequestParam("longitude") String longitude,
                                       @RequestParam("latitude") String latitude,
                                       @RequestParam("quantity") String quantity,
-                                      @RequestParam("files") MultipartFile[] files,
+                                      @RequestParam(value = "files", required = false) MultipartFile[] files,
                                       @RequestParam(value = "userId", defaultValue = "1") Integer userId,
-                                      @RequestPart(value = "categoreystatus_id", required = false) CategoreyStatus categoryStatus) {
+                                      @RequestPart(value = "categoreystatus_id", required = false) CategoreyStatus categoryStatus,
+                                      @RequestParam(value = "biddingDeadline", required = false)
+                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime biddingDeadline,
+                                      @RequestParam(value = "closePolicy", required = false) ClosePolicy closePolicy) {
+        if (files == null) {
+            // Media can also be attached afterwards through a resumable upload session
+            files = new MultipartFile[0];
+        }
+        int imageCount = 0;
+        for (MultipartFile file : files) {
+            if (!file.isEmpty() && file.getContentType() != null && file.getContentType().startsWith("image/")) {
+                imageCount++;
+            }
+        }
+        if (biddingDeadline != null && !biddingDeadline.isAfter(LocalDateTime.now())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "biddingDeadline must be in the future");
+        }
+        // Refuse up front (503) rather than accept work the processing queue cannot take
+        mediaProcessingService.reserve(imageCount);
+
         try {
             System.out.println(categoryStatus.toString());
             SharedPost sharedPost = new SharedPost();
@@ -84,182 +222,230 @@ public class SharedPostController {
             sharedPost.setUsername(userDao.getReferenceById(userId));
             sharedPost.setConformed(false);
             sharedPost.setComplete(false);
+            // Optional auction: closed (or its best bid accepted) by AuctionCloseService at the deadline
+            sharedPost.setBiddingDeadline(biddingDeadline);
+            sharedPost.setClosePolicy(biddingDeadline == null ? null : closePolicy);
 
             // Parse category status JSON
             sharedPost.setCategoreyStatus(categoryStatus);
 
-            MediaContainer mediaContainer = new MediaContainer();
+            List<PostMedia> mediaList = new ArrayList<>();
             System.out.println("=== PROCESSING " + files.length + " FILES ===");
 
             for (MultipartFile file : files) {
                 if (!file.isEmpty()) {
-                    processAndAddMediaFile(file, mediaContainer);
+                    PostMedia media = processMediaFile(file);
+                    if (media != null) {
+                        mediaList.add(media);
+                    }
                 }
             }
 
-            sharedPost.setMediaContainer(mediaContainer);
-            sharedPostDao.save(sharedPost);
-
-            return "Post with " + mediaContainer.getMediaFiles().size() + " media files uploaded successfully!";
+            // Post and media in one transaction, so CREATED reaches the feed cache and live clients
+            // only after both are committed, never for a post whose media are not there yet
+            transactionTemplate.executeWithoutResult(status -> {
+                SharedPost savedPost = sharedPostDao.save(sharedPost);
+                for (int i = 0; i < mediaList.size(); i++) {
+                    mediaList.get(i).setSharedPost(savedPost);
+                    mediaList.get(i).setOrdinal(i);
+                }
+                postMediaDao.saveAll(mediaList);
+                eventPublisher.publishEvent(new SharedPostChangedEvent(savedPost.getId(), SharedPostChangedEvent.Change.CREATED));
+            });
+
+            List<PostMedia> pending = mediaList.stream()
+                    .filter(media -> media.getStatus() == MediaStatus.PROCESSING)
+                    .toList();
+            mediaProcessingService.release(imageCount - pending.size());
+            mediaProcessingService.submitPostMedia(pending);
+
+            return "Post with " + mediaList.size() + " media files uploaded successfully!" +
+                    (pending.isEmpty() ? "" : " " + pending.size() + " image(s) are being processed.");
         } catch (Exception e) {
+            mediaProcessingService.release(imageCount);
             e.printStackTrace();
             return "Upload failed: " + e.getMessage();
         }
     }
 
-    private void processAndAddMediaFile(MultipartFile file, MediaContainer mediaContainer) throws IOException {
-        String contentType = file.getContentType();
-        String fileName = file.getOriginalFilename();
-        
-        if (contentType != null) {
-            if (contentType.startsWith("image/")) {
-                // Compress images
-                byte[] compressedData = compressImage(file.getBytes());
-                mediaContainer.addMediaFile(new MediaContainer.MediaFile(
-                    compressedData, contentType, fileName, MediaContainer.MediaType.IMAGE));
-                
-                System.out.println("IMAGE: " + fileName + 
-                    " - Original: " + formatFileSize(file.getSize()) + 
-                    " - Compressed: " + formatFileSize(compressedData.length));
-                    
-            } else if (contentType.startsWith("video/")) {
-                // Store videos as-is (you can add compression here if needed)
-                byte[] videoData = file.getBytes();
-                mediaContainer.addMediaFile(new MediaContainer.MediaFile(
-                    videoData, contentType, fileName, MediaContainer.MediaType.VIDEO));
-                
-                System.out.println("VIDEO: " + fileName + 
-                    " - Size: " + formatFileSize(videoData.length));
-            } else {
-                System.out.println("Unsupported media type: " + contentType + " for file: " + fileName);
-            }
+    // Streams the file into the MediaStore and returns its post_media row (not yet linked to a post).
+    // The multipart part is already spooled to disk by the container; it is never read into a byte[].
+    private PostMedia processMediaFile(MultipartFile file) throws IOException {
+        if (!PostMediaService.isSupported(file.getContentType())) {
+            System.out.println("Unsupported media type: " + file.getContentType() + " for file: " + file.getOriginalFilename());
+            return null;
         }
+        return postMediaService.describe(storeUpload(file), file.getOriginalFilename(), file.getContentType());
     }
 
-    private byte[] compressImage(byte[] imageBytes) throws IOException {
-        BufferedImage originalImage = ImageIO.read(new ByteArrayInputStream(imageBytes));
-        
-        if (originalImage == null) {
-            return imageBytes;
+    private String storeUpload(MultipartFile file) throws IOException {
+        try (InputStream input = file.getInputStream()) {
+            return mediaStore.put(input);
         }
+    }
 
-        // Image compression settings
-        int maxWidth = 1200;
-        int maxHeight = 900;
-        int originalWidth = originalImage.getWidth();
-        int originalHeight = originalImage.getHeight();
-
-        int newWidth = originalWidth;
-        int newHeight = originalHeight;
+    // Keep existing method for backward compatibility
+    @GetMapping("/image/{id}")
+    public void getImage(@PathVariable Integer id,
+                         @RequestParam(value = "size", required = false) String size,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        getMedia(id, 0, size, request, response); // Get first media file
+    }
 
-        if (originalWidth > maxWidth || originalHeight > maxHeight) {
-            double ratio = Math.min((double) maxWidth / originalWidth, (double) maxHeight / originalHeight);
-            newWidth = (int) (originalWidth * ratio);
-            newHeight = (int) (originalHeight * ratio);
+    // New method to get specific media by index (supports Range requests for video seeking).
+    // size=thumb|medium|full selects a precomputed image size; videos ignore it.
+    @GetMapping("/media/{id}/{index}")
+    public void getMedia(@PathVariable Integer id, @PathVariable Integer index,
+                         @RequestParam(value = "size", required = false) String size,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        MediaSize requestedSize = MediaSize.parse(size);
+        HotMediaCache.CachedMedia cached = hotMediaCache.get(id, index, requestedSize);
+        if (cached != null) {
+            mediaResponseWriter.write(request, response, cached.getContent(),
+                    cached.getContentType(), cached.getFileName(), cached.getEtag());
+            return;
         }
 
-        System.out.println("Original dimensions: " + originalWidth + "x" + originalHeight);
-        System.out.println("Compressed dimensions: " + newWidth + "x" + newHeight);
-
-        BufferedImage compressedImage = new BufferedImage(newWidth, newHeight, BufferedImage.TYPE_INT_RGB);
-        Graphics2D g2d = compressedImage.createGraphics();
-        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-        g2d.drawImage(originalImage, 0, 0, newWidth, newHeight, null);
-        g2d.dispose();
+        Optional<PostMedia> postMedia = postMediaDao.findBySharedPostIdAndOrdinal(id, index);
+
+        if (postMedia.isPresent()) {
+            PostMedia media = postMedia.get();
+            MediaSize mediaSize = media.getMediaType() == MediaContainer.MediaType.IMAGE ? requestedSize : MediaSize.FULL;
+
+            String storageKey = media.storageKeyFor(mediaSize);
+            String contentType = resolveContentType(media.getContentType(), media.getMediaType());
+            boolean cacheable = media.getStatus() != MediaStatus.PROCESSING;
+            if (mediaSize != MediaSize.FULL) {
+                if (storageKey == null) {
+                    // Uploaded before derivatives existed: generate them once, serve the full image meanwhile.
+                    // FAILED images could not be decoded before; trying again on every request only burns workers.
+                    if (media.getStatus() == MediaStatus.READY) {
+                        mediaProcessingService.requestPostMediaDerivatives(media.getId());
+                    }
+                    storageKey = media.getStorageKey();
+                    cacheable = false;
+                } else {
+                    contentType = MediaType.IMAGE_JPEG_VALUE;
+                }
+            }
 
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ImageIO.write(compressedImage, "jpg", baos);
+            ByteBuffer content = mediaStore.read(storageKey);
+            if (content != null) {
+                if (cacheable) {
+                    hotMediaCache.put(id, index, requestedSize, content, contentType, media.getFileName(), storageKey);
+                }
+                mediaResponseWriter.write(request, response, content, contentType, media.getFileName(), storageKey);
+                return;
+            }
+            System.err.println("Media content missing for post " + id + " index " + index);
+        } else if (getLegacyMedia(id, index, requestedSize, request, response)) {
+            return;
+        }
 
-        return baos.toByteArray();
+        response.sendError(HttpServletResponse.SC_NOT_FOUND);
     }
 
-    private String formatFileSize(long bytes) {
-        if (bytes < 1024) return bytes + " B";
-        else if (bytes < 1024 * 1024) return String.format("%.1f KB", bytes / 1024.0);
-        else return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    // Posts not yet moved to post_media by PostMediaBackfill still carry a serialized MediaContainer
+    private boolean getLegacyMedia(Integer id, Integer index, MediaSize requestedSize,
+                                   HttpServletRequest request, HttpServletResponse response) throws IOException {
+        List<MediaContainer.MediaFile> mediaFiles = legacyMediaContainer(id).getMediaFiles();
+        if (index < 0 || index >= mediaFiles.size()) {
+            return false;
+        }
+        MediaContainer.MediaFile mediaFile = mediaFiles.get(index);
+
+        ByteBuffer content = mediaFile.getStorageKey() != null
+                ? mediaStore.read(mediaFile.getStorageKey())
+                : (mediaFile.getData() != null ? ByteBuffer.wrap(mediaFile.getData()) : null);
+        if (content == null) {
+            return false;
+        }
+
+        // Legacy posts have no smaller sizes, so every size maps to the same bytes
+        String contentType = resolveContentType(mediaFile.getContentType(), mediaFile.getMediaType());
+        hotMediaCache.put(id, index, requestedSize, content, contentType, mediaFile.getFileName(), mediaFile.getStorageKey());
+        mediaResponseWriter.write(request, response, content, contentType,
+                mediaFile.getFileName(), mediaFile.getStorageKey());
+        return true;
     }
 
-    // Keep existing method for backward compatibility
-    @GetMapping("/image/{id}")
-    public ResponseEntity<byte[]> getImage(@PathVariable Integer id) {
-        return getMedia(id, 0); // Get first media file
+    private MediaContainer legacyMediaContainer(Integer id) {
+        return MediaContainer.deserialize(sharedPostDao.findLegacyMediaById(id));
     }
 
-    // New method to get specific media by index
-    @GetMapping("/media/{id}/{index}")
-    public ResponseEntity<byte[]> getMedia(@PathVariable Integer id, @PathVariable Integer index) {
-        Optional<SharedPost> post = sharedPostDao.findById(id);
-        
-        if (post.isPresent()) {
-            SharedPost sharedPost = post.get();
-            MediaContainer.MediaFile mediaFile = sharedPost.getMediaFile(index);
-            
-            if (mediaFile != null) {
-                HttpHeaders headers = new HttpHeaders();
-                
-                if (mediaFile.getContentType() != null) {
-                    headers.setContentType(MediaType.parseMediaType(mediaFile.getContentType()));
-                } else {
-                    // Fallback based on media type
-                    if (mediaFile.getMediaType() == MediaContainer.MediaType.IMAGE) {
-                        headers.setContentType(MediaType.IMAGE_JPEG);
-                    } else if (mediaFile.getMediaType() == MediaContainer.MediaType.VIDEO) {
-                        headers.setContentType(MediaType.parseMediaType("video/mp4"));
-                    }
-                }
-                
-                if (mediaFile.getFileName() != null) {
-                    headers.add("Content-Disposition", "inline; filename=\"" + mediaFile.getFileName() + "\"");
-                }
-                
-                return ResponseEntity.ok()
-                        .headers(headers)
-                        .body(mediaFile.getData());
-            }
+    private String resolveContentType(String contentType, MediaContainer.MediaType mediaType) {
+        if (contentType != null) {
+            return contentType;
         }
-        
-        return ResponseEntity.notFound().build();
+        // Fallback based on media type
+        if (mediaType == MediaContainer.MediaType.VIDEO) {
+            return "video/mp4";
+        }
+        return MediaType.IMAGE_JPEG_VALUE;
     }
 
     // Get information about all media files in a post
     @GetMapping("/{id}/media-info")
     public ResponseEntity<MediaInfo> getMediaInfo(@PathVariable Integer id) {
-        Optional<SharedPost> post = sharedPostDao.findById(id);
-        
-        if (post.isPresent()) {
-            SharedPost sharedPost = post.get();
-            MediaContainer mediaContainer = sharedPost.getMediaContainer();
-            List<MediaContainer.MediaFile> mediaFiles = mediaContainer.getMediaFiles();
-            
-            MediaInfo info = new MediaInfo();
-            info.setTotalFiles(mediaFiles.size());
-            
+        if (!sharedPostDao.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        MediaInfo info = new MediaInfo();
+        List<PostMediaDao.MediaInfoProjection> mediaRows = postMediaDao.findMediaInfoByPostId(id);
+
+        if (!mediaRows.isEmpty()) {
+            for (PostMediaDao.MediaInfoProjection row : mediaRows) {
+                MediaInfo.FileInfo fileInfo = new MediaInfo.FileInfo();
+                fileInfo.setIndex(row.getOrdinal());
+                fileInfo.setFileName(row.getFileName());
+                fileInfo.setContentType(row.getContentType());
+                fileInfo.setMediaType(String.valueOf(row.getMediaType()));
+                fileInfo.setFileSize(row.getFileSize() != null ? row.getFileSize() : 0);
+                fileInfo.setWidth(row.getWidth());
+                fileInfo.setHeight(row.getHeight());
+                fileInfo.setStatus(String.valueOf(row.getStatus() != null ? row.getStatus() : MediaStatus.READY));
+                fileInfo.setUrl(PostMediaService.mediaUrl(id, row.getOrdinal(), MediaSize.FULL, row.getStorageKey()));
+                if (row.getMediaType() == MediaContainer.MediaType.IMAGE) {
+                    fileInfo.setThumbnailUrl(PostMediaService.mediaUrl(id, row.getOrdinal(), MediaSize.THUMB, row.getThumbKey()));
+                    fileInfo.setMediumUrl(PostMediaService.mediaUrl(id, row.getOrdinal(), MediaSize.MEDIUM, row.getMediumKey()));
+                }
+
+                info.getFiles().add(fileInfo);
+            }
+        } else {
+            List<MediaContainer.MediaFile> mediaFiles = legacyMediaContainer(id).getMediaFiles();
             for (int i = 0; i < mediaFiles.size(); i++) {
                 MediaContainer.MediaFile file = mediaFiles.get(i);
                 MediaInfo.FileInfo fileInfo = new MediaInfo.FileInfo();
                 fileInfo.setIndex(i);
                 fileInfo.setFileName(file.getFileName());
                 fileInfo.setContentType(file.getContentType());
-                fileInfo.setMediaType(file.getMediaType().toString());
+                fileInfo.setMediaType(String.valueOf(file.getMediaType()));
                 fileInfo.setFileSize(file.getFileSize());
+                fileInfo.setStatus(MediaStatus.READY.toString());
                 fileInfo.setUrl("/sharedpost/media/" + id + "/" + i);
-                
+
                 info.getFiles().add(fileInfo);
             }
-            
-            return ResponseEntity.ok(info);
         }
-        
-        return ResponseEntity.notFound().build();
+        info.setTotalFiles(info.getFiles().size());
+        info.setProcessing(info.getFiles().stream()
+                .anyMatch(file -> MediaStatus.PROCESSING.toString().equals(file.getStatus())));
+
+        return ResponseEntity.ok(info);
     }
 
     // Helper class for media information response
     public static class MediaInfo {
         private int totalFiles;
+        private boolean processing;
         private List<FileInfo> files = new ArrayList<>();
         
         public int getTotalFiles() { return totalFiles; }
         public void setTotalFiles(int totalFiles) { this.totalFiles = totalFiles; }
+        public boolean isProcessing() { return processing; }
+        public void setProcessing(boolean processing) { this.processing = processing; }
         public List<FileInfo> getFiles() { return files; }
         public void setFiles(List<FileInfo> files) { this.files = files; }
         
@@ -269,7 +455,12 @@ public class SharedPostController {
             private String contentType;
             private String mediaType;
             private long fileSize;
+            private Integer width;
+            private Integer height;
+            private String status;
             private String url;
+            private String thumbnailUrl;
+            private String mediumUrl;
             
             public int getIndex() { return index; }
             public void setIndex(int index) { this.index = index; }
@@ -281,8 +472,18 @@ public class SharedPostController {
             public void setMediaType(String mediaType) { this.mediaType = mediaType; }
             public long getFileSize() { return fileSize; }
             public void setFileSize(long fileSize) { this.fileSize = fileSize; }
+            public Integer getWidth() { return width; }
+            public void setWidth(Integer width) { this.width = width; }
+            public Integer getHeight() { return height; }
+            public void setHeight(Integer height) { this.height = height; }
+            public String getStatus() { return status; }
+            public void setStatus(String status) { this.status = status; }
             public String getUrl() { return url; }
             public void setUrl(String url) { this.url = url; }
+            public String getThumbnailUrl() { return thumbnailUrl; }
+            public void setThumbnailUrl(String thumbnailUrl) { this.thumbnailUrl = thumbnailUrl; }
+            public String getMediumUrl() { return mediumUrl; }
+            public void setMediumUrl(String mediumUrl) { this.mediumUrl = mediumUrl; }
         }
     }
 
@@ -294,24 +495,13 @@ public class SharedPostController {
         return sharedPostList;
     }
 
+    // Accepts one bid: post, bid, payment and delivery are written in one transaction (BidAcceptanceService).
+    // Only the first of concurrent or repeated calls for a post succeeds; the others get 409.
     //http://localhost:8080/sharedpost/updatebitconfirmation?bitid=1&sharedpostid=1
     @PutMapping(value = "/updatebitconfirmation")
     public boolean SharedPostConformation(@RequestBody Delivery delivery, @Param("bitid") Integer bitid, @Param("sharedpostid") Integer sharedpostid) {
-        if(bitDetailsController.UpdateConfirmation(bitid)){
-            Optional<SharedPost> sharedPostOptional = sharedPostDao.findById(sharedpostid);
-            if (sharedPostOptional.isPresent()) {
-                SharedPost sharedPost = sharedPostOptional.get();
-                sharedPost.setConformed(true);
-                sharedPostDao.save(sharedPost);
-
-                deliveryService.createInitialDelivery(delivery, sharedPost);
-                return true;
-            } else {
-                return false;
-            }
-        } else {
-            return false;
-        }
+        bidAcceptanceService.acceptBid(sharedpostid, bitid, delivery);
+        return true;
     }
 
     @GetMapping("/getposybyuserid")
@@ -319,7 +509,7 @@ public class SharedPostController {
         Optional<User> userOptional = userDao.findById(1);
         if (userOptional.isPresent()) {
             User user = userOptional.get();
-            return sharedPostDao.getAllByUsername(user);
+            return postReadService.findByOwner(user);
         } else {
             return new ArrayList<>(); // Return empty list if user not found
         }
@@ -1,18 +1,236 @@
 package com.economicfoodexchanger.sharedpost;
 
 import com.economicfoodexchanger.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface SharedPostDao extends JpaRepository<SharedPost, Integer> {
+    @EntityGraph("SharedPost.detail")
     List<SharedPost> getAllByUsername(User user);
 
+    @Override
+    @EntityGraph("SharedPost.detail")
+    List<SharedPost> findAll(Sort sort);
+
+    // Legacy serialized MediaContainer blobs still waiting to be moved into post_media
+    @Query(value = "SELECT id FROM sharedpost WHERE photos IS NOT NULL", nativeQuery = true)
+    List<Integer> findIdsWithLegacyMedia();
+
+    @Query(value = "SELECT COUNT(*) FROM sharedpost WHERE id = :id AND photos IS NOT NULL", nativeQuery = true)
+    long countLegacyMediaById(@Param("id") Integer id);
+
+    // Row lock on the post until commit; serializes media appends of one post. Empty when missing.
+    @Query(value = "SELECT id FROM sharedpost WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Integer> lockById(@Param("id") Integer id);
+
+    @Query(value = "SELECT photos FROM sharedpost WHERE id = :id", nativeQuery = true)
+    byte[] findLegacyMediaById(@Param("id") Integer id);
+
+    @Modifying
+    @Query(value = "UPDATE sharedpost SET photos = NULL WHERE id = :id", nativeQuery = true)
+    int clearLegacyMedia(@Param("id") Integer id);
+
+    // Open for bids: not confirmed, not completed and not closed at its bidding deadline.
+    // Every "open posts" query below uses this condition on alias p.
+    String OPEN_POST = "COALESCE(p.conformed, 0) = 0 AND COALESCE(p.complete, 0) = 0 AND p.bidding_closed_at IS NULL ";
+
+    // Bid intake: open and before its deadline. A post stays open for a moment after the deadline,
+    // until AuctionCloseService has closed it or accepted a bid, but takes no bids in that time.
+    String TAKING_BIDS = OPEN_POST + "AND (p.bidding_deadline IS NULL OR p.bidding_deadline > NOW()) ";
+
+    // Bid acceptance: only one caller can move an open post to confirmed (0 rows for everyone else)
+    @Modifying
+    @Query(value = "UPDATE sharedpost p SET p.conformed = 1 WHERE p.id = :id AND " + OPEN_POST, nativeQuery = true)
+    int confirmIfOpen(@Param("id") Integer id);
+
+    // Bid intake: 1 while the post takes bids, 0 when it is confirmed, complete, past its deadline or missing
+    @Query(value = "SELECT COUNT(*) FROM sharedpost p WHERE p.id = :id AND " + TAKING_BIDS, nativeQuery = true)
+    long countTakingBidsById(@Param("id") Integer id);
+
+    // Deadline close: only an open post whose deadline has passed, so an extended deadline is respected
+    @Modifying
+    @Query(value = "UPDATE sharedpost p SET p.bidding_closed_at = :now " +
+            "WHERE p.id = :id AND p.bidding_deadline <= :now AND " + OPEN_POST, nativeQuery = true)
+    int closeIfExpired(@Param("id") Integer id, @Param("now") LocalDateTime now);
+
+    // Pending bidding deadlines of open posts (idx_sharedpost_open_deadline)
+    public interface DeadlineProjection {
+        Integer getId();
+        LocalDateTime getDeadline();
+        String getClosePolicy();
+    }
+
+    String OPEN_DEADLINES = "SELECT p.id AS id, p.bidding_deadline AS deadline, p.close_policy AS closePolicy " +
+            "FROM sharedpost p WHERE p.bidding_deadline IS NOT NULL AND " + OPEN_POST;
+
+    @Query(value = OPEN_DEADLINES, nativeQuery = true)
+    List<DeadlineProjection> findOpenDeadlines();
+
+    @Query(value = OPEN_DEADLINES + "AND p.id = :id", nativeQuery = true)
+    Optional<DeadlineProjection> findOpenDeadlineById(@Param("id") Integer id);
+
+    // Feed rows: keyset pagination on (createdateandtime, id), backed by idx_sharedpost_feed.
+    // Only list columns are selected, never the photos blob or the bid/review collections.
+    public interface FeedRowProjection {
+        Integer getId();
+        String getTitle();
+        String getQuantity();
+        String getLatitude();
+        String getLongitude();
+        String getCategory();
+        Integer getOwnerId();
+        String getOwnerName();
+        LocalDateTime getCreatedAt();
+        Long getMediaCount();
+        Long getBidCount();
+    }
+
+    String FEED_SELECT = "SELECT p.id AS id, p.title AS title, p.quentity AS quantity, " +
+            "p.latitude AS latitude, p.longitude AS longitude, c.status AS category, " +
+            "u.id AS ownerId, u.name AS ownerName, p.createdateandtime AS createdAt, " +
+            "(SELECT COUNT(m) FROM PostMedia m WHERE m.sharedPost = p) AS mediaCount, " +
+            "(SELECT COUNT(b) FROM BitDetails b WHERE b.sharedpost = p) AS bidCount " +
+            "FROM SharedPost p LEFT JOIN p.username u LEFT JOIN p.categoreyStatus c ";
+
+    // category null means all categories; a single category uses idx_sharedpost_category_feed
+    @Query(FEED_SELECT +
+            "WHERE p.createdateandtime IS NOT NULL AND (:category IS NULL OR c.status = :category) " +
+            "ORDER BY p.createdateandtime DESC, p.id DESC")
+    List<FeedRowProjection> findFeedFirstPage(@Param("category") String category, Pageable pageable);
+
+    @Query(FEED_SELECT +
+            "WHERE (p.createdateandtime < :createdAt OR (p.createdateandtime = :createdAt AND p.id < :id)) " +
+            "AND (:category IS NULL OR c.status = :category) " +
+            "ORDER BY p.createdateandtime DESC, p.id DESC")
+    List<FeedRowProjection> findFeedPageAfter(@Param("category") String category,
+                                              @Param("createdAt") LocalDateTime createdAt,
+                                              @Param("id") Integer id, Pageable pageable);
+
+    // Nearby search over open posts with valid coordinates (geo_lat/geo_lng, location; migration 006)
+    public interface GeoRowProjection {
+        Integer getId();
+        Double getLatitude();
+        Double getLongitude();
+        String getTitle();
+        String getQuantity();
+        String getCategory();
+        String getOwnerName();
+    }
+
+    public interface NearbyRowProjection extends GeoRowProjection {
+        Double getDistanceMeters();
+    }
+
+    String GEO_SELECT = "SELECT p.id AS id, p.geo_lat AS latitude, p.geo_lng AS longitude, p.title AS title, " +
+            "p.quentity AS quantity, c.status AS category, u.name AS ownerName ";
+
+    String GEO_OPEN_POSTS = "FROM sharedpost p " +
+            "LEFT JOIN categoreystatus c ON c.id = p.categoreystatus_id " +
+            "LEFT JOIN user u ON u.id = p.user_id " +
+            "WHERE p.geo_lat IS NOT NULL AND p.geo_lng IS NOT NULL " +
+            "AND " + OPEN_POST;
+
+    @Query(value = GEO_SELECT + GEO_OPEN_POSTS, nativeQuery = true)
+    List<GeoRowProjection> findOpenGeoRows();
+
+    @Query(value = GEO_SELECT + GEO_OPEN_POSTS + "AND p.id = :id", nativeQuery = true)
+    Optional<GeoRowProjection> findOpenGeoRowById(@Param("id") Integer id);
+
+    // The bounding box (WKT polygon in long-lat order) is answered by the SPATIAL index,
+    // the distance filter and ordering are exact on the sphere
+    @Query(value = GEO_SELECT + ", ST_Distance_Sphere(p.location, ST_SRID(POINT(:lng, :lat), 4326)) AS distanceMeters " +
+            GEO_OPEN_POSTS +
+            "AND MBRContains(ST_GeomFromText(:box, 4326, 'axis-order=long-lat'), p.location) " +
+            "AND (:category IS NULL OR c.status = :category) " +
+            "HAVING distanceMeters <= :radiusMeters " +
+            "ORDER BY distanceMeters LIMIT :limit", nativeQuery = true)
+    List<NearbyRowProjection> findNearby(@Param("lat") double lat, @Param("lng") double lng,
+                                         @Param("box") String box, @Param("radiusMeters") double radiusMeters,
+                                         @Param("category") String category, @Param("limit") int limit);
+
+    // Search index documents: one row per post, without the photos blob
+    public interface SearchRowProjection {
+        Integer getId();
+        String getTitle();
+        String getDescription();
+        String getCategory();
+        String getQuantity();
+        String getOwnerName();
+        LocalDateTime getCreatedAt();
+        Integer getOpenFlag();
+    }
+
+    String SEARCH_SELECT = "SELECT p.id AS id, p.title AS title, p.discription AS description, c.status AS category, " +
+            "p.quentity AS quantity, u.name AS ownerName, p.createdateandtime AS createdAt, " +
+            "CASE WHEN " + OPEN_POST + "THEN 1 ELSE 0 END AS openFlag " +
+            "FROM sharedpost p " +
+            "LEFT JOIN categoreystatus c ON c.id = p.categoreystatus_id " +
+            "LEFT JOIN user u ON u.id = p.user_id ";
+
+    @Query(value = SEARCH_SELECT, nativeQuery = true)
+    List<SearchRowProjection> findSearchRows();
+
+    @Query(value = SEARCH_SELECT + "WHERE p.id = :id", nativeQuery = true)
+    Optional<SearchRowProjection> findSearchRowById(@Param("id") Integer id);
+
+    // Matching engine rows: open posts with item name, quantity, owner and typed coordinates
+    public interface MatchRowProjection {
+        Integer getId();
+        String getTitle();
+        String getQuantity();
+        String getCategory();
+        Integer getOwnerId();
+        String getOwnerName();
+        Double getLatitude();
+        Double getLongitude();
+    }
+
+    String MATCH_OPEN_POSTS = "SELECT p.id AS id, p.title AS title, p.quentity AS quantity, c.status AS category, " +
+            "u.id AS ownerId, u.name AS ownerName, p.geo_lat AS latitude, p.geo_lng AS longitude " +
+            "FROM sharedpost p " +
+            "LEFT JOIN categoreystatus c ON c.id = p.categoreystatus_id " +
+            "LEFT JOIN user u ON u.id = p.user_id " +
+            "WHERE " + OPEN_POST;
+
+    @Query(value = MATCH_OPEN_POSTS, nativeQuery = true)
+    List<MatchRowProjection> findOpenMatchRows();
+
+    @Query(value = MATCH_OPEN_POSTS + "AND p.id = :id", nativeQuery = true)
+    Optional<MatchRowProjection> findOpenMatchRowById(@Param("id") Integer id);
+
+    // Open posts with their category, for the bid order books
+    public interface PostCategoryProjection {
+        Integer getId();
+        String getCategory();
+    }
+
+    String OPEN_POST_CATEGORIES = "SELECT p.id AS id, c.status AS category FROM sharedpost p " +
+            "LEFT JOIN categoreystatus c ON c.id = p.categoreystatus_id " +
+            "WHERE " + OPEN_POST;
+
+    @Query(value = OPEN_POST_CATEGORIES, nativeQuery = true)
+    List<PostCategoryProjection> findOpenPostCategories();
+
+    @Query(value = OPEN_POST_CATEGORIES + "AND p.id = :id", nativeQuery = true)
+    Optional<PostCategoryProjection> findOpenPostCategoryById(@Param("id") Integer id);
+
+    @Query(value = "SELECT p.id AS id, c.status AS category FROM sharedpost p " +
+            "LEFT JOIN categoreystatus c ON c.id = p.categoreystatus_id WHERE p.id = :id", nativeQuery = true)
+    Optional<PostCategoryProjection> findPostCategoryById(@Param("id") Integer id);
+
     public interface ProfitProjection {
         BigDecimal getTotalProfit();
         String getPostSharedDate();
@@ -10,7 +10,6 @@ import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 
 @Entity
@@ -38,28 +37,31 @@ public class Delivery {
     @Column(name = "description")
     private String description;
 
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "payment_id", referencedColumnName = "id")
     private Payment payment;
 
-    @OneToOne(fetch = FetchType.EAGER)
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "sharedpost_id", referencedColumnName = "id")
     private SharedPost sharedPost;
 
+    // Latest row of statusHistory, kept here in the transaction that inserts it (migration 009), so
+    // reading or filtering by the current status needs no history query. Written only by
+    // DeliveryDao.advanceCurrentStatus, which never moves it backwards; saving a loaded entity
+    // must not write back a status that was current when it was read.
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "current_status_id", referencedColumnName = "id", insertable = false, updatable = false)
+    private DeliveryStaus currentStatus;
+
+    @Column(name = "current_status_at", insertable = false, updatable = false)
+    private LocalDateTime currentStatusAt;
+
     @JsonIgnore
     @OneToMany(mappedBy = "delivery", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<DeliveryStatusHistory> statusHistory = new ArrayList<>();
 
-    // Helper method to get current status
-    @Transient
-    public DeliveryStaus getCurrentStatus() {
-        return statusHistory.stream()
-                .max(Comparator.comparing(DeliveryStatusHistory::getStatusDateChange))
-                .map(DeliveryStatusHistory::getDeliveryStaus)
-                .orElse(null);
-    }
-
-    // Helper method to add status change (use with caution - requires transaction context)
+    // Helper method to add status change (use with caution - requires transaction context).
+    // The current status columns are not touched: call DeliveryDao.advanceCurrentStatus as well.
     public void addStatusChange(DeliveryStaus newStatus) {
         DeliveryStatusHistory history = new DeliveryStatusHistory();
         history.setDelivery(this);
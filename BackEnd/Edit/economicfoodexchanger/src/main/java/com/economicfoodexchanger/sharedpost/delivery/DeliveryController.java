@@ -1,9 +1,16 @@
 package com.economicfoodexchanger.sharedpost.delivery;
 
+import com.economicfoodexchanger.dto.DeliveryPositionDto;
 import com.economicfoodexchanger.dto.DeliveryResponseDto;
+import com.economicfoodexchanger.dto.DeliveryStatusListItemDto;
 import com.economicfoodexchanger.dto.DeliveryWithStatusDto;
+import com.economicfoodexchanger.dto.GpsPingDto;
+import com.economicfoodexchanger.dto.PingBatchResultDto;
+import com.economicfoodexchanger.dto.StatusUpdateResultDto;
 import com.economicfoodexchanger.dto.UpdateStatusRequest;
+import com.economicfoodexchanger.service.DeliveryBulkStatusService;
 import com.economicfoodexchanger.service.DeliveryService;
+import com.economicfoodexchanger.service.DeliveryTrackingService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -19,6 +26,12 @@ public class DeliveryController {
     @Autowired
     private DeliveryService deliveryService;
 
+    @Autowired
+    private DeliveryBulkStatusService deliveryBulkStatusService;
+
+    @Autowired
+    private DeliveryTrackingService deliveryTrackingService;
+
     @Autowired
     private DeliveryDao deliveryDao;
 
@@ -51,6 +64,28 @@ public class DeliveryController {
         }
     }
     
+    // Many status changes in one transaction; items: deliveryId, statusId, changedAt (optional,
+    // default now). Invalid items are skipped and reported, the others stored.
+    //http://localhost:8080/delivery/update-status/bulk
+    @PostMapping("/update-status/bulk")
+    public List<StatusUpdateResultDto> updateDeliveryStatuses(@RequestBody List<UpdateStatusRequest> requests) {
+        return deliveryBulkStatusService.updateStatuses(requests);
+    }
+    
+    // Batched GPS fixes from the driver's phone: [{latitude, longitude, accuracy, recordedAt}, ...]
+    //http://localhost:8080/delivery/1/pings
+    @PostMapping("/{deliveryId}/pings")
+    public PingBatchResultDto recordPings(@PathVariable Integer deliveryId, @RequestBody List<GpsPingDto> pings) {
+        return deliveryTrackingService.recordPings(deliveryId, pings);
+    }
+
+    // Where the package is now, from memory while the delivery is being tracked
+    //http://localhost:8080/delivery/1/position
+    @GetMapping("/{deliveryId}/position")
+    public DeliveryPositionDto getPosition(@PathVariable Integer deliveryId) {
+        return deliveryTrackingService.getPosition(deliveryId);
+    }
+    
     //http://localhost:8080/delivery/status-history/1
     @GetMapping("/status-history/{deliveryId}")
     public List<DeliveryStatusHistory> getStatusHistory(@PathVariable Integer deliveryId) {
@@ -67,6 +102,15 @@ public class DeliveryController {
         return ResponseEntity.notFound().build();
     }
     
+    // Deliveries currently in one status, most recently changed first
+    //http://localhost:8080/delivery/by-status?statusId=5&page=0&size=20
+    @GetMapping("/by-status")
+    public List<DeliveryStatusListItemDto> getDeliveriesByStatus(@RequestParam Integer statusId,
+                                                                 @RequestParam(required = false) Integer page,
+                                                                 @RequestParam(required = false) Integer size) {
+        return deliveryService.getDeliveriesByStatus(statusId, page, size);
+    }
+    
     //http://localhost:8080/delivery/getbypostid-with-status?postId=1
     @GetMapping(value = "/getbypostid-with-status")
     public DeliveryWithStatusDto getDeliveryWithStatus(@RequestParam(value = "postId") Integer postId) {
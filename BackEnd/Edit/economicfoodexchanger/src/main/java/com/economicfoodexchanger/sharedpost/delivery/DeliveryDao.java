@@ -2,9 +2,125 @@ package com.economicfoodexchanger.sharedpost.delivery;
 
 import com.economicfoodexchanger.sharedpost.SharedPost;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface DeliveryDao extends JpaRepository<Delivery, Integer> {
     Delivery findBysharedPost(SharedPost sharedPost);
+
+    // Delivery card (DeliveryResponseDto): the delivery, its current status and summaries of its
+    // post and payment in one row. The post's photos and the payment's file are never selected;
+    // LENGTH(pay.file) is computed by MySQL for payments stored before the MediaStore.
+    public interface CardProjection {
+        Integer getId();
+        String getTrackingNumber();
+        String getLocation();
+        String getCurrentPackageLocation();
+        String getDeliveryCompany();
+        String getDescription();
+        Integer getStatusId();
+        String getStatusName();
+        Integer getPostId();
+        String getPostTitle();
+        String getPostQuantity();
+        Integer getPostCategoryId();
+        String getPostCategory();
+        Integer getPostOwnerId();
+        String getPostOwnerName();
+        String getPostOwnerUsername();
+        LocalDateTime getPostCreatedAt();
+        Integer getPostConformedFlag();
+        Integer getPostCompleteFlag();
+        Integer getPaymentId();
+        BigDecimal getPaymentAmount();
+        String getPaymentNote();
+        Integer getPaymentStatusFlag();
+        String getPaymentFiletype();
+        String getPaymentFileHash();
+        Long getPaymentLegacyFileSize();
+        Integer getPaymentTypeId();
+        String getPaymentTypeName();
+    }
+
+    String CARD_SELECT = "SELECT d.id AS id, d.tracking_number AS trackingNumber, d.location AS location, " +
+            "d.current_package_location AS currentPackageLocation, d.delivery_company AS deliveryCompany, " +
+            "d.description AS description, s.id AS statusId, s.name AS statusName, " +
+            "p.id AS postId, p.title AS postTitle, p.quentity AS postQuantity, " +
+            "c.id AS postCategoryId, c.status AS postCategory, u.id AS postOwnerId, u.name AS postOwnerName, " +
+            "u.username AS postOwnerUsername, p.createdateandtime AS postCreatedAt, " +
+            "COALESCE(p.conformed, 0) AS postConformedFlag, COALESCE(p.complete, 0) AS postCompleteFlag, " +
+            "pay.id AS paymentId, pay.amount AS paymentAmount, pay.note AS paymentNote, " +
+            "COALESCE(pay.status, 0) AS paymentStatusFlag, pay.filetype AS paymentFiletype, " +
+            "pay.file_hash AS paymentFileHash, LENGTH(pay.file) AS paymentLegacyFileSize, " +
+            "pt.id AS paymentTypeId, pt.name AS paymentTypeName " +
+            "FROM delivery d " +
+            "LEFT JOIN delivery_staus s ON s.id = d.current_status_id " +
+            "LEFT JOIN sharedpost p ON p.id = d.sharedpost_id " +
+            "LEFT JOIN categoreystatus c ON c.id = p.categoreystatus_id " +
+            "LEFT JOIN user u ON u.id = p.user_id " +
+            "LEFT JOIN payment pay ON pay.id = d.payment_id " +
+            "LEFT JOIN payment_type pt ON pt.id = pay.payment_type_id ";
+
+    @Query(value = CARD_SELECT + "WHERE d.id = :id", nativeQuery = true)
+    Optional<CardProjection> findCardById(@Param("id") Integer id);
+
+    @Query(value = CARD_SELECT + "WHERE d.sharedpost_id = :postId ORDER BY d.id LIMIT 1", nativeQuery = true)
+    Optional<CardProjection> findCardByPostId(@Param("postId") Integer postId);
+
+    // Moves the materialized current status forward only: a change stamped earlier than the
+    // current one (a late or out-of-order update) goes to the history but not here
+    @Modifying
+    @Query(value = "UPDATE delivery SET current_status_id = :statusId, current_status_at = :changedAt " +
+            "WHERE id = :id AND (current_status_at IS NULL OR current_status_at <= :changedAt)", nativeQuery = true)
+    int advanceCurrentStatus(@Param("id") Integer id, @Param("statusId") Integer statusId,
+                             @Param("changedAt") LocalDateTime changedAt);
+
+    // Bulk status updates: which of the ids exist, with their post for the change events
+    public interface DeliveryPostProjection {
+        Integer getId();
+        Integer getPostId();
+    }
+
+    @Query(value = "SELECT d.id AS id, d.sharedpost_id AS postId FROM delivery d WHERE d.id IN (:ids)", nativeQuery = true)
+    List<DeliveryPostProjection> findPostIdsByIdIn(@Param("ids") Collection<Integer> ids);
+
+    // Newest stored GPS position, for deliveries DeliveryPositionTracker no longer holds in memory
+    public interface PositionProjection {
+        Double getLatitude();
+        Double getLongitude();
+        Float getAccuracy();
+        LocalDateTime getRecordedAt();
+    }
+
+    @Query(value = "SELECT p.latitude AS latitude, p.longitude AS longitude, p.accuracy_m AS accuracy, " +
+            "p.recorded_at AS recordedAt FROM delivery_position p WHERE p.delivery_id = :id " +
+            "ORDER BY p.recorded_at DESC LIMIT 1", nativeQuery = true)
+    Optional<PositionProjection> findLatestPosition(@Param("id") Integer id);
+
+    // Deliveries in one status, most recently changed first (idx_delivery_current_status)
+    public interface StatusListProjection {
+        Integer getId();
+        String getTrackingNumber();
+        Integer getPostId();
+        Integer getStatusId();
+        String getStatus();
+        LocalDateTime getStatusChangedAt();
+    }
+
+    @Query(value = "SELECT d.id AS id, d.tracking_number AS trackingNumber, d.sharedpost_id AS postId, " +
+            "d.current_status_id AS statusId, s.name AS status, d.current_status_at AS statusChangedAt " +
+            "FROM delivery d JOIN delivery_staus s ON s.id = d.current_status_id " +
+            "WHERE d.current_status_id = :statusId " +
+            "ORDER BY d.current_status_at DESC, d.id DESC LIMIT :limit OFFSET :offset", nativeQuery = true)
+    List<StatusListProjection> findByCurrentStatus(@Param("statusId") Integer statusId,
+                                                   @Param("limit") int limit, @Param("offset") int offset);
 }
@@ -0,0 +1,8 @@
+package com.economicfoodexchanger.sharedpost.delivery;
+
+import java.time.LocalDateTime;
+
+// Published after a delivery_status_history row was inserted
+public record DeliveryStatusChangedEvent(Integer deliveryId, Integer postId, Integer statusId, String status,
+                                         LocalDateTime changedAt) {
+}
@@ -22,12 +22,12 @@ public class DeliveryStatusHistory {
     @Column(name = "status_date_change")
     private LocalDateTime statusDateChange;
     
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "delivery_staus_id", referencedColumnName = "id")
     private DeliveryStaus deliveryStaus;
     
     @JsonIgnore
-    @ManyToOne(fetch = FetchType.EAGER)
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "delivery_id", referencedColumnName = "id")
     private Delivery delivery;
     
@@ -1,5 +1,6 @@
 package com.economicfoodexchanger.sharedpost.delivery;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,11 +11,13 @@ import java.util.List;
 @Repository
 public interface DeliveryStatusHistoryDao extends JpaRepository<DeliveryStatusHistory, Integer> {
     
+    @EntityGraph(attributePaths = "deliveryStaus")
     List<DeliveryStatusHistory> findByDeliveryIdOrderByStatusDateChangeDesc(Integer deliveryId);
     
     @Query("SELECT dsh FROM DeliveryStatusHistory dsh WHERE dsh.delivery.id = :deliveryId ORDER BY dsh.statusDateChange DESC")
     List<DeliveryStatusHistory> findLatestStatusByDeliveryId(@Param("deliveryId") Integer deliveryId);
     
-    @Query("SELECT dsh FROM DeliveryStatusHistory dsh WHERE dsh.delivery.id = :deliveryId AND dsh.statusDateChange = (SELECT MAX(dsh2.statusDateChange) FROM DeliveryStatusHistory dsh2 WHERE dsh2.delivery.id = :deliveryId)")
-    DeliveryStatusHistory findCurrentStatusByDeliveryId(@Param("deliveryId") Integer deliveryId);
+    // Latest row: the first entry of idx_delivery_status_history_delivery_date for the delivery
+    @EntityGraph(attributePaths = "deliveryStaus")
+    DeliveryStatusHistory findFirstByDeliveryIdOrderByStatusDateChangeDescIdDesc(Integer deliveryId);
 }
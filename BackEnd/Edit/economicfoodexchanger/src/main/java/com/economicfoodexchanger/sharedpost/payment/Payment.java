@@ -24,16 +24,21 @@ public class Payment {
     @Column(name = "note")
     private  String note ;
 
+    // Only set for payments uploaded before files moved to the MediaStore
     @Column(name = "file")
     private byte[]  file;
 
+    // MediaStore key (SHA-256) of the file, also served as its ETag
+    @Column(name = "file_hash", length = 64)
+    private String fileHash;
+
     @Column(name = "status")
     private boolean status;
 
     @Column(name = "filetype")
     private String filetype;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "payment_type_id", referencedColumnName = "id")
     PaymentType paymentType;
 
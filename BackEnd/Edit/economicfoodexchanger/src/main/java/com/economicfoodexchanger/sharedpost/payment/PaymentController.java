@@ -1,11 +1,21 @@
 package com.economicfoodexchanger.sharedpost.payment;
 
+import com.economicfoodexchanger.media.ByteBufferInputStream;
+import com.economicfoodexchanger.media.MediaResponseWriter;
+import com.economicfoodexchanger.media.MediaStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,6 +29,12 @@ public class PaymentController {
     @Autowired
     PaymentTypeDao paymentTypeDao;
 
+    @Autowired
+    MediaResponseWriter mediaResponseWriter;
+
+    @Autowired
+    MediaStore mediaStore;
+
     @GetMapping("/all")
     public List<Payment> getAllPayments() {
         return paymentDao.findAll();
@@ -27,6 +43,10 @@ public class PaymentController {
     @PostMapping("/upload")
     public String uploadPayment(Payment payment) {
         try {
+            if (payment.getFile() != null) {
+                payment.setFileHash(mediaStore.put(payment.getFile()));
+                payment.setFile(null);
+            }
             paymentDao.save(payment);
             return "Payment uploaded successfully!";
         } catch (Exception e) {
@@ -34,30 +54,45 @@ public class PaymentController {
         }
     }
 
+    // Payment files are private: browsers may keep them, shared caches may not
     @GetMapping("/file/{id}")
-    public ResponseEntity<byte[]> getPaymentFile(@PathVariable int id) {
-        Optional<Payment> optionalPayment = paymentDao.findById(id);
-        if (optionalPayment.isPresent()) {
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(MediaType.ALL_VALUE))
-                    .body(optionalPayment.get().getFile());
+    public void getPaymentFile(@PathVariable int id,
+                               HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<PaymentDao.FileInfoProjection> fileInfo = paymentDao.findFileInfoById(id);
+        if (fileInfo.isPresent()) {
+            String fileHash = fileInfo.get().getFileHash();
+            if (mediaResponseWriter.notModified(request, response, fileHash, false)) {
+                return;
+            }
+            ByteBuffer content = fileContent(id, fileHash);
+            if (content != null) {
+                mediaResponseWriter.write(request, response, content,
+                        resolveContentType(fileInfo.get().getFiletype()), null, fileHash, false);
+                return;
+            }
         }
-        return ResponseEntity.notFound().build();
+        response.sendError(HttpServletResponse.SC_NOT_FOUND);
     }
 
     //http://localhost:8080/payment/file/getbyid?id=1
     @GetMapping("/file/getbyid")
-    public ResponseEntity<?> getPaymentFileById(@RequestParam Integer id) {
+    public ResponseEntity<?> getPaymentFileById(@RequestParam Integer id,
+                                                HttpServletRequest request, HttpServletResponse response) {
         try {
-            Optional<Payment> paymentOpt = paymentDao.findById(id);
-            if (!paymentOpt.isPresent()) {
+            Optional<PaymentDao.FileInfoProjection> fileInfo = paymentDao.findFileInfoById(id);
+            if (!fileInfo.isPresent()) {
                 return ResponseEntity.notFound().build();
             }
-            
-            Payment payment = paymentOpt.get();
-            
+
+            String fileHash = fileInfo.get().getFileHash();
+            String filetype = fileInfo.get().getFiletype();
+            if (mediaResponseWriter.notModified(request, response, fileHash, false)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(fileHash).build();
+            }
+
             // Check if payment has a file
-            if (payment.getFile() == null || payment.getFile().length == 0) {
+            ByteBuffer content = fileContent(id, fileHash);
+            if (content == null || !content.hasRemaining()) {
                 return ResponseEntity.badRequest().body(new FileResponse(
                     null, 
                     null, 
@@ -66,50 +101,12 @@ public class PaymentController {
                 ));
             }
             
-            // Determine content type based on filetype
-            String contentType = MediaType.APPLICATION_OCTET_STREAM_VALUE; // Default
-            if (payment.getFiletype() != null && !payment.getFiletype().trim().isEmpty()) {
-                String fileType = payment.getFiletype().toLowerCase().trim();
-                switch (fileType) {
-                    case "pdf":
-                        contentType = "application/pdf";
-                        break;
-                    case "jpg":
-                    case "jpeg":
-                        contentType = "image/jpeg";
-                        break;
-                    case "png":
-                        contentType = "image/png";
-                        break;
-                    case "gif":
-                        contentType = "image/gif";
-                        break;
-                    case "doc":
-                        contentType = "application/msword";
-                        break;
-                    case "docx":
-                        contentType = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
-                        break;
-                    case "xls":
-                        contentType = "application/vnd.ms-excel";
-                        break;
-                    case "xlsx":
-                        contentType = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
-                        break;
-                    case "txt":
-                        contentType = "text/plain";
-                        break;
-                    default:
-                        contentType = "application/" + fileType;
-                        break;
-                }
-            }
-            
             return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
+                    .contentType(MediaType.parseMediaType(resolveContentType(filetype)))
                     .header("Content-Disposition", "inline; filename=\"payment_" + id + "_file." + 
-                           (payment.getFiletype() != null ? payment.getFiletype() : "bin") + "\"")
-                    .body(payment.getFile());
+                           (filetype != null ? filetype : "bin") + "\"")
+                    .contentLength(content.remaining())
+                    .body(new InputStreamResource(new ByteBufferInputStream(content)));
                     
         } catch (Exception e) {
             System.err.println("Error retrieving payment file: " + e.getMessage());
@@ -133,11 +130,12 @@ public class PaymentController {
             }
             
             Payment payment = paymentOpt.get();
-            boolean hasFile = payment.getFile() != null && payment.getFile().length > 0;
+            long fileLength = fileLength(payment);
+            boolean hasFile = fileLength > 0;
             
             FileResponse response = new FileResponse(
                 payment.getFiletype(),
-                hasFile ? formatFileSize(payment.getFile().length) : "0 B",
+                formatFileSize(fileLength),
                 hasFile,
                 hasFile ? "File available" : "No file attached"
             );
@@ -203,15 +201,19 @@ public class PaymentController {
                 existingPayment.setStatus(status);
             }
 
-            // Handle file upload if provided
+            // Handle file upload if provided. The file is streamed into the MediaStore,
+            // the payment only keeps its key (file_hash).
             if (file != null && !file.isEmpty()) {
-                // Validate file size (max 16MB for MEDIUMBLOB)
+                // Validate file size (max 16MB)
                 if (file.getSize() > 16 * 1024 * 1024) {
                     return ResponseEntity.badRequest().body("File size cannot exceed 16MB");
                 }
 
                 try {
-                    existingPayment.setFile(file.getBytes());
+                    try (InputStream input = file.getInputStream()) {
+                        existingPayment.setFileHash(mediaStore.put(input));
+                    }
+                    existingPayment.setFile(null);
 
                     // Set filetype from parameter or detect from file
                     if (filetype != null && !filetype.trim().isEmpty()) {
@@ -271,8 +273,9 @@ public class PaymentController {
             paymentInfo.setStatus(payment.isStatus());
             paymentInfo.setFiletype(payment.getFiletype());
             paymentInfo.setPaymentType(payment.getPaymentType());
-            paymentInfo.setHasFile(payment.getFile() != null && payment.getFile().length > 0);
-            paymentInfo.setFileSize(payment.getFile() != null ? formatFileSize(payment.getFile().length) : "0 B");
+            long fileLength = fileLength(payment);
+            paymentInfo.setHasFile(fileLength > 0);
+            paymentInfo.setFileSize(formatFileSize(fileLength));
             
             return ResponseEntity.ok(paymentInfo);
             
@@ -311,6 +314,65 @@ public class PaymentController {
         public void setFileSize(String fileSize) { this.fileSize = fileSize; }
     }
 
+    // Files uploaded since payments moved to the MediaStore live there under file_hash;
+    // older ones are still in the file column
+    private ByteBuffer fileContent(Integer id, String fileHash) throws IOException {
+        if (mediaStore.contains(fileHash)) {
+            return mediaStore.read(fileHash);
+        }
+        byte[] file = paymentDao.findFileById(id);
+        return file != null ? ByteBuffer.wrap(file) : null;
+    }
+
+    private long fileLength(Payment payment) {
+        if (payment.getFile() != null) {
+            return payment.getFile().length;
+        }
+        return Math.max(0, mediaStore.size(payment.getFileHash()));
+    }
+
+    // Content type from the stored file extension
+    private String resolveContentType(String filetype) {
+        String contentType = MediaType.APPLICATION_OCTET_STREAM_VALUE; // Default
+        if (filetype != null && !filetype.trim().isEmpty()) {
+            String fileType = filetype.toLowerCase().trim();
+            switch (fileType) {
+                case "pdf":
+                    contentType = "application/pdf";
+                    break;
+                case "jpg":
+                case "jpeg":
+                    contentType = "image/jpeg";
+                    break;
+                case "png":
+                    contentType = "image/png";
+                    break;
+                case "gif":
+                    contentType = "image/gif";
+                    break;
+                case "doc":
+                    contentType = "application/msword";
+                    break;
+                case "docx":
+                    contentType = "application/vnd.openxmlformats-officedocument.wordprocessingml.document";
+                    break;
+                case "xls":
+                    contentType = "application/vnd.ms-excel";
+                    break;
+                case "xlsx":
+                    contentType = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+                    break;
+                case "txt":
+                    contentType = "text/plain";
+                    break;
+                default:
+                    contentType = "application/" + fileType;
+                    break;
+            }
+        }
+        return contentType;
+    }
+
     // Helper method for file size formatting
     private String formatFileSize(long bytes) {
         if (bytes < 1024) return bytes + " B";
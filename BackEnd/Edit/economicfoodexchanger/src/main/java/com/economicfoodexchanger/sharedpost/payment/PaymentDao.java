@@ -1,5 +1,30 @@
 package com.economicfoodexchanger.sharedpost.payment;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface PaymentDao extends JpaRepository<Payment, Integer> {
+
+    @Override
+    @EntityGraph(attributePaths = "paymentType")
+    List<Payment> findAll();
+
+    @Override
+    @EntityGraph(attributePaths = "paymentType")
+    Optional<Payment> findById(Integer id);
+
+    public interface FileInfoProjection {
+        String getFileHash();
+        String getFiletype();
+    }
+
+    @Query("SELECT p.fileHash AS fileHash, p.filetype AS filetype FROM Payment p WHERE p.id = :id")
+    Optional<FileInfoProjection> findFileInfoById(@Param("id") Integer id);
+
+    @Query("SELECT p.file FROM Payment p WHERE p.id = :id")
+    byte[] findFileById(@Param("id") Integer id);
 }
@@ -30,10 +30,21 @@ public class ShareStory {
     @Column(name = "image")
     private byte[] image;
 
+    // SHA-256 of image, used as its ETag so conditional requests never read the blob
+    @Column(name = "image_hash", length = 64)
+    private String imageHash;
+
+    // MediaStore keys of the downscaled copies of image
+    @Column(name = "thumb_key", length = 64)
+    private String thumbKey;
+
+    @Column(name = "medium_key", length = 64)
+    private String mediumKey;
+
     @Column(name = "createdateandtime")
     private LocalDateTime createdateandtime;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", referencedColumnName = "id")
     private User username;
 
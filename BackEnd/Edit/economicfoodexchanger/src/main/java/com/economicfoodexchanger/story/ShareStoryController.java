@@ -2,19 +2,21 @@ package com.economicfoodexchanger.story;
 
 
 import com.economicfoodexchanger.UserDao;
+import com.economicfoodexchanger.media.ContentHash;
+import com.economicfoodexchanger.media.MediaResponseWriter;
+import com.economicfoodexchanger.media.MediaSize;
+import com.economicfoodexchanger.media.MediaStore;
+import com.economicfoodexchanger.service.MediaProcessingService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.imageio.ImageIO;
-import java.awt.*;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -31,6 +33,15 @@ public class ShareStoryController {
     @Autowired
     UserDao userDao;
 
+    @Autowired
+    MediaProcessingService mediaProcessingService;
+
+    @Autowired
+    MediaStore mediaStore;
+
+    @Autowired
+    MediaResponseWriter mediaResponseWriter;
+
     @GetMapping("/all")
     public List<ShareStory> getAll() {
         return shareStoryDao.findAll(Sort.by(Sort.Direction.DESC, "createdateandtime"));
@@ -42,27 +53,29 @@ public class ShareStoryController {
                               @RequestParam("description") String description,
                               @RequestParam("image") MultipartFile file) {
 
+        // Refuse up front (503) rather than accept work the processing queue cannot take
+        mediaProcessingService.reserve(1);
+
         try {
             ShareStory story = new ShareStory();
             story.setTitle(title);
             story.setDiscription(description);
 
-            // Show original image size
+            // Save the original now; MediaProcessingService replaces it with the resized image
             byte[] originalBytes = file.getBytes();
-            System.out.println("=== IMAGE COMPRESSION INFO ===");
+            System.out.println("=== STORY IMAGE RECEIVED ===");
             System.out.println("Original image size: " + formatFileSize(originalBytes.length));
+            story.setImage(originalBytes);
+            story.setImageHash(ContentHash.of(originalBytes));
 
-            // Compress image before saving
-            byte[] compressedImage = compressImage(originalBytes);
-            story.setImage(compressedImage);
-
-            // Show compressed image size and compression ratio
             story.setCreatedateandtime(LocalDateTime.now());
             story.setUsername(userDao.getReferenceById(1));
 
-            shareStoryDao.save(story);
+            ShareStory savedStory = shareStoryDao.save(story);
+            mediaProcessingService.submitStoryImage(savedStory.getId());
             return "Story uploaded successfully!";
         } catch (Exception e) {
+            mediaProcessingService.release(1);
             return "Upload failed: " + e.getMessage();
         }
     }
@@ -74,57 +87,41 @@ public class ShareStoryController {
         else return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
     }
 
-    // Your existing compression method stays the same
-    private byte[] compressImage(byte[] imageBytes) throws IOException {
-        BufferedImage originalImage = ImageIO.read(new ByteArrayInputStream(imageBytes));
-
-        // Show original image dimensions
-        System.out.println("Original dimensions: " + originalImage.getWidth() + "x" + originalImage.getHeight());
-
-        // Resize if too large
-        int maxWidth = 800;
-        int maxHeight = 600;
-
-        int originalWidth = originalImage.getWidth();
-        int originalHeight = originalImage.getHeight();
-
-        // Calculate new dimensions
-        int newWidth = originalWidth;
-        int newHeight = originalHeight;
-
-        if (originalWidth > maxWidth || originalHeight > maxHeight) {
-            double ratio = Math.min((double) maxWidth / originalWidth, (double) maxHeight / originalHeight);
-            newWidth = (int) (originalWidth * ratio);
-            newHeight = (int) (originalHeight * ratio);
-        }
-
-        // Show new dimensions
-        System.out.println("Compressed dimensions: " + newWidth + "x" + newHeight);
-
-        // Create compressed image
-        BufferedImage compressedImage = new BufferedImage(newWidth, newHeight, BufferedImage.TYPE_INT_RGB);
-        Graphics2D g2d = compressedImage.createGraphics();
-        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-        g2d.drawImage(originalImage, 0, 0, newWidth, newHeight, null);
-        g2d.dispose();
-
-        // Convert to byte array with compression
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ImageIO.write(compressedImage, "jpg", baos);
-
-        return baos.toByteArray();
-    }
-
 
+    // size=thumb|medium returns a precomputed smaller copy of the story image.
+    // The image blob is only read once the ETag check has decided the client needs it.
     @GetMapping("/image/{id}")
-    public ResponseEntity<byte[]> getImage(@PathVariable Integer id) {
-        Optional<ShareStory> story = shareStoryDao.findById(id);
-        if (story.isPresent() && story.get().getImage() != null) {
-            return ResponseEntity.ok()
-                    .contentType(MediaType.IMAGE_JPEG)
-                    .body(story.get().getImage());
+    public void getImage(@PathVariable Integer id,
+                         @RequestParam(value = "size", required = false) String size,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<ShareStoryDao.ImageInfoProjection> imageInfo = shareStoryDao.findImageInfoById(id);
+        if (imageInfo.isPresent()) {
+            ShareStoryDao.ImageInfoProjection info = imageInfo.get();
+            MediaSize mediaSize = MediaSize.parse(size);
+
+            String derivativeKey = mediaSize == MediaSize.THUMB ? info.getThumbKey()
+                    : mediaSize == MediaSize.MEDIUM ? info.getMediumKey() : null;
+            ByteBuffer derivative = derivativeKey != null ? mediaStore.read(derivativeKey) : null;
+            if (derivative != null) {
+                mediaResponseWriter.write(request, response, derivative, MediaType.IMAGE_JPEG_VALUE, null, derivativeKey);
+                return;
+            }
+            if (mediaSize != MediaSize.FULL) {
+                // Uploaded before derivatives existed: generate them once, serve the full image meanwhile
+                mediaProcessingService.requestStoryDerivatives(id);
+            }
+
+            if (mediaResponseWriter.notModified(request, response, info.getImageHash(), true)) {
+                return;
+            }
+            byte[] image = shareStoryDao.findImageById(id);
+            if (image != null) {
+                mediaResponseWriter.write(request, response, ByteBuffer.wrap(image),
+                        MediaType.IMAGE_JPEG_VALUE, null, info.getImageHash());
+                return;
+            }
         }
-        return ResponseEntity.notFound().build();
+        response.sendError(HttpServletResponse.SC_NOT_FOUND);
     }
 
 
@@ -1,7 +1,46 @@
 package com.economicfoodexchanger.story;
 
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface ShareStoryDao extends JpaRepository<ShareStory, Integer> {
 
+    @Override
+    @EntityGraph(attributePaths = {"username", "username.roleList", "username.communityMember"})
+    List<ShareStory> findAll(Sort sort);
+
+    public interface ImageInfoProjection {
+        String getImageHash();
+        String getThumbKey();
+        String getMediumKey();
+    }
+
+    @Query("SELECT s.imageHash AS imageHash, s.thumbKey AS thumbKey, s.mediumKey AS mediumKey " +
+            "FROM ShareStory s WHERE s.id = :id")
+    Optional<ImageInfoProjection> findImageInfoById(@Param("id") Integer id);
+
+    @Query("SELECT s.image FROM ShareStory s WHERE s.id = :id")
+    byte[] findImageById(@Param("id") Integer id);
+
+    // Image processing results touch only the image columns, and only while the story still has
+    // the image that was processed (sourceHash); 0 rows when it was replaced or deleted meanwhile
+    @Modifying
+    @Query(value = "UPDATE sharestory SET image = :image, image_hash = :imageHash, medium_key = :mediumKey, " +
+            "thumb_key = :thumbKey WHERE id = :id AND image_hash <=> :sourceHash", nativeQuery = true)
+    int updateProcessedImage(@Param("id") Integer id, @Param("sourceHash") String sourceHash,
+                             @Param("image") byte[] image, @Param("imageHash") String imageHash,
+                             @Param("mediumKey") String mediumKey, @Param("thumbKey") String thumbKey);
+
+    @Modifying
+    @Query(value = "UPDATE sharestory SET medium_key = :mediumKey, thumb_key = :thumbKey " +
+            "WHERE id = :id AND image_hash <=> :sourceHash", nativeQuery = true)
+    int updateDerivativeKeys(@Param("id") Integer id, @Param("sourceHash") String sourceHash,
+                             @Param("mediumKey") String mediumKey, @Param("thumbKey") String thumbKey);
 }
@@ -0,0 +1,216 @@
+package com.economicfoodexchanger.tracking;
+
+import com.economicfoodexchanger.geo.Coordinates;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * GPS positions of deliveries on the road. A ping updates the delivery's latest position in
+ * memory at once, which is what "where is my package" reads, and goes on a lock-free ring buffer
+ * for the history. One writer thread drains the buffer, keeps a ping per delivery only once
+ * tracking.sample.min-interval-ms has passed or the package moved tracking.sample.min-distance-m
+ * since the last kept one, and appends the kept pings to delivery_position as JDBC batches.
+ * <p>
+ * Request threads never wait on the writer or the database: with a full buffer a ping still
+ * moves the latest position and only its history row is dropped (tracking.pings.dropped).
+ * Deliveries without pings for tracking.active-ttl-ms are forgotten; their position is then
+ * read from delivery_position.
+ * <p>
+ * Metrics: tracking.pings.received, tracking.pings.dropped, tracking.pings.stored,
+ * tracking.buffer.size and tracking.deliveries.active.
+ */
+@Component
+public class DeliveryPositionTracker {
+
+    private static final String INSERT = "INSERT INTO delivery_position " +
+            "(delivery_id, recorded_at, latitude, longitude, accuracy_m) VALUES (?, ?, ?, ?, ?)";
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final long EVICT_EVERY_MS = 60_000;
+
+    public record Ping(Integer deliveryId, double latitude, double longitude, Float accuracyM,
+                       LocalDateTime recordedAt) {
+    }
+
+    // With the time it arrived, for eviction
+    private record Latest(Ping ping, long receivedAtMillis) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MpscRingBuffer<Ping> buffer;
+    private final int batchSize;
+    private final long flushMs;
+    private final long minIntervalMs;
+    private final double minDistanceKm;
+    private final long activeTtlMs;
+
+    // Latest ping per delivery; any thread
+    private final Map<Integer, Latest> latest = new ConcurrentHashMap<>();
+    // Last ping kept for the history, per delivery; writer thread only
+    private final Map<Integer, Ping> lastStored = new HashMap<>();
+
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong stored = new AtomicLong();
+
+    public DeliveryPositionTracker(JdbcTemplate jdbcTemplate,
+                                   @Value("${tracking.buffer-capacity:65536}") int bufferCapacity,
+                                   @Value("${tracking.batch-size:500}") int batchSize,
+                                   @Value("${tracking.flush-ms:1000}") long flushMs,
+                                   @Value("${tracking.sample.min-interval-ms:10000}") long minIntervalMs,
+                                   @Value("${tracking.sample.min-distance-m:25}") double minDistanceM,
+                                   @Value("${tracking.active-ttl-ms:21600000}") long activeTtlMs,
+                                   MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.buffer = new MpscRingBuffer<>(bufferCapacity);
+        this.batchSize = batchSize;
+        this.flushMs = flushMs;
+        this.minIntervalMs = minIntervalMs;
+        this.minDistanceKm = minDistanceM / 1000;
+        this.activeTtlMs = activeTtlMs;
+
+        FunctionCounter.builder("tracking.pings.received", received, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("tracking.pings.dropped", dropped, AtomicLong::get).register(meterRegistry);
+        FunctionCounter.builder("tracking.pings.stored", stored, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("tracking.buffer.size", buffer, MpscRingBuffer::size).register(meterRegistry);
+        Gauge.builder("tracking.deliveries.active", latest, Map::size).register(meterRegistry);
+
+        this.writer = new Thread(this::runWriter, "gps-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // Pings of one delivery, already validated; returns how many were dropped from the history
+    public int record(List<Ping> pings) {
+        long now = System.currentTimeMillis();
+        int droppedCount = 0;
+        for (Ping ping : pings) {
+            received.incrementAndGet();
+            // Pings can arrive out of order (batched, retried); the latest position is the newest one
+            latest.merge(ping.deliveryId(), new Latest(ping, now), (current, fresh) ->
+                    fresh.ping.recordedAt().isBefore(current.ping.recordedAt()) ? current : fresh);
+            if (!buffer.offer(ping)) {
+                dropped.incrementAndGet();
+                droppedCount++;
+            }
+        }
+        return droppedCount;
+    }
+
+    // Null when the delivery sent no pings within tracking.active-ttl-ms
+    public Ping latest(Integer deliveryId) {
+        Latest entry = latest.get(deliveryId);
+        return entry == null ? null : entry.ping;
+    }
+
+    public boolean isActive(Integer deliveryId) {
+        return latest.containsKey(deliveryId);
+    }
+
+    // Lets the writer store what is buffered, then stops it
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private void runWriter() {
+        List<Ping> drained = new ArrayList<>(batchSize);
+        List<Ping> batch = new ArrayList<>(batchSize);
+        long lastFlush = System.currentTimeMillis();
+        long lastEvict = lastFlush;
+        while (running || buffer.size() > 0) {
+            try {
+                drained.clear();
+                int count = buffer.drainTo(drained, batchSize);
+                for (Ping ping : drained) {
+                    if (keep(ping)) {
+                        batch.add(ping);
+                    }
+                }
+
+                long now = System.currentTimeMillis();
+                if (batch.size() >= batchSize || (!batch.isEmpty() && (now - lastFlush >= flushMs || !running))) {
+                    flush(batch);
+                    lastFlush = now;
+                }
+                if (now - lastEvict >= EVICT_EVERY_MS) {
+                    evictIdle(now);
+                    lastEvict = now;
+                }
+                if (count == 0 && running) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("GPS writer failed: " + e.getMessage());
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+    }
+
+    // Down-sampling: a ping is history-worthy after enough time or distance since the last kept one
+    private boolean keep(Ping ping) {
+        Ping previous = lastStored.get(ping.deliveryId());
+        if (previous != null) {
+            if (!ping.recordedAt().isAfter(previous.recordedAt())) {
+                // Older than what is already kept: it would only add noise between two kept points
+                return false;
+            }
+            long elapsedMs = Duration.between(previous.recordedAt(), ping.recordedAt()).toMillis();
+            double movedKm = Coordinates.distanceKm(previous.latitude(), previous.longitude(),
+                    ping.latitude(), ping.longitude());
+            if (elapsedMs < minIntervalMs && movedKm < minDistanceKm) {
+                return false;
+            }
+        }
+        lastStored.put(ping.deliveryId(), ping);
+        return true;
+    }
+
+    private void flush(List<Ping> batch) {
+        try {
+            // One multi-row INSERT with rewriteBatchedStatements
+            jdbcTemplate.batchUpdate(INSERT, batch, batch.size(), (statement, ping) -> {
+                statement.setInt(1, ping.deliveryId());
+                statement.setTimestamp(2, Timestamp.valueOf(ping.recordedAt()));
+                statement.setDouble(3, ping.latitude());
+                statement.setDouble(4, ping.longitude());
+                statement.setObject(5, ping.accuracyM());
+            });
+            stored.addAndGet(batch.size());
+        } catch (RuntimeException e) {
+            // The latest positions are still in memory; only these history points are lost
+            System.err.println("Could not store " + batch.size() + " GPS pings: " + e.getMessage());
+        } finally {
+            batch.clear();
+        }
+    }
+
+    private void evictIdle(long now) {
+        latest.values().removeIf(entry -> now - entry.receivedAtMillis > activeTtlMs);
+        lastStored.keySet().removeIf(deliveryId -> !latest.containsKey(deliveryId));
+    }
+}
@@ -0,0 +1,128 @@
+package com.economicfoodexchanger.bidding;
+
+import com.economicfoodexchanger.service.BidSubmissionService;
+import com.economicfoodexchanger.sharedpost.BitDetails;
+import com.economicfoodexchanger.sharedpost.BitDetailsController;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bid insert throughput through the application's own beans: /bitdetails/addbit (one save and
+ * one commit per bid) against /bitdetails/submit (BidSubmissionService and BidIngestionQueue),
+ * with every bidder waiting for its bid to be committed. The application context is started
+ * for real, so both paths pay for the listeners of BidChangedEvent (order book, feed cache, live
+ * events) on the threads that publish it, as they do in production.
+ * Not part of the test task; run it against a scratch database with an open post:
+ * <pre>
+ * ./gradlew bidBenchmark -Dbids.benchmark.post-id=&lt;postId&gt; [-Dbids.benchmark.bids=20000] \
+ *     [-Dbids.benchmark.bidders=32] \
+ *     -Dspring.datasource.url="jdbc:mysql://localhost:3306/economicfoodexchanger?rewriteBatchedStatements=true"
+ * </pre>
+ * Both rates are printed. The bids it inserts are marked in bitdetailscol and deleted at the end.
+ */
+@Tag("benchmark")
+@SpringBootTest
+@EnabledIfSystemProperty(named = "bids.benchmark.post-id", matches = "\\d+")
+class BidIngestionBenchmark {
+
+    @Autowired
+    private BitDetailsController controller;
+
+    @Autowired
+    private BidSubmissionService submissionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${bids.benchmark.post-id}")
+    private int postId;
+
+    @Value("${bids.benchmark.bids:20000}")
+    private int bids;
+
+    @Value("${bids.benchmark.bidders:32}")
+    private int bidders;
+
+    @Test
+    void addbitAgainstSubmit() throws Exception {
+        String marker = "benchmark-" + System.currentTimeMillis();
+        try {
+            double direct = run(bids, bidders, rate -> {
+                String answer = controller.uploadBitDetails(bid(rate, marker), postId);
+                if (!answer.endsWith("successfully!")) {
+                    throw new IllegalStateException(answer);
+                }
+            });
+            System.out.printf("/bitdetails/addbit : %8.0f bids/s%n", direct);
+
+            double queued = run(bids, bidders, rate -> {
+                CompletableFuture<Integer> saved = null;
+                while (saved == null) {
+                    try {
+                        saved = submissionService.submit(postId, bid(rate, marker));
+                    } catch (ResponseStatusException e) {
+                        if (e.getStatusCode().value() != 503) {
+                            throw e;
+                        }
+                        Thread.sleep(1);
+                    }
+                }
+                saved.join();
+            });
+            System.out.printf("/bitdetails/submit : %8.0f bids/s  (%.1fx)%n", queued, queued / direct);
+        } finally {
+            int removed = jdbcTemplate.update("DELETE FROM bitdetails WHERE bitdetailscol = ?", marker);
+            System.out.println("Removed " + removed + " benchmark bids");
+        }
+    }
+
+    private interface BidCall {
+        void place(BigDecimal bitrate) throws Exception;
+    }
+
+    private static BitDetails bid(BigDecimal bitrate, String marker) {
+        BitDetails bid = new BitDetails();
+        bid.setBitrate(bitrate);
+        bid.setNeedamount(BigDecimal.ONE);
+        bid.setBitdetailscol(marker);
+        return bid;
+    }
+
+    // Bids per second with every bidder on its own thread, like request threads
+    private static double run(int bids, int bidders, BidCall call) throws Exception {
+        AtomicInteger remaining = new AtomicInteger(bids);
+        ExecutorService pool = Executors.newFixedThreadPool(bidders);
+        long start = System.nanoTime();
+        List<Future<?>> done = new ArrayList<>();
+        for (int i = 0; i < bidders; i++) {
+            done.add(pool.submit(() -> {
+                int left;
+                while ((left = remaining.getAndDecrement()) > 0) {
+                    call.place(BigDecimal.valueOf(100 + left % 500));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : done) {
+            future.get();
+        }
+        double throughput = bids / ((System.nanoTime() - start) / 1e9);
+        pool.shutdown();
+        return throughput;
+    }
+}
@@ -0,0 +1,133 @@
+package com.economicfoodexchanger.bidding;
+
+import com.economicfoodexchanger.bidding.BidOrderBook.Bid;
+import com.economicfoodexchanger.bidding.BidOrderBook.Book;
+import com.economicfoodexchanger.bidding.BidOrderBook.Direction;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BidOrderBookTest {
+
+    @Test
+    void sellingPostRanksTheHighestRateFirst() {
+        Book book = Book.of(1, Direction.HIGHEST_FIRST, List.of(bid(10, "100", "5"), bid(11, "120", "5"), bid(12, "90", "5")));
+        assertEquals(List.of(11, 10, 12), ids(book.top(10)));
+        assertEquals(11, book.best().id());
+    }
+
+    @Test
+    void buyingPostRanksTheLowestRateFirst() {
+        Book book = Book.of(1, Direction.LOWEST_FIRST, List.of(bid(10, "100", "5"), bid(11, "120", "5"), bid(12, "90", "5")));
+        assertEquals(List.of(12, 10, 11), ids(book.top(10)));
+    }
+
+    @Test
+    void tiesGoToTheLargerAmountThenTheEarlierBid() {
+        Book book = Book.of(1, Direction.HIGHEST_FIRST, List.of(
+                bid(13, "100", "5"), bid(12, "100", "8"), bid(11, "100", "5"), bid(10, "100", null)));
+        assertEquals(List.of(12, 11, 13, 10), ids(book.top(10)));
+    }
+
+    @Test
+    void bidsWithoutARateRankLast() {
+        for (Direction direction : Direction.values()) {
+            Book book = Book.of(1, direction, List.of(bid(10, null, "5"), bid(11, "100", "5"), bid(12, "90", "5")));
+            assertEquals(10, book.top(10).get(2).id());
+        }
+    }
+
+    @Test
+    void summaryFigures() {
+        Book book = Book.of(1, Direction.HIGHEST_FIRST, List.of(bid(10, "100", "5"), bid(11, "120.50", "5"), bid(12, null, "5")));
+        assertEquals(3, book.count());
+        assertEquals(new BigDecimal("120.50"), book.highestRate());
+        assertEquals(new BigDecimal("100"), book.lowestRate());
+        assertEquals(new BigDecimal("20.50"), book.spread());
+        assertEquals(List.of(11), ids(book.top(1)));
+        assertEquals(List.of(), ids(book.top(-1)));
+    }
+
+    @Test
+    void emptyBook() {
+        Book book = Book.of(1, Direction.HIGHEST_FIRST, List.of());
+        assertNull(book.best());
+        assertNull(book.spread());
+        assertEquals(0, book.count());
+    }
+
+    @Test
+    void addedBidsTakeTheirRank() {
+        BidOrderBook orderBook = loaded(Map.of(1, Direction.HIGHEST_FIRST), bid(10, "100", "5"), bid(11, "90", "5"));
+        orderBook.add(bid(12, "95", "5"));
+        orderBook.add(bid(13, "130", "1"));
+        assertEquals(List.of(13, 10, 12, 11), ids(orderBook.book(1).top(10)));
+    }
+
+    @Test
+    void addingAnExistingBidReplacesIt() {
+        BidOrderBook orderBook = loaded(Map.of(1, Direction.HIGHEST_FIRST), bid(10, "100", "5"), bid(11, "90", "5"));
+        orderBook.add(bid(11, "150", "5"));
+        assertEquals(List.of(11, 10), ids(orderBook.book(1).top(10)));
+        assertEquals(2, orderBook.book(1).count());
+    }
+
+    @Test
+    void bidsForPostsWithoutABookAreIgnored() {
+        BidOrderBook orderBook = loaded(Map.of(1, Direction.HIGHEST_FIRST), bid(10, "100", "5"));
+        orderBook.add(new Bid(20, 2, new BigDecimal("100"), BigDecimal.ONE, null, 5, "bidder", false));
+        assertNull(orderBook.book(2));
+    }
+
+    @Test
+    void confirmMarksTheBid() {
+        BidOrderBook orderBook = loaded(Map.of(1, Direction.HIGHEST_FIRST), bid(10, "100", "5"), bid(11, "90", "5"));
+        assertNull(orderBook.book(1).confirmedBidId());
+        orderBook.confirm(1, 11);
+        assertEquals(11, orderBook.book(1).confirmedBidId());
+        assertEquals(List.of(10, 11), ids(orderBook.book(1).top(10)));
+    }
+
+    @Test
+    void changesBeforeTheLoadAreAppliedAfterIt() {
+        BidOrderBook orderBook = new BidOrderBook();
+        // Stored after the load query ran, announced before replaceAll
+        orderBook.add(bid(12, "200", "5"));
+        orderBook.confirm(1, 10);
+        orderBook.replaceAll(Map.of(1, Direction.HIGHEST_FIRST), List.of(bid(10, "100", "5"), bid(11, "90", "5")));
+
+        Book book = orderBook.book(1);
+        assertEquals(List.of(12, 10, 11), ids(book.top(10)));
+        assertEquals(10, book.confirmedBidId());
+    }
+
+    @Test
+    void replacePostKeepsBidsNewerThanTheOnesRead() {
+        BidOrderBook orderBook = loaded(Map.of(1, Direction.HIGHEST_FIRST), bid(10, "100", "5"));
+        orderBook.add(bid(11, "110", "5"));
+        orderBook.add(bid(12, "120", "5"));
+        // Re-read that saw bids up to 11 only
+        orderBook.replacePost(1, Direction.HIGHEST_FIRST, List.of(bid(10, "100", "5"), bid(11, "110", "5")));
+        assertEquals(List.of(12, 11, 10), ids(orderBook.book(1).top(10)));
+    }
+
+    private static BidOrderBook loaded(Map<Integer, Direction> posts, Bid... bids) {
+        BidOrderBook orderBook = new BidOrderBook();
+        orderBook.replaceAll(posts, List.of(bids));
+        return orderBook;
+    }
+
+    private static Bid bid(int id, String bitrate, String needamount) {
+        return new Bid(id, 1, bitrate == null ? null : new BigDecimal(bitrate),
+                needamount == null ? null : new BigDecimal(needamount), "Colombo", 100 + id, "bidder" + id, false);
+    }
+
+    private static List<Integer> ids(List<Bid> bids) {
+        return bids.stream().map(Bid::id).toList();
+    }
+}
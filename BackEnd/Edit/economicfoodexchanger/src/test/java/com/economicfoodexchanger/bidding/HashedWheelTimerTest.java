@@ -0,0 +1,133 @@
+package com.economicfoodexchanger.bidding;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedWheelTimerTest {
+
+    private static final long TICK_MS = 10;
+
+    private HashedWheelTimer timer;
+
+    @AfterEach
+    void stopTimer() {
+        if (timer != null) {
+            timer.stop();
+        }
+    }
+
+    @Test
+    void firesNoEarlierThanItsDelay() throws InterruptedException {
+        timer = new HashedWheelTimer("test-timer", TICK_MS, 8, Runnable::run);
+        CountDownLatch fired = new CountDownLatch(1);
+        long[] firedAt = new long[1];
+        long start = System.nanoTime();
+        timer.schedule(() -> {
+            firedAt[0] = System.nanoTime();
+            fired.countDown();
+        }, 100);
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertTrue(firedAt[0] - start >= TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(0, timer.pending());
+    }
+
+    @Test
+    void delaysLongerThanOneTurnWaitTheirRounds() throws InterruptedException {
+        // 4 buckets of 10 ms: one turn is 40 ms, so 150 ms is more than three turns away
+        timer = new HashedWheelTimer("test-timer", TICK_MS, 4, Runnable::run);
+        List<String> order = new CopyOnWriteArrayList<>();
+        CountDownLatch fired = new CountDownLatch(3);
+        long start = System.nanoTime();
+        long[] longFiredAt = new long[1];
+        timer.schedule(() -> {
+            longFiredAt[0] = System.nanoTime();
+            order.add("long");
+            fired.countDown();
+        }, 150);
+        timer.schedule(() -> {
+            order.add("short");
+            fired.countDown();
+        }, 15);
+        timer.schedule(() -> {
+            order.add("middle");
+            fired.countDown();
+        }, 70);
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("short", "middle", "long"), order);
+        assertTrue(longFiredAt[0] - start >= TimeUnit.MILLISECONDS.toNanos(150));
+    }
+
+    @Test
+    void wheelSizeIsRoundedUpToAPowerOfTwo() throws InterruptedException {
+        // 5 becomes 8 buckets; a delay landing in every bucket still fires
+        timer = new HashedWheelTimer("test-timer", TICK_MS, 5, Runnable::run);
+        CountDownLatch fired = new CountDownLatch(12);
+        for (int i = 0; i < 12; i++) {
+            timer.schedule(fired::countDown, i * TICK_MS);
+        }
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void zeroOrNegativeDelayFiresOnTheNextTick() throws InterruptedException {
+        timer = new HashedWheelTimer("test-timer", TICK_MS, 8, Runnable::run);
+        CountDownLatch fired = new CountDownLatch(2);
+        timer.schedule(fired::countDown, 0);
+        timer.schedule(fired::countDown, -500);
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void cancelledTimeoutsDoNotFire() throws InterruptedException {
+        timer = new HashedWheelTimer("test-timer", TICK_MS, 8, Runnable::run);
+        CountDownLatch cancelledRan = new CountDownLatch(1);
+        CountDownLatch laterRan = new CountDownLatch(1);
+        HashedWheelTimer.Timeout timeout = timer.schedule(cancelledRan::countDown, 30);
+        timer.schedule(laterRan::countDown, 80);
+        assertEquals(2, timer.pending());
+
+        assertTrue(timeout.cancel());
+        assertTrue(timeout.isCancelled());
+        assertFalse(timeout.cancel());
+        assertEquals(1, timer.pending());
+
+        assertTrue(laterRan.await(5, TimeUnit.SECONDS));
+        assertEquals(1, cancelledRan.getCount());
+        assertEquals(0, timer.pending());
+    }
+
+    @Test
+    void cancelAfterFiringReturnsFalse() throws InterruptedException {
+        timer = new HashedWheelTimer("test-timer", TICK_MS, 8, Runnable::run);
+        CountDownLatch fired = new CountDownLatch(1);
+        HashedWheelTimer.Timeout timeout = timer.schedule(fired::countDown, 10);
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertFalse(timeout.cancel());
+        assertFalse(timeout.isCancelled());
+    }
+
+    @Test
+    void stoppedTimerRefusesNewTimeouts() {
+        timer = new HashedWheelTimer("test-timer", TICK_MS, 8, Runnable::run);
+        timer.stop();
+        assertThrows(IllegalStateException.class, () -> timer.schedule(() -> { }, 10));
+    }
+
+    @Test
+    void rejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new HashedWheelTimer("test-timer", 0, 8, Runnable::run));
+        assertThrows(IllegalArgumentException.class, () -> new HashedWheelTimer("test-timer", 10, 0, Runnable::run));
+    }
+}
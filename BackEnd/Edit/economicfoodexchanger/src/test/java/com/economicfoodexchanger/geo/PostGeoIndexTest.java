@@ -0,0 +1,102 @@
+package com.economicfoodexchanger.geo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostGeoIndexTest {
+
+    private static final double COLOMBO_LAT = 6.9271;
+    private static final double COLOMBO_LNG = 79.8612;
+
+    private PostGeoIndex index;
+
+    @BeforeEach
+    void createIndex() {
+        index = new PostGeoIndex(0.1);
+        index.replaceAll(List.of(
+                entry(1, COLOMBO_LAT, COLOMBO_LNG, "Vegetables"),
+                entry(2, COLOMBO_LAT + 0.05, COLOMBO_LNG, "Fruits"),       // about 5.6 km north
+                entry(3, COLOMBO_LAT, COLOMBO_LNG + 0.15, "vegetables"),   // about 16.5 km east, two cells over
+                entry(4, 7.2906, 80.6337, "Vegetables")));                // Kandy, about 94 km
+    }
+
+    @Test
+    void loadedAfterReplaceAll() {
+        assertTrue(index.isLoaded());
+        assertEquals(4, index.size());
+        assertFalse(new PostGeoIndex(0.1).isLoaded());
+    }
+
+    @Test
+    void returnsPostsWithinTheRadiusNearestFirst() {
+        List<PostGeoIndex.Hit> hits = index.search(COLOMBO_LAT, COLOMBO_LNG, 20, null, 10);
+        assertEquals(List.of(1, 2, 3), ids(hits));
+        assertEquals(0, hits.get(0).distanceKm(), 1e-9);
+        assertEquals(5.56, hits.get(1).distanceKm(), 0.05);
+    }
+
+    @Test
+    void radiusIsExactNotTheCellBox() {
+        // Post 3 lies in a visited cell but outside 10 km
+        assertEquals(List.of(1, 2), ids(index.search(COLOMBO_LAT, COLOMBO_LNG, 10, null, 10)));
+        assertEquals(List.of(1, 2, 3, 4), ids(index.search(COLOMBO_LAT, COLOMBO_LNG, 100, null, 10)));
+    }
+
+    @Test
+    void categoryFilterIgnoresCase() {
+        assertEquals(List.of(1, 3), ids(index.search(COLOMBO_LAT, COLOMBO_LNG, 20, "VEGETABLES", 10)));
+        assertEquals(List.of(), ids(index.search(COLOMBO_LAT, COLOMBO_LNG, 20, "Rice", 10)));
+    }
+
+    @Test
+    void limitKeepsTheNearest() {
+        assertEquals(List.of(1, 2), ids(index.search(COLOMBO_LAT, COLOMBO_LNG, 100, null, 2)));
+    }
+
+    @Test
+    void putMovesAPost() {
+        index.put(entry(2, 7.2906, 80.6337, "Fruits"));
+        assertEquals(4, index.size());
+        assertEquals(List.of(1, 3), ids(index.search(COLOMBO_LAT, COLOMBO_LNG, 20, null, 10)));
+        assertEquals(List.of(2, 4), ids(index.search(7.2906, 80.6337, 1, null, 10)).stream().sorted().toList());
+    }
+
+    @Test
+    void removeDropsAPost() {
+        index.remove(1);
+        index.remove(99);
+        assertEquals(3, index.size());
+        assertEquals(List.of(2, 3), ids(index.search(COLOMBO_LAT, COLOMBO_LNG, 20, null, 10)));
+    }
+
+    @Test
+    void searchesAcrossCellBordersAndNegativeCoordinates() {
+        index.replaceAll(List.of(
+                entry(10, 0.01, 0.01, "Fruits"),
+                entry(11, -0.01, -0.01, "Fruits"),
+                entry(12, -0.01, 0.01, "Fruits"),
+                entry(13, 0.5, 0.5, "Fruits")));
+        assertEquals(List.of(10, 11, 12), ids(index.search(0, 0, 5, null, 10)).stream().sorted().toList());
+    }
+
+    @Test
+    void replaceAllDropsPostsNotInTheNewSet() {
+        index.replaceAll(List.of(entry(2, COLOMBO_LAT + 0.05, COLOMBO_LNG, "Fruits")));
+        assertEquals(1, index.size());
+        assertEquals(List.of(2), ids(index.search(COLOMBO_LAT, COLOMBO_LNG, 100, null, 10)));
+    }
+
+    private static PostGeoIndex.Entry entry(int id, double lat, double lng, String category) {
+        return new PostGeoIndex.Entry(id, lat, lng, "Post " + id, "10 kg", category, "owner" + id);
+    }
+
+    private static List<Integer> ids(List<PostGeoIndex.Hit> hits) {
+        return hits.stream().map(hit -> hit.entry().id()).toList();
+    }
+}
@@ -0,0 +1,100 @@
+package com.economicfoodexchanger.imaging;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExifOrientationTest {
+
+    @Test
+    void readsLittleEndianOrientation() {
+        assertEquals(6, ExifOrientation.fromApp1(app1(ByteOrder.LITTLE_ENDIAN, 0x0112, 6)));
+    }
+
+    @Test
+    void readsBigEndianOrientation() {
+        assertEquals(8, ExifOrientation.fromApp1(app1(ByteOrder.BIG_ENDIAN, 0x0112, 8)));
+    }
+
+    @Test
+    void findsOrientationAfterOtherTags() {
+        ByteBuffer tiff = tiff(ByteOrder.BIG_ENDIAN, 3);
+        entry(tiff, 0x010F, 0);   // Make
+        entry(tiff, 0x0110, 0);   // Model
+        entry(tiff, 0x0112, 3);
+        assertEquals(3, ExifOrientation.fromApp1(withExifHeader(tiff)));
+    }
+
+    @Test
+    void noOrientationTagIsZero() {
+        assertEquals(0, ExifOrientation.fromApp1(app1(ByteOrder.LITTLE_ENDIAN, 0x010F, 6)));
+    }
+
+    @Test
+    void outOfRangeOrientationIsZero() {
+        assertEquals(0, ExifOrientation.fromApp1(app1(ByteOrder.LITTLE_ENDIAN, 0x0112, 9)));
+        assertEquals(0, ExifOrientation.fromApp1(app1(ByteOrder.LITTLE_ENDIAN, 0x0112, 0)));
+    }
+
+    @Test
+    void otherApp1SegmentsAreZero() {
+        byte[] xmp = "http://ns.adobe.com/xap/1.0/\0<x:xmpmeta/>".getBytes(StandardCharsets.ISO_8859_1);
+        assertEquals(0, ExifOrientation.fromApp1(xmp));
+        assertEquals(0, ExifOrientation.fromApp1(new byte[0]));
+    }
+
+    @Test
+    void truncatedExifIsZero() {
+        byte[] app1 = app1(ByteOrder.LITTLE_ENDIAN, 0x0112, 6);
+        assertEquals(0, ExifOrientation.fromApp1(Arrays.copyOf(app1, app1.length - 8)));
+    }
+
+    @Test
+    void quarterTurnsSwapAxes() {
+        for (int orientation = 1; orientation <= 4; orientation++) {
+            assertFalse(ExifOrientation.swapsAxes(orientation));
+        }
+        for (int orientation = 5; orientation <= 8; orientation++) {
+            assertTrue(ExifOrientation.swapsAxes(orientation));
+        }
+    }
+
+    // "Exif\0\0" followed by a TIFF header and a first IFD with one SHORT entry
+    private static byte[] app1(ByteOrder order, int tag, int value) {
+        ByteBuffer tiff = tiff(order, 1);
+        entry(tiff, tag, value);
+        return withExifHeader(tiff);
+    }
+
+    private static ByteBuffer tiff(ByteOrder order, int entries) {
+        ByteBuffer tiff = ByteBuffer.allocate(8 + 2 + entries * 12 + 4).order(order);
+        tiff.put(order == ByteOrder.LITTLE_ENDIAN ? (byte) 'I' : (byte) 'M');
+        tiff.put(order == ByteOrder.LITTLE_ENDIAN ? (byte) 'I' : (byte) 'M');
+        tiff.putShort((short) 42);
+        tiff.putInt(8);
+        tiff.putShort((short) entries);
+        return tiff;
+    }
+
+    private static void entry(ByteBuffer tiff, int tag, int value) {
+        tiff.putShort((short) tag);
+        tiff.putShort((short) 3);   // SHORT
+        tiff.putInt(1);
+        tiff.putShort((short) value);
+        tiff.putShort((short) 0);
+    }
+
+    private static byte[] withExifHeader(ByteBuffer tiff) {
+        byte[] header = "Exif\0\0".getBytes(StandardCharsets.ISO_8859_1);
+        byte[] app1 = Arrays.copyOf(header, header.length + tiff.capacity());
+        System.arraycopy(tiff.array(), 0, app1, header.length, tiff.capacity());
+        return app1;
+    }
+}
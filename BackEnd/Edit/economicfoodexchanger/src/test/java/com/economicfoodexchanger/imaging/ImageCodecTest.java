@@ -0,0 +1,46 @@
+package com.economicfoodexchanger.imaging;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageCodecTest {
+
+    @Test
+    void noSubsamplingWhenTheImageIsSmallEnough() {
+        assertEquals(1, ImageCodec.subsamplingFor(800, 600, 1200, 900));
+        assertEquals(1, ImageCodec.subsamplingFor(2400, 1800, 1200, 900));
+    }
+
+    @Test
+    void noSubsamplingBelowTwiceTheTarget() {
+        // 4000x3000 into 1200x900: ratio 0.3, a step of 2 would leave less than twice the target
+        assertEquals(1, ImageCodec.subsamplingFor(4000, 3000, 1200, 900));
+    }
+
+    @Test
+    void largestStepThatKeepsTwiceTheTarget() {
+        assertEquals(2, ImageCodec.subsamplingFor(4800, 3600, 1200, 900));
+        assertEquals(3, ImageCodec.subsamplingFor(8000, 6000, 1200, 900));
+        assertEquals(10, ImageCodec.subsamplingFor(12000, 9000, 600, 450));
+    }
+
+    @Test
+    void theTighterSideDecides() {
+        // A panorama: its width needs much more reduction than its height
+        assertEquals(5, ImageCodec.subsamplingFor(12000, 1000, 1200, 900));
+    }
+
+    @Test
+    void decodedSizeStaysAtLeastTwiceTheTarget() {
+        int[][] sizes = {{4032, 3024}, {6000, 4000}, {3024, 4032}, {10000, 10000}, {1921, 1081}};
+        for (int[] size : sizes) {
+            int step = ImageCodec.subsamplingFor(size[0], size[1], 1200, 900);
+            int width = (size[0] + step - 1) / step;
+            int height = (size[1] + step - 1) / step;
+            double ratio = Math.min(1200.0 / width, 900.0 / height);
+            assertTrue(ratio <= 0.5 || step == 1, "step " + step + " for " + size[0] + "x" + size[1]);
+        }
+    }
+}
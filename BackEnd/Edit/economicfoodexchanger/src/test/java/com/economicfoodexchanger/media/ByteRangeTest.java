@@ -0,0 +1,74 @@
+package com.economicfoodexchanger.media;
+
+import com.economicfoodexchanger.media.MediaResponseWriter.ByteRange;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ByteRangeTest {
+
+    @Test
+    void closedRange() {
+        ByteRange range = ByteRange.parse("bytes=0-99", 1000);
+        assertEquals(0, range.start);
+        assertEquals(99, range.end);
+    }
+
+    @Test
+    void openRangeRunsToTheEnd() {
+        ByteRange range = ByteRange.parse("bytes=500-", 1000);
+        assertEquals(500, range.start);
+        assertEquals(999, range.end);
+    }
+
+    @Test
+    void endIsClampedToTheLength() {
+        ByteRange range = ByteRange.parse("bytes=900-5000", 1000);
+        assertEquals(900, range.start);
+        assertEquals(999, range.end);
+    }
+
+    @Test
+    void suffixRange() {
+        ByteRange range = ByteRange.parse("bytes=-100", 1000);
+        assertEquals(900, range.start);
+        assertEquals(999, range.end);
+    }
+
+    @Test
+    void suffixLongerThanTheContentIsTheWholeContent() {
+        ByteRange range = ByteRange.parse("bytes=-5000", 1000);
+        assertEquals(0, range.start);
+        assertEquals(999, range.end);
+    }
+
+    @Test
+    void whitespaceIsAllowed() {
+        ByteRange range = ByteRange.parse("  bytes= 10 - 19 ", 1000);
+        assertEquals(10, range.start);
+        assertEquals(19, range.end);
+    }
+
+    @Test
+    void startPastTheEndIsUnsatisfiable() {
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=1000-", 1000));
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=0-", 0));
+    }
+
+    @Test
+    void emptySuffixIsUnsatisfiable() {
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=-0", 1000));
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=-10", 0));
+    }
+
+    @Test
+    void malformedOrMultiRangeHeadersAreIgnored() {
+        assertNull(ByteRange.parse("items=0-10", 1000));
+        assertNull(ByteRange.parse("bytes=0-10,20-30", 1000));
+        assertNull(ByteRange.parse("bytes=10", 1000));
+        assertNull(ByteRange.parse("bytes=abc-def", 1000));
+        assertNull(ByteRange.parse("bytes=20-10", 1000));
+    }
+}
@@ -0,0 +1,121 @@
+package com.economicfoodexchanger.media;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentMediaStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private SegmentMediaStore store;
+
+    @AfterEach
+    void closeStore() throws IOException {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    void contentIsReadBackAfterReopening() throws IOException {
+        store = open();
+        String first = store.put(bytes("first file"));
+        String second = store.put(new ByteArrayInputStream(bytes("second file")));
+        store.close();
+
+        store = open();
+        assertArrayEquals(bytes("first file"), read(first));
+        assertArrayEquals(bytes("second file"), read(second));
+        assertEquals(bytes("second file").length, store.size(second));
+    }
+
+    @Test
+    void sameContentIsStoredOnce() throws IOException {
+        store = open();
+        String key = store.put(bytes("duplicate"));
+        long segmentSize = Files.size(segment());
+
+        assertEquals(key, store.put(bytes("duplicate")));
+        assertEquals(segmentSize, Files.size(segment()));
+    }
+
+    @Test
+    void tornTailRecordIsTruncatedOnOpen() throws IOException {
+        store = open();
+        String kept = store.put(bytes("complete record"));
+        String torn = store.put(bytes("record cut short by a crash"));
+        store.close();
+
+        // Cut the last record in the middle of its bytes, as a crash during the append would
+        long intact = Files.size(segment()) - bytes("record cut short by a crash").length / 2;
+        try (FileChannel channel = FileChannel.open(segment(), StandardOpenOption.WRITE)) {
+            channel.truncate(intact);
+        }
+
+        store = open();
+        assertArrayEquals(bytes("complete record"), read(kept));
+        assertFalse(store.contains(torn));
+        long afterKept = Files.size(segment());
+        assertTrue(afterKept < intact);
+
+        // The next append starts where the torn record was
+        String again = store.put(bytes("record cut short by a crash"));
+        assertEquals(torn, again);
+        store.close();
+        store = open();
+        assertArrayEquals(bytes("record cut short by a crash"), read(again));
+    }
+
+    @Test
+    void tornHeaderIsTruncatedOnOpen() throws IOException {
+        store = open();
+        String kept = store.put(bytes("complete record"));
+        long recordEnd = Files.size(segment());
+        store.close();
+
+        try (FileChannel channel = FileChannel.open(segment(), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x4D, 0x45, 0x44}));
+        }
+
+        store = open();
+        assertEquals(recordEnd, Files.size(segment()));
+        assertArrayEquals(bytes("complete record"), read(kept));
+    }
+
+    private SegmentMediaStore open() throws IOException {
+        SegmentMediaStore opened = new SegmentMediaStore(directory.toString(), 1);
+        opened.open();
+        return opened;
+    }
+
+    private Path segment() {
+        return directory.resolve("segment-000000.dat");
+    }
+
+    private byte[] read(String key) throws IOException {
+        ByteBuffer buffer = store.read(key);
+        byte[] content = new byte[buffer.remaining()];
+        buffer.get(content);
+        return content;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
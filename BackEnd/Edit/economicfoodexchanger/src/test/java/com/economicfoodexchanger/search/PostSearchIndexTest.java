@@ -0,0 +1,121 @@
+package com.economicfoodexchanger.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostSearchIndexTest {
+
+    private PostSearchIndex index;
+
+    @BeforeEach
+    void createIndex() {
+        index = new PostSearchIndex();
+        index.replaceAll(List.of(
+                document(1, "Fresh carrots", "Vegetables", "Organic carrots from Nuwara Eliya", true),
+                document(2, "Tomatoes for sale", "Vegetables", "Ripe red tomatoes", true),
+                document(3, "Mango harvest", "Fruits", "Sweet mangoes, a few carrots too", true),
+                document(4, "Old carrots", "Vegetables", "", false)));
+    }
+
+    @Test
+    void loadedAfterReplaceAll() {
+        assertTrue(index.isLoaded());
+        assertEquals(4, index.size());
+        assertFalse(new PostSearchIndex().isLoaded());
+    }
+
+    @Test
+    void titleMatchesRankAboveDescriptionMatches() {
+        PostSearchIndex.Page page = index.search("carrots", null, false, 0, 10);
+        assertEquals(List.of(1, 3), ids(page));
+        assertEquals(2, page.total());
+    }
+
+    @Test
+    void closedPostsOnlyWhenAskedFor() {
+        // Post 4 is shorter than post 1, so its title match weighs more
+        assertEquals(List.of(4, 1, 3), ids(index.search("carrots", null, true, 0, 10)));
+    }
+
+    @Test
+    void pluralsMatchSingulars() {
+        assertEquals(ids(index.search("carrots", null, false, 0, 10)), ids(index.search("Carrot", null, false, 0, 10)));
+        assertEquals(List.of(2), ids(index.search("tomato", null, false, 0, 10)));
+    }
+
+    @Test
+    void prefixesMatch() {
+        assertEquals(List.of(2), ids(index.search("tomat", null, false, 0, 10)));
+        assertEquals(List.of(3), ids(index.search("mang", null, false, 0, 10)));
+    }
+
+    @Test
+    void typosMatchWithALowerScore() {
+        PostSearchIndex.Page fuzzy = index.search("carots", null, false, 0, 10);
+        assertEquals(List.of(1, 3), ids(fuzzy));
+        double exactScore = index.search("carrots", null, false, 0, 10).hits().get(0).score();
+        assertTrue(fuzzy.hits().get(0).score() < exactScore);
+    }
+
+    @Test
+    void everyQueryWordMatchedRanksFirst() {
+        // Post 3 has both words, post 1 only one of them
+        assertEquals(List.of(3, 1), ids(index.search("sweet carrots", null, false, 0, 10)));
+    }
+
+    @Test
+    void categoryFilterIgnoresCase() {
+        assertEquals(List.of(3), ids(index.search("carrots", "FRUITS", false, 0, 10)));
+    }
+
+    @Test
+    void pagesThroughResults() {
+        PostSearchIndex.Page first = index.search("carrots", null, true, 0, 2);
+        PostSearchIndex.Page second = index.search("carrots", null, true, 2, 2);
+        assertEquals(List.of(4, 1), ids(first));
+        assertEquals(List.of(3), ids(second));
+        assertEquals(3, first.total());
+        assertEquals(3, second.total());
+        assertEquals(List.of(), ids(index.search("carrots", null, true, 10, 2)));
+    }
+
+    @Test
+    void putReplacesAPost() {
+        index.put(document(2, "Green beans", "Vegetables", "Fresh beans", true));
+        assertEquals(4, index.size());
+        assertEquals(List.of(), ids(index.search("tomatoes", null, false, 0, 10)));
+        assertEquals(List.of(2), ids(index.search("beans", null, false, 0, 10)));
+    }
+
+    @Test
+    void removeDropsAPost() {
+        index.remove(1);
+        index.remove(99);
+        assertEquals(3, index.size());
+        assertEquals(List.of(3), ids(index.search("carrots", null, false, 0, 10)));
+    }
+
+    @Test
+    void stopWordsAloneFindNothing() {
+        PostSearchIndex.Page page = index.search("for the", null, true, 0, 10);
+        assertEquals(0, page.total());
+        assertEquals(List.of(), ids(page));
+    }
+
+    private static PostSearchIndex.Document document(int id, String title, String category, String description,
+                                                     boolean open) {
+        return new PostSearchIndex.Document(id, title, description, category, "10 kg", "owner" + id,
+                LocalDateTime.of(2024, 1, id, 9, 0), open);
+    }
+
+    private static List<Integer> ids(PostSearchIndex.Page page) {
+        return page.hits().stream().map(hit -> hit.document().id()).toList();
+    }
+}
@@ -0,0 +1,54 @@
+package com.economicfoodexchanger.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostFeedCursorTest {
+
+    @Test
+    void roundTrips() {
+        PostFeedService.Cursor cursor = new PostFeedService.Cursor(LocalDateTime.of(2024, 3, 1, 14, 30, 5, 123_000_000), 42);
+        assertEquals(cursor, PostFeedService.Cursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void roundTripsWholeMinutes() {
+        // LocalDateTime.toString drops zero seconds ("2024-03-01T14:30"), which must still parse
+        PostFeedService.Cursor cursor = new PostFeedService.Cursor(LocalDateTime.of(2024, 3, 1, 14, 30), 7);
+        assertEquals(cursor, PostFeedService.Cursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void tokenIsUrlSafeWithoutPadding() {
+        for (int id = 1; id < 200; id++) {
+            String token = new PostFeedService.Cursor(LocalDateTime.of(2024, 12, 31, 23, 59, 59), id).encode();
+            assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+        }
+    }
+
+    @Test
+    void malformedTokensAreBadRequests() {
+        assertBadRequest("not base64!");
+        assertBadRequest(encode("no separator"));
+        assertBadRequest(encode("yesterday|5"));
+        assertBadRequest(encode("2024-03-01T14:30|five"));
+    }
+
+    private static void assertBadRequest(String token) {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> PostFeedService.Cursor.decode(token));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatusCode());
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,22 @@
+-- One row per media file of a shared post. The file bytes live in the media store
+-- (see media.store.dir) under storage_key; this table only keeps the reference and metadata.
+--
+-- Existing posts keep their serialized MediaContainer in sharedpost.photos until the
+-- application starts: PostMediaBackfill moves every remaining blob into post_media rows and
+-- clears the photos column post by post.
+
+CREATE TABLE IF NOT EXISTS `post_media` (
+  `id` int NOT NULL AUTO_INCREMENT,
+  `sharedpost_id` int NOT NULL,
+  `ordinal` int NOT NULL,
+  `file_name` varchar(255) DEFAULT NULL,
+  `content_type` varchar(100) DEFAULT NULL,
+  `media_type` varchar(10) DEFAULT NULL,
+  `file_size` bigint DEFAULT NULL,
+  `width` int DEFAULT NULL,
+  `height` int DEFAULT NULL,
+  `storage_key` char(64) DEFAULT NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_post_media_post_ordinal` (`sharedpost_id`, `ordinal`),
+  CONSTRAINT `fk_post_media_sharedpost` FOREIGN KEY (`sharedpost_id`) REFERENCES `sharedpost` (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
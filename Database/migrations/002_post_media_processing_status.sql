@@ -0,0 +1,10 @@
+-- Uploaded images are now stored as-is and resized in the background.
+-- original_key keeps the uploaded file, storage_key the version that is served, and
+-- status tracks the background job (PROCESSING, READY, FAILED).
+
+ALTER TABLE `post_media`
+  ADD COLUMN `original_key` char(64) DEFAULT NULL AFTER `storage_key`,
+  ADD COLUMN `status` varchar(12) DEFAULT NULL AFTER `original_key`;
+
+UPDATE `post_media` SET `original_key` = `storage_key` WHERE `original_key` IS NULL;
+UPDATE `post_media` SET `status` = 'READY' WHERE `status` IS NULL;
@@ -0,0 +1,10 @@
+-- Precomputed smaller copies of post and story images (160px thumb, 480px medium),
+-- served with ?size=thumb|medium. Existing images get theirs generated on first request.
+
+ALTER TABLE `post_media`
+  ADD COLUMN `thumb_key` char(64) DEFAULT NULL AFTER `original_key`,
+  ADD COLUMN `medium_key` char(64) DEFAULT NULL AFTER `thumb_key`;
+
+ALTER TABLE `sharestory`
+  ADD COLUMN `thumb_key` char(64) DEFAULT NULL,
+  ADD COLUMN `medium_key` char(64) DEFAULT NULL;
@@ -0,0 +1,12 @@
+-- SHA-256 content hashes for media kept in BLOB columns. They are served as ETags,
+-- so If-None-Match can be answered without reading the blob.
+
+ALTER TABLE `sharestory`
+  ADD COLUMN `image_hash` char(64) DEFAULT NULL AFTER `image`;
+
+UPDATE `sharestory` SET `image_hash` = SHA2(`image`, 256) WHERE `image` IS NOT NULL AND `image_hash` IS NULL;
+
+ALTER TABLE `payment`
+  ADD COLUMN `file_hash` char(64) DEFAULT NULL AFTER `file`;
+
+UPDATE `payment` SET `file_hash` = SHA2(`file`, 256) WHERE `file` IS NOT NULL AND `file_hash` IS NULL;
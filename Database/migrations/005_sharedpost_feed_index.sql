@@ -0,0 +1,5 @@
+-- Keyset pagination of /sharedpost/feed: newest first by (createdateandtime, id).
+-- Each page is a backward range scan of this index instead of a filesort of the whole table.
+
+CREATE INDEX `idx_sharedpost_feed` ON `sharedpost` (`createdateandtime`, `id`);
+
@@ -0,0 +1,42 @@
+-- Typed coordinates for /sharedpost/nearby. latitude/longitude stay as entered (varchar) for the
+-- frontend; geo_lat/geo_lng are parsed from them by the application on every save, and the
+-- location POINT (SRID 4326, SPATIAL index) is derived from those by the triggers below.
+-- Posts without valid coordinates keep geo_lat/geo_lng NULL and a placeholder location.
+
+ALTER TABLE `sharedpost`
+  ADD COLUMN `geo_lat` double DEFAULT NULL AFTER `longitude`,
+  ADD COLUMN `geo_lng` double DEFAULT NULL AFTER `geo_lat`,
+  ADD COLUMN `location` point NOT NULL SRID 4326 DEFAULT (ST_SRID(POINT(0, 0), 4326)) AFTER `geo_lng`;
+
+DELIMITER $$
+
+CREATE TRIGGER `sharedpost_location_insert` BEFORE INSERT ON `sharedpost` FOR EACH ROW
+BEGIN
+  IF NEW.geo_lat IS NOT NULL AND NEW.geo_lng IS NOT NULL THEN
+    SET NEW.location = ST_SRID(POINT(NEW.geo_lng, NEW.geo_lat), 4326);
+  ELSE
+    SET NEW.location = ST_SRID(POINT(0, 0), 4326);
+  END IF;
+END$$
+
+CREATE TRIGGER `sharedpost_location_update` BEFORE UPDATE ON `sharedpost` FOR EACH ROW
+BEGIN
+  IF NEW.geo_lat IS NOT NULL AND NEW.geo_lng IS NOT NULL THEN
+    SET NEW.location = ST_SRID(POINT(NEW.geo_lng, NEW.geo_lat), 4326);
+  ELSE
+    SET NEW.location = ST_SRID(POINT(0, 0), 4326);
+  END IF;
+END$$
+
+DELIMITER ;
+
+-- Backfill from the strings; values that are not plain decimal degrees in range stay NULL
+UPDATE `sharedpost`
+SET `geo_lat` = CAST(TRIM(`latitude`) AS DECIMAL(10, 7)),
+    `geo_lng` = CAST(TRIM(`longitude`) AS DECIMAL(10, 7))
+WHERE TRIM(`latitude`) REGEXP '^-?[0-9]{1,2}(\\.[0-9]+)?$'
+  AND TRIM(`longitude`) REGEXP '^-?[0-9]{1,3}(\\.[0-9]+)?$'
+  AND CAST(TRIM(`latitude`) AS DECIMAL(10, 7)) BETWEEN -90 AND 90
+  AND CAST(TRIM(`longitude`) AS DECIMAL(10, 7)) BETWEEN -180 AND 180;
+
+CREATE SPATIAL INDEX `idx_sharedpost_location` ON `sharedpost` (`location`);
@@ -0,0 +1,4 @@
+-- /sharedpost/feed?category=...: newest posts of one category by (createdateandtime, id).
+-- Lets a category page stop after limit rows instead of scanning the whole feed index for matches.
+
+CREATE INDEX `idx_sharedpost_category_feed` ON `sharedpost` (`categoreystatus_id`, `createdateandtime`, `id`);
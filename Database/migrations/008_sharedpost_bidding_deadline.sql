@@ -0,0 +1,12 @@
+-- Optional bidding deadline per post. When bidding_deadline passes, AuctionCloseService either
+-- closes the post (bidding_closed_at is set) or, with close_policy 'ACCEPT_BEST', accepts the
+-- best bid. A post with bidding_closed_at set is no longer open: no bids, no order book, not in
+-- the nearby/match/search results.
+
+ALTER TABLE `sharedpost`
+  ADD COLUMN `bidding_deadline` datetime DEFAULT NULL,
+  ADD COLUMN `close_policy` varchar(20) DEFAULT NULL,
+  ADD COLUMN `bidding_closed_at` datetime DEFAULT NULL;
+
+-- Startup reload of pending deadlines reads only posts that have one
+CREATE INDEX `idx_sharedpost_open_deadline` ON `sharedpost` (`bidding_deadline`, `id`);
@@ -0,0 +1,29 @@
+-- Current delivery status kept on the delivery row. DeliveryService sets current_status_id and
+-- current_status_at in the same transaction that inserts the delivery_status_history row, only
+-- ever moving them forward in time, so reading a delivery's status needs no MAX() subquery over
+-- its history and status-filtered lists read one index.
+
+ALTER TABLE `delivery`
+  ADD COLUMN `current_status_id` int DEFAULT NULL,
+  ADD COLUMN `current_status_at` datetime(6) DEFAULT NULL;
+
+-- History of one delivery, newest first (status-history, current-status, the backfill below)
+CREATE INDEX `idx_delivery_status_history_delivery_date`
+  ON `delivery_status_history` (`delivery_id`, `status_date_change`);
+
+-- Deliveries in one status, most recently changed first (/delivery/by-status)
+CREATE INDEX `idx_delivery_current_status` ON `delivery` (`current_status_id`, `current_status_at`, `id`);
+
+ALTER TABLE `delivery`
+  ADD CONSTRAINT `fk_delivery_current_status` FOREIGN KEY (`current_status_id`) REFERENCES `delivery_staus` (`id`);
+
+-- Backfill from the latest history row per delivery (ties go to the later row)
+UPDATE `delivery` d
+JOIN `delivery_status_history` h ON h.`delivery_id` = d.`id`
+SET d.`current_status_id` = h.`delivery_staus_id`,
+    d.`current_status_at` = h.`status_date_change`
+WHERE NOT EXISTS (
+  SELECT 1 FROM `delivery_status_history` n
+  WHERE n.`delivery_id` = h.`delivery_id`
+    AND (n.`status_date_change` > h.`status_date_change`
+         OR (n.`status_date_change` = h.`status_date_change` AND n.`id` > h.`id`)));
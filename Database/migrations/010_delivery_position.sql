@@ -0,0 +1,15 @@
+-- GPS history of deliveries, appended by DeliveryPositionTracker in batches after down-sampling
+-- (tracking.sample.*). Rows are never updated. No foreign key: delivery ids are checked when the
+-- pings arrive, and a batch must not fail as a whole over one deleted delivery.
+
+CREATE TABLE `delivery_position` (
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `delivery_id` int NOT NULL,
+  `recorded_at` datetime(6) NOT NULL,
+  `latitude` double NOT NULL,
+  `longitude` double NOT NULL,
+  `accuracy_m` float DEFAULT NULL,
+  PRIMARY KEY (`id`),
+  -- Track of one delivery in time order, and its newest point (/delivery/{id}/position)
+  KEY `idx_delivery_position_delivery_time` (`delivery_id`, `recorded_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
@@ -0,0 +1,9 @@
+-- When a bid was stored. At its deadline an ACCEPT_BEST post only considers bids placed by then,
+-- so a bid that slipped in after the deadline cannot win. Existing bids keep NULL, which counts
+-- as placed before any deadline; new rows get the insert time from the default.
+
+ALTER TABLE `bitdetails`
+  ADD COLUMN `placed_at` datetime DEFAULT NULL;
+
+ALTER TABLE `bitdetails`
+  MODIFY COLUMN `placed_at` datetime DEFAULT CURRENT_TIMESTAMP;